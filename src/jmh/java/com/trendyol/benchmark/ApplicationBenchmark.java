@@ -0,0 +1,77 @@
+package com.trendyol.benchmark;
+
+import com.trendyol.Application;
+import com.trendyol.ApplicationOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * End to end: Application.run over a generated input file, writing a real output file.
+ * Options are passed as on the command line, e.g. -p options="--format=ndjson --replay-threads=4".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ApplicationBenchmark {
+
+    @Param({"100000"})
+    private int commands;
+
+    @Param({"1", "1000"})
+    private int carts;
+
+    @Param({""})
+    private String options;
+
+    private Application application;
+    private Path inputFile;
+    private Path outputFile;
+    private PrintStream originalOut;
+
+    @Setup
+    public void setUp() throws IOException {
+        inputFile = BenchmarkInputs.writeTempFile(BenchmarkInputs.commands(commands, carts, 42));
+        outputFile = Files.createTempFile("checkout-bench-", ".out");
+        outputFile.toFile().deleteOnExit();
+
+        String[] args = options.isBlank() ? new String[0] : options.trim().split("\\s+");
+        application = new Application(ApplicationOptions.parse(args));
+
+        // Application.run reports to stdout, keep it out of the JMH output
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        System.setOut(originalOut);
+        Files.deleteIfExists(inputFile);
+        Files.deleteIfExists(outputFile);
+    }
+
+    @Benchmark
+    public long run() throws IOException {
+        application.run(inputFile.toString(), outputFile.toString());
+        return Files.size(outputFile);
+    }
+}
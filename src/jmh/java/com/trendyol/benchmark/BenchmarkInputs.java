@@ -0,0 +1,66 @@
+package com.trendyol.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/*
+ * Deterministic command lines for the benchmarks, same mix as a busy checkout:
+ * mostly addItem and displayCart, some VasItems, removals and resets.
+ */
+final class BenchmarkInputs {
+
+    private static final int[] CATEGORIES = {1001, 3003, 3004, 7889, 2000};
+    private static final int[] SELLERS = {500, 501};
+    private static final double[] PRICES = {100.0, 999.99, 5000.0, 0.1, 25.5};
+
+    private BenchmarkInputs() {
+    }
+
+    static List<String> commands(int count, int carts, long seed) {
+        Random random = new Random(seed);
+        List<String> lines = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            int cartId = random.nextInt(carts);
+            int itemId = random.nextInt(12);
+            double r = random.nextDouble();
+
+            if (r < 0.45) {
+                lines.add(addItem(cartId, itemId, pick(random, CATEGORIES), pick(random, SELLERS),
+                        PRICES[random.nextInt(PRICES.length)], 1 + random.nextInt(3)));
+            } else if (r < 0.60) {
+                lines.add("{\"command\":\"addVasItemToItem\",\"cartId\":" + cartId + ",\"payload\":{\"itemId\":" + itemId
+                        + ",\"vasItemId\":" + random.nextInt(5) + ",\"vasCategoryId\":3242,\"vasSellerId\":5003"
+                        + ",\"price\":50.0,\"quantity\":1}}");
+            } else if (r < 0.70) {
+                lines.add("{\"command\":\"removeItem\",\"cartId\":" + cartId + ",\"payload\":{\"itemId\":" + itemId + "}}");
+            } else if (r < 0.73) {
+                lines.add("{\"command\":\"resetCart\",\"cartId\":" + cartId + "}");
+            } else {
+                lines.add("{\"command\":\"displayCart\",\"cartId\":" + cartId + "}");
+            }
+        }
+        return lines;
+    }
+
+    static String addItem(int cartId, int itemId, int categoryId, int sellerId, double price, int quantity) {
+        return "{\"command\":\"addItem\",\"cartId\":" + cartId + ",\"payload\":{\"itemId\":" + itemId
+                + ",\"categoryId\":" + categoryId + ",\"sellerId\":" + sellerId
+                + ",\"price\":" + price + ",\"quantity\":" + quantity + "}}";
+    }
+
+    static Path writeTempFile(List<String> lines) throws IOException {
+        Path file = Files.createTempFile("checkout-bench-", ".txt");
+        Files.write(file, lines);
+        file.toFile().deleteOnExit();
+        return file;
+    }
+
+    private static int pick(Random random, int[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,22 @@
+package com.trendyol.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Entry point of target/benchmarks.jar. Same arguments as the JMH runner, but the gc profiler
+ * is always on so every run reports the allocation rate (gc.alloc.rate.norm) next to the throughput.
+ * Example: java -jar target/benchmarks.jar PromotionBenchmark -p shape=CATEGORY
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        List<String> jmhArgs = new ArrayList<>(Arrays.asList(args));
+        if (!jmhArgs.contains("gc")) {
+            jmhArgs.add("-prof");
+            jmhArgs.add("gc");
+        }
+        org.openjdk.jmh.Main.main(jmhArgs.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,75 @@
+package com.trendyol.benchmark;
+
+import com.trendyol.domain.cart.Cart;
+import com.trendyol.domain.item.DefaultItem;
+import com.trendyol.domain.item.VasItem;
+import com.trendyol.domain.money.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Cart mutations at different fill levels. Each invocation leaves the cart as it found it,
+ * so the fill level stays fixed for the whole measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CartBenchmark {
+
+    private static final int NEW_ITEM_ID = 999;
+
+    // Unique items already in the cart (max 10, one slot left for the benchmarked item)
+    @Param({"0", "5", "9"})
+    private int fillLevel;
+
+    private Cart cart;
+
+    @Setup
+    public void setUp() {
+        cart = new Cart();
+        for (int i = 0; i < fillLevel; i++) {
+            DefaultItem item = new DefaultItem(i + 1, i % 2 == 0 ? 1001 : 3004, 500 + i % 3, Money.ofLira(100 + i), 1);
+            cart.addItem(item);
+            cart.addVasItemToItem(item.getItemId(), new VasItem(100 + i, 3242, 5003, Money.ofLira(10), 1));
+        }
+    }
+
+    // Append at the tail, then remove it again
+    @Benchmark
+    public Cart addAndRemoveLastItem() {
+        cart.addItem(new DefaultItem(NEW_ITEM_ID, 2000, 501, Money.ofLira(250), 1));
+        cart.removeItem(NEW_ITEM_ID);
+        return cart;
+    }
+
+    // Removing the first item shifts the others; re-adding puts it at the tail
+    @Benchmark
+    public Cart removeAndReAddFirstItem() {
+        if (fillLevel == 0) {
+            return addAndRemoveLastItem();
+        }
+        cart.removeItem(1);
+        cart.addItem(new DefaultItem(1, 1001, 500, Money.ofLira(100), 1));
+        cart.addVasItemToItem(1, new VasItem(100, 3242, 5003, Money.ofLira(10), 1));
+        return cart;
+    }
+
+    @Benchmark
+    public long totalAmount() {
+        return cart.getTotalAmount();
+    }
+}
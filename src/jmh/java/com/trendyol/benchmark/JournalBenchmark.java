@@ -0,0 +1,178 @@
+package com.trendyol.benchmark;
+
+import com.trendyol.command.CartCommand;
+import com.trendyol.command.CommandProcessor;
+import com.trendyol.command.CommandResponse;
+import com.trendyol.io.JsonMapper;
+import com.trendyol.journal.CartJournal;
+import com.trendyol.service.CartService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/*
+ * Cost of the journal: per command on the hot path (journal off vs on), and recovery time from
+ * a journal tail alone vs from a snapshot.
+ */
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JournalBenchmark {
+
+    private static final JsonMapper JSON_MAPPER = new JsonMapper(false);
+
+    @State(Scope.Thread)
+    public static class Execute {
+
+        @Param({"false", "true"})
+        private boolean journaled;
+
+        private List<CartCommand> commands;
+        private CommandProcessor processor;
+        private CartJournal journal;
+        private Path directory;
+        private int next;
+
+        @Setup
+        public void setUp() throws IOException {
+            commands = parse(BenchmarkInputs.commands(100_000, 1000, 42));
+            CartService cartService = new CartService();
+            if (journaled) {
+                directory = Files.createTempDirectory("checkout-journal-");
+                journal = new CartJournal(directory, CartJournal.DEFAULT_SNAPSHOT_INTERVAL, cartService);
+                journal.recover(command -> {
+                });
+            }
+            processor = new CommandProcessor(JSON_MAPPER, cartService, journal);
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            if (journal != null) {
+                journal.close();
+                deleteRecursively(directory);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Recover {
+
+        @Param({"journal", "snapshot"})
+        private String source;
+
+        @Param({"100000"})
+        private int commands;
+
+        private Path template;
+        private Path directory;
+        private CartJournal journal;
+
+        @Setup(Level.Trial)
+        public void prepare() throws IOException {
+            template = Files.createTempDirectory("checkout-journal-template-");
+            Path live = Files.createTempDirectory("checkout-journal-live-");
+
+            CartService cartService = new CartService();
+            CartJournal writer = new CartJournal(live, 0, cartService);
+            writer.recover(command -> {
+            });
+            CommandProcessor processor = new CommandProcessor(JSON_MAPPER, cartService, writer);
+            for (CartCommand command : parse(BenchmarkInputs.commands(commands, 1000, 42))) {
+                processor.execute(command);
+            }
+
+            if (source.equals("snapshot")) {
+                // Closing writes the snapshot and drops the segments it covers
+                writer.close();
+                copy(live, template);
+            } else {
+                // The state after a crash: segments only
+                processor.awaitDurable();
+                copy(live, template);
+                writer.close();
+            }
+            deleteRecursively(live);
+        }
+
+        @Setup(Level.Invocation)
+        public void copyTemplate() throws IOException {
+            directory = Files.createTempDirectory("checkout-journal-");
+            copy(template, directory);
+        }
+
+        @TearDown(Level.Invocation)
+        public void closeJournal() throws IOException {
+            journal.close();
+            deleteRecursively(directory);
+        }
+
+        @TearDown(Level.Trial)
+        public void deleteTemplate() throws IOException {
+            deleteRecursively(template);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public CommandResponse execute(Execute state) {
+        CommandResponse response = state.processor.execute(state.commands.get(state.next));
+        state.next = state.next + 1 == state.commands.size() ? 0 : state.next + 1;
+        return response;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 10)
+    public CartJournal.Recovery recover(Recover state) {
+        CartService cartService = new CartService();
+        CommandProcessor processor = new CommandProcessor(JSON_MAPPER, cartService);
+        state.journal = new CartJournal(state.directory, 0, cartService);
+        return state.journal.recover(processor::execute);
+    }
+
+    private static List<CartCommand> parse(List<String> lines) {
+        List<CartCommand> commands = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            commands.add(JSON_MAPPER.parseCommand(line));
+        }
+        return commands;
+    }
+
+    private static void copy(Path from, Path to) throws IOException {
+        try (Stream<Path> files = Files.list(from)) {
+            for (Path file : files.toList()) {
+                Files.copy(file, to.resolve(file.getFileName()));
+            }
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.trendyol.benchmark;
+
+import com.trendyol.command.CartCommand;
+import com.trendyol.command.CommandRequest;
+import com.trendyol.command.CommandResponse;
+import com.trendyol.domain.cart.Cart;
+import com.trendyol.domain.item.DefaultItem;
+import com.trendyol.domain.item.VasItem;
+import com.trendyol.domain.money.Money;
+import com.trendyol.io.JsonMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Request decoding (legacy Gson DTO and typed commands) and response encoding.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+    private static final String ADD_ITEM =
+            BenchmarkInputs.addItem(7, 1, 1001, 500, 1000.0, 2);
+
+    @Param({"true", "false"})
+    private boolean prettyPrinting;
+
+    // Unique items in the displayed cart
+    @Param({"1", "10"})
+    private int cartItems;
+
+    private JsonMapper jsonMapper;
+    private CommandResponse displayCart;
+    private StringBuilder buffer;
+
+    @Setup
+    public void setUp() {
+        jsonMapper = new JsonMapper(prettyPrinting);
+        buffer = new StringBuilder(4096);
+
+        Cart cart = new Cart();
+        for (int i = 0; i < cartItems; i++) {
+            cart.addItem(new DefaultItem(i + 1, 1001, 500, Money.ofLira(100), 1));
+            cart.addVasItemToItem(i + 1, new VasItem(100 + i, 3242, 5003, Money.ofLira(10), 1));
+        }
+        displayCart = CommandResponse.displayCart(cart);
+    }
+
+    @Benchmark
+    public CommandRequest parseRequest() {
+        return jsonMapper.parseRequest(ADD_ITEM);
+    }
+
+    @Benchmark
+    public CartCommand parseCommand() {
+        return jsonMapper.parseCommand(ADD_ITEM);
+    }
+
+    @Benchmark
+    public String toJsonDisplayCart() {
+        return jsonMapper.toJson(displayCart);
+    }
+
+    @Benchmark
+    public String toJsonConstant() {
+        return jsonMapper.toJson(CommandResponse.ITEM_ADDED);
+    }
+
+    // Reused buffer, as in Application.run
+    @Benchmark
+    public int writeJsonDisplayCart() {
+        buffer.setLength(0);
+        jsonMapper.writeJson(displayCart, buffer);
+        return buffer.length();
+    }
+}
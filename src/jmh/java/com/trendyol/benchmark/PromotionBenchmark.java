@@ -0,0 +1,106 @@
+package com.trendyol.benchmark;
+
+import com.trendyol.domain.cart.Cart;
+import com.trendyol.domain.item.DefaultItem;
+import com.trendyol.domain.money.Money;
+import com.trendyol.domain.promotion.CategoryPromotion;
+import com.trendyol.domain.promotion.Promotion;
+import com.trendyol.domain.promotion.PromotionCatalog;
+import com.trendyol.domain.promotion.PromotionService;
+import com.trendyol.domain.promotion.SameSellerPromotion;
+import com.trendyol.domain.promotion.TotalPricePromotion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Best promotion selection on carts shaped so that a given promotion wins,
+ * against the built-in catalog and a large generated one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromotionBenchmark {
+
+    public enum Shape {
+        SAME_SELLER,
+        CATEGORY,
+        TOTAL_PRICE,
+        NONE
+    }
+
+    @Param
+    private Shape shape;
+
+    // Number of seller/category campaigns added on top of the built-in rules
+    @Param({"0", "5000"})
+    private int extraRules;
+
+    private Cart cart;
+    private PromotionService promotionService;
+
+    @Setup
+    public void setUp() {
+        promotionService = new PromotionService(catalog(extraRules));
+        cart = new Cart();
+
+        switch (shape) {
+            case SAME_SELLER -> {
+                cart.addItem(new DefaultItem(1, 1001, 500, Money.ofLira(1000), 2));
+                cart.addItem(new DefaultItem(2, 3004, 500, Money.ofLira(5000), 1));
+            }
+            case CATEGORY -> {
+                cart.addItem(new DefaultItem(1, 3003, 500, Money.ofLira(100), 2));
+                cart.addItem(new DefaultItem(2, 1001, 501, Money.ofLira(50), 1));
+            }
+            case TOTAL_PRICE -> {
+                cart.addItem(new DefaultItem(1, 1001, 500, Money.ofLira(6000), 1));
+                cart.addItem(new DefaultItem(2, 3004, 501, Money.ofLira(7000), 1));
+            }
+            case NONE -> {
+                cart.addItem(new DefaultItem(1, 1001, 500, Money.ofLira(10), 1));
+                cart.addItem(new DefaultItem(2, 3004, 501, Money.ofLira(20), 1));
+            }
+        }
+    }
+
+    @Benchmark
+    public int applyBestPromotion() {
+        promotionService.applyBestPromotion(cart);
+        return cart.getAppliedPromotionId();
+    }
+
+    private static PromotionCatalog catalog(int extraRules) {
+        List<Promotion> rules = new ArrayList<>(List.of(
+                new SameSellerPromotion(), new CategoryPromotion(), new TotalPricePromotion()));
+
+        // Campaigns mostly on sellers/categories the benchmark carts do not hold
+        Random random = new Random(42);
+        for (int i = 0; i < extraRules; i++) {
+            int promotionId = 100_000 + i;
+            int basisPoints = 100 + random.nextInt(5) * 100;
+            if (i % 2 == 0) {
+                rules.add(new SameSellerPromotion(promotionId, basisPoints, 1_000 + random.nextInt(10_000)));
+            } else {
+                rules.add(new CategoryPromotion(promotionId, 10_000 + random.nextInt(10_000), basisPoints));
+            }
+        }
+        return PromotionCatalog.of(rules);
+    }
+}
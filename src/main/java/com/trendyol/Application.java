@@ -1,57 +1,124 @@
 package com.trendyol;
 
-import com.trendyol.command.CommandRequest;
+import com.trendyol.command.CommandProcessor;
 import com.trendyol.command.CommandResponse;
-import com.trendyol.domain.exception.CartException;
-import com.trendyol.domain.exception.ItemException;
+import com.trendyol.command.ParsedCommand;
+import com.trendyol.domain.promotion.PromotionCatalog;
+import com.trendyol.domain.promotion.PromotionService;
+import com.trendyol.io.BinaryCodec;
+import com.trendyol.io.BinaryFrameReader;
+import com.trendyol.io.BinaryFrameWriter;
+import com.trendyol.io.CommandCodec;
+import com.trendyol.io.DisplayCartCache;
 import com.trendyol.io.InputReader;
 import com.trendyol.io.JsonMapper;
-import com.trendyol.io.OutputWriter;
+import com.trendyol.io.MappedInputReader;
+import com.trendyol.io.PromotionCatalogReader;
+import com.trendyol.io.StreamingOutputWriter;
+import com.trendyol.journal.CartJournal;
+import com.trendyol.metrics.Metrics;
+import com.trendyol.replay.PartitionedReplay;
+import com.trendyol.replay.PipelinedReplay;
+import com.trendyol.server.CartHttpServer;
 import com.trendyol.service.CartService;
+import com.trendyol.service.TieredCartRegistry;
+import com.trendyol.store.CartStore;
+import com.trendyol.store.MappedCartStore;
 
-import java.util.List;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.Consumer;
 
 public class Application {
 
-    private static final String DEFAULT_INPUT_FILE = "input.txt";
-    private static final String DEFAULT_OUTPUT_FILE = "output.txt";
+    private final ApplicationOptions options;
+
+    public Application() {
+        this(new ApplicationOptions());
+    }
+
+    public Application(ApplicationOptions options) {
+        this.options = options;
+    }
 
     public static void main(String[] args) {
-        // Determine file paths
-        String inputFile = args.length > 0 ? args[0] : DEFAULT_INPUT_FILE;
-        String outputFile = args.length > 1 ? args[1] : DEFAULT_OUTPUT_FILE;
+        // Determine file paths and options
+        ApplicationOptions options = ApplicationOptions.parse(args);
 
         // Run the application
-        Application app = new Application();
-        app.run(inputFile, outputFile);
+        Application app = new Application(options);
+        if (options.isServerMode()) {
+            app.serve(options.getServerPort());
+        } else {
+            app.run(options.getInputFile(), options.getOutputFile());
+        }
     }
 
     public void run(String inputFilePath, String outputFilePath) {
+        if (options.getFormat() == ApplicationOptions.Format.BINARY) {
+            runBinary(inputFilePath, outputFilePath);
+            return;
+        }
 
         InputReader inputReader = new InputReader();
-        OutputWriter outputWriter = new OutputWriter();
-        JsonMapper jsonMapper = new JsonMapper();
-        CartService cartService = new CartService();
+        DisplayCartCache displayCache = createDisplayCache();
+        JsonMapper jsonMapper = createJsonMapper(displayCache);
+        Metrics metrics = createMetrics();
+        CartService cartService = createCartService(metrics);
+        linkDisplayCache(cartService, displayCache);
 
-        // Clear output file
-        outputWriter.clearFile(outputFilePath);
+        // Open (and clear) output file once for the whole run
+        try (cartService;
+             CartJournal journal = openJournal(cartService, jsonMapper);
+             StreamingOutputWriter outputWriter =
+                     new StreamingOutputWriter(outputFilePath, options.getFlushInterval())) {
 
-        try {
-            // Read input file
-            List<String> inputLines = inputReader.readLines(inputFilePath);
+            CommandProcessor processor = new CommandProcessor(jsonMapper, cartService, journal, metrics);
 
-            // Process each row
-            for (String line : inputLines) {
-                CommandResponse response = processCommand(line, jsonMapper, cartService);
+            if (options.getReplayThreads() > 1) {
+                // Carts are independent, spread them over several threads
+                PartitionedReplay replay = new PartitionedReplay(processor, jsonMapper, options.getReplayThreads());
+                if (options.getReadThreads() > 1) {
+                    replay.run(new MappedInputReader(options.getReadThreads()), inputFilePath, outputWriter);
+                } else {
+                    replay.run(inputReader, inputFilePath, outputWriter);
+                }
+            } else if (options.getPipelineThreads() > 0) {
+                // One cart at a time, parse and serialize overlap with the cart updates
+                new PipelinedReplay(processor, jsonMapper, options.getPipelineThreads())
+                        .run(inputReader, inputFilePath, outputWriter);
+            } else {
+                StringBuilder responseJson = new StringBuilder(1024);
+                Consumer<CommandResponse> write = response -> {
+                    // Convert response to JSON and write to file
+                    responseJson.setLength(0);
+                    jsonMapper.writeJson(response, responseJson);
+                    outputWriter.writeLine(responseJson);
+                };
 
-                // Convert response to JSON and write to file
-                String responseJson = jsonMapper.toJson(response);
-                outputWriter.writeLine(outputFilePath, responseJson);
+                if (options.getReadThreads() > 1) {
+                    // Lines are parsed ahead on the reader's threads, executed here in file order
+                    new MappedInputReader(options.getReadThreads()).forEachLine(inputFilePath,
+                            (buffer, start, end) -> processor.parse(MappedInputReader.decode(buffer, start, end)),
+                            parsed -> write.accept(processor.process(parsed)));
+                } else {
+                    // Stream input file, process each row as it is read
+                    inputReader.forEachLine(inputFilePath, line -> write.accept(processor.process(line)));
+                }
             }
 
             System.out.println("✓ Processing completed successfully!");
             System.out.println("  Input file: " + inputFilePath);
             System.out.println("  Output file: " + outputFilePath);
+            if (metrics != null) {
+                System.out.println(metrics.getSummary());
+            }
+            if (displayCache != null) {
+                System.out.println(displayCache.getSummary());
+            }
+            if (cartService.getCartRegistry() instanceof TieredCartRegistry registry) {
+                System.out.println(registry.getSummary());
+            }
 
         } catch (Exception e) {
             System.err.println("✗ Application error: " + e.getMessage());
@@ -59,83 +126,167 @@ public class Application {
         }
     }
 
-    private CommandResponse processCommand(String jsonLine, JsonMapper jsonMapper, CartService cartService) {
-        try {
-            // Parse JSON
-            CommandRequest request = jsonMapper.parseRequest(jsonLine);
-            String command = request.getCommand();
-
-            // Run the command
-            return switch (command) {
-                case "addItem" -> handleAddItem(request, cartService);
-                case "addVasItemToItem" -> handleAddVasItemToItem(request, cartService);
-                case "removeItem" -> handleRemoveItem(request, cartService);
-                case "resetCart" -> handleResetCart(cartService);
-                case "displayCart" -> handleDisplayCart(cartService);
-                default -> CommandResponse.error("Unknown command: " + command);
-            };
-
-        } catch (CartException | ItemException e) {
-            return CommandResponse.error(e.getMessage());
+    /**
+     * Sequential replay of a binary command file (see FormatConverter) into a binary response file
+     *
+     * @param inputFilePath  Length-prefixed binary commands
+     * @param outputFilePath Length-prefixed binary responses
+     */
+    public void runBinary(String inputFilePath, String outputFilePath) {
+        CommandCodec codec = new BinaryCodec();
+        // Responses are encoded by the codec, the mapper only writes journal records
+        JsonMapper jsonMapper = createJsonMapper(null);
+        Metrics metrics = createMetrics();
+        CartService cartService = createCartService(metrics);
+
+        try (cartService;
+             CartJournal journal = openJournal(cartService, jsonMapper);
+             BinaryFrameWriter outputWriter = new BinaryFrameWriter(outputFilePath, options.getFlushInterval())) {
+
+            CommandProcessor processor = new CommandProcessor(jsonMapper, cartService, journal, metrics);
+            new BinaryFrameReader().forEachFrame(inputFilePath, body -> {
+                ParsedCommand parsed;
+                try {
+                    parsed = ParsedCommand.of(codec.decodeCommand(body));
+                } catch (Exception e) {
+                    parsed = ParsedCommand.rejected(processor.rejectLine(e));
+                }
+                outputWriter.writeFrame(codec.encodeResponse(processor.process(parsed)));
+            });
+
+            System.out.println("✓ Processing completed successfully!");
+            System.out.println("  Input file: " + inputFilePath);
+            System.out.println("  Output file: " + outputFilePath);
+            if (metrics != null) {
+                System.out.println(metrics.getSummary());
+            }
+            if (cartService.getCartRegistry() instanceof TieredCartRegistry registry) {
+                System.out.println(registry.getSummary());
+            }
+
         } catch (Exception e) {
-            return CommandResponse.error("Error processing command: " + e.getMessage());
+            System.err.println("✗ Application error: " + e.getMessage());
+            System.err.println("  Cause: " + (e.getCause() != null ? e.getCause().getMessage() : "Unknown"));
         }
     }
 
-    private CommandResponse handleAddItem(CommandRequest request, CartService cartService) {
-        Integer itemId = request.getIntValue("itemId");
-        Integer categoryId = request.getIntValue("categoryId");
-        Integer sellerId = request.getIntValue("sellerId");
-        Double price = request.getDoubleValue("price");
-        Integer quantity = request.getIntValue("quantity");
+    /**
+     * Starts the HTTP front end; the server's threads keep the JVM running. With a journal every
+     * response is sent once its command is on disk, and the next start recovers from the journal.
+     *
+     * @param port Port to listen on, 0 for any free port
+     * @return The started server
+     */
+    public CartHttpServer serve(int port) {
+        DisplayCartCache displayCache = createDisplayCache();
+        JsonMapper jsonMapper = createJsonMapper(displayCache);
+        Metrics metrics = createMetrics();
+        CartService cartService = createCartService(metrics);
+        linkDisplayCache(cartService, displayCache);
+        CommandProcessor processor = new CommandProcessor(jsonMapper, cartService, openJournal(cartService, jsonMapper),
+                metrics);
 
-        if (itemId == null || categoryId == null || sellerId == null ||
-                price == null || quantity == null) {
-            return CommandResponse.error("Missing required parameters for addItem");
+        // Starting the platform MBean server takes a few hundred ms, only worth it for a long-lived process
+        if (metrics != null) {
+            metrics.register();
+        }
+        if (displayCache != null) {
+            displayCache.register();
+        }
+        if (cartService.getCartRegistry() instanceof TieredCartRegistry registry) {
+            registry.register();
         }
 
-        cartService.addItem(itemId, categoryId, sellerId, price, quantity);
-        return CommandResponse.success("Item added to cart successfully");
+        try {
+            CartHttpServer server = new CartHttpServer(processor, jsonMapper, port);
+            server.start();
+            System.out.println("✓ Listening on http://localhost:" + server.getPort() + CartHttpServer.COMMANDS_PATH);
+            if (metrics != null) {
+                System.out.println("  Metrics: JMX " + Metrics.OBJECT_NAME);
+            }
+            if (displayCache != null) {
+                System.out.println("  displayCart cache: JMX " + DisplayCartCache.OBJECT_NAME);
+            }
+            if (cartService.getCartRegistry() instanceof TieredCartRegistry) {
+                System.out.println("  Cart registry: JMX " + TieredCartRegistry.OBJECT_NAME);
+            }
+            if (options.getCartStoreFile() != null || options.getCartSpillDirectory() != null) {
+                // Marks the store clean so the next start skips the scan, deletes a spill file
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    server.stop(1);
+                    cartService.close();
+                }, "cart-store-close"));
+            }
+            return server;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to start server on port " + port, e);
+        }
+    }
+
+    // displayCache belongs to the CartService of the same run
+    private JsonMapper createJsonMapper(DisplayCartCache displayCache) {
+        return new JsonMapper(options.getFormat() == ApplicationOptions.Format.PRETTY, displayCache);
     }
 
-    private CommandResponse handleAddVasItemToItem(CommandRequest request, CartService cartService) {
-        Integer itemId = request.getIntValue("itemId");
-        Integer vasItemId = request.getIntValue("vasItemId");
-        Integer vasCategoryId = request.getIntValue("vasCategoryId");
-        Integer vasSellerId = request.getIntValue("vasSellerId");
-        Double price = request.getDoubleValue("price");
-        Integer quantity = request.getIntValue("quantity");
-
-        if (itemId == null || vasItemId == null || vasCategoryId == null ||
-                vasSellerId == null || price == null || quantity == null) {
-            return CommandResponse.error("Missing required parameters for addVasItemToItem");
+    // A cart leaving the heap takes its cached display along, so the residency limits bound the cache too
+    private static void linkDisplayCache(CartService cartService, DisplayCartCache displayCache) {
+        if (displayCache != null && cartService.getCartRegistry() instanceof TieredCartRegistry registry) {
+            registry.setRemovalListener(displayCache::invalidate);
         }
+    }
 
-        cartService.addVasItemToItem(itemId, vasItemId, vasCategoryId, vasSellerId, price, quantity);
-        return CommandResponse.success("VasItem added to item successfully");
+    // Empty per run, null with --display-cache=off
+    private DisplayCartCache createDisplayCache() {
+        return options.isDisplayCacheEnabled() ? new DisplayCartCache(options.getDisplayCacheCarts()) : null;
     }
 
-    private CommandResponse handleRemoveItem(CommandRequest request, CartService cartService) {
-        Integer itemId = request.getIntValue("itemId");
+    private CartService createCartService(Metrics metrics) {
+        return new CartService(options.getPromotionMode(), createPromotionService(metrics), options.getCartReadMode(),
+                options.getResidencyLimits(), openCartStore());
+    }
 
-        if (itemId == null) {
-            return CommandResponse.error("Missing required parameter: itemId");
+    // Carts of the previous runs, loaded as they are used, or an empty spill file; null without either option
+    private CartStore openCartStore() {
+        if (options.getCartSpillDirectory() != null) {
+            return MappedCartStore.createSpillFile(Path.of(options.getCartSpillDirectory()));
         }
-
-        boolean removed = cartService.removeItem(itemId);
-        if (removed) {
-            return CommandResponse.success("Item removed from cart successfully");
-        } else {
-            return CommandResponse.error("Item not found in cart");
+        if (options.getCartStoreFile() == null) {
+            return null;
         }
+
+        long start = System.nanoTime();
+        MappedCartStore store = new MappedCartStore(Path.of(options.getCartStoreFile()));
+        System.out.println("✓ Opened " + store.size() + " carts from " + options.getCartStoreFile()
+                + (store.isOpenedFromIndex() ? "" : " (scanned)") + " in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return store;
     }
 
-    private CommandResponse handleResetCart(CartService cartService) {
-        cartService.resetCart();
-        return CommandResponse.success("Cart reset successfully");
+    // Fresh counters per run, null with --metrics=off
+    private Metrics createMetrics() {
+        return options.isMetricsEnabled() ? new Metrics() : null;
+    }
+
+    // Restores the carts of the previous runs into cartService, null without --journal
+    private CartJournal openJournal(CartService cartService, JsonMapper jsonMapper) {
+        if (options.getJournalDirectory() == null) {
+            return null;
+        }
+
+        CartJournal journal = new CartJournal(Path.of(options.getJournalDirectory()), options.getSnapshotInterval(),
+                cartService);
+        CommandProcessor recoveryProcessor = new CommandProcessor(jsonMapper, cartService);
+        CartJournal.Recovery recovery = journal.recover(recoveryProcessor::execute);
+
+        System.out.println("✓ Recovered " + recovery.carts() + " carts from snapshot and replayed "
+                + recovery.replayed() + " journal records in " + recovery.elapsedMillis() + " ms");
+        return journal;
     }
 
-    private CommandResponse handleDisplayCart(CartService cartService) {
-        return CommandResponse.displayCart(cartService.getCart());
+    private PromotionService createPromotionService(Metrics metrics) {
+        PromotionCatalog catalog = options.getPromotionCatalogFile() == null
+                ? PromotionCatalog.builtIn()
+                : new PromotionCatalogReader().read(options.getPromotionCatalogFile());
+        return new PromotionService(catalog, metrics);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,260 @@
+package com.trendyol;
+
+import com.trendyol.io.DisplayCartCache;
+import com.trendyol.journal.CartJournal;
+import com.trendyol.service.CartReadMode;
+import com.trendyol.service.EvictionPolicy;
+import com.trendyol.service.PromotionMode;
+import com.trendyol.service.ResidencyLimits;
+
+import java.time.Duration;
+
+/*
+ * Command line options of the application.
+ * Usage: [inputFile] [outputFile] [--flush-interval=N] [--replay-threads=N] [--format=pretty|ndjson|binary]
+ *        [--promotions=eager|lazy] [--promotion-catalog=path] [--read-threads=N] [--pipeline-threads=N]
+ *        [--serve=PORT] [--journal=directory] [--snapshot-interval=N] [--metrics=on|off]
+ *        [--cart-reads=locked|snapshot] [--display-cache=on|off] [--display-cache-carts=N] [--hot-carts=N]
+ *        [--hot-cart-memory=MB] [--cart-idle-timeout=seconds] [--cart-eviction=lru|tinylfu]
+ *        [--cart-spill=directory] [--cart-store=path]
+ */
+public class ApplicationOptions {
+
+    public enum Format {
+        PRETTY,
+        NDJSON,
+        // Length-prefixed binary commands in, binary responses out, see BinaryCodec
+        BINARY
+    }
+
+    private static final String DEFAULT_INPUT_FILE = "input.txt";
+    private static final String DEFAULT_OUTPUT_FILE = "output.txt";
+    private static final int DEFAULT_FLUSH_INTERVAL = 1024;
+
+    private String inputFile = DEFAULT_INPUT_FILE;
+    private String outputFile = DEFAULT_OUTPUT_FILE;
+    private int flushInterval = DEFAULT_FLUSH_INTERVAL;
+    private int replayThreads = 1;
+    private int readThreads = 1;
+    private int pipelineThreads = 0;
+    private int serverPort = -1;
+    private Format format = Format.PRETTY;
+    private PromotionMode promotionMode = PromotionMode.EAGER;
+    private String promotionCatalogFile;
+    private String journalDirectory;
+    private int snapshotInterval = CartJournal.DEFAULT_SNAPSHOT_INTERVAL;
+    private boolean metrics = true;
+    private CartReadMode cartReadMode = CartReadMode.LOCKED;
+    private boolean displayCache = true;
+    private int displayCacheCarts = DisplayCartCache.DEFAULT_MAX_CARTS;
+    private int hotCarts = 0;
+    private int hotCartMemoryMb = 0;
+    private int cartIdleTimeoutSeconds = 0;
+    private EvictionPolicy cartEviction = EvictionPolicy.LRU;
+    private String cartSpillDirectory;
+    private String cartStoreFile;
+
+    public static ApplicationOptions parse(String[] args) {
+        ApplicationOptions options = new ApplicationOptions();
+        int position = 0;
+
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                options.applyFlag(arg);
+            } else if (position == 0) {
+                options.inputFile = arg;
+                position++;
+            } else if (position == 1) {
+                options.outputFile = arg;
+                position++;
+            } else {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+        }
+
+        if (options.pipelineThreads > 0 && (options.replayThreads > 1 || options.readThreads > 1)) {
+            throw new IllegalArgumentException("--pipeline-threads cannot be combined with --replay-threads or --read-threads");
+        }
+        if (options.format == Format.BINARY && (options.replayThreads > 1 || options.readThreads > 1
+                || options.pipelineThreads > 0 || options.isServerMode())) {
+            throw new IllegalArgumentException("--format=binary only supports the sequential file mode");
+        }
+        if (options.displayCacheCarts < 1) {
+            throw new IllegalArgumentException("--display-cache-carts must be positive");
+        }
+        if (options.cartStoreFile != null && options.journalDirectory != null) {
+            throw new IllegalArgumentException("--cart-store and --journal both persist the carts, use one of them");
+        }
+        if (options.cartSpillDirectory != null && options.cartStoreFile != null) {
+            throw new IllegalArgumentException("--cart-spill cannot be combined with --cart-store, idle carts already go to the store");
+        }
+        if (options.cartSpillDirectory != null && !options.getResidencyLimits().isBounded()) {
+            throw new IllegalArgumentException("--cart-spill needs --hot-carts, --hot-cart-memory or --cart-idle-timeout");
+        }
+
+        return options;
+    }
+
+    private void applyFlag(String arg) {
+        int separator = arg.indexOf('=');
+        String name = separator > 0 ? arg.substring(2, separator) : arg.substring(2);
+        String value = separator > 0 ? arg.substring(separator + 1) : null;
+
+        switch (name) {
+            case "flush-interval" -> flushInterval = parseInt(name, value);
+            case "replay-threads" -> replayThreads = parseInt(name, value);
+            case "read-threads" -> readThreads = parseInt(name, value);
+            case "pipeline-threads" -> pipelineThreads = parseInt(name, value);
+            case "serve" -> serverPort = parseInt(name, value);
+            case "format" -> format = parseEnum(Format.class, name, value);
+            case "promotions" -> promotionMode = parseEnum(PromotionMode.class, name, value);
+            case "promotion-catalog" -> promotionCatalogFile = requireValue(name, value);
+            case "journal" -> journalDirectory = requireValue(name, value);
+            case "snapshot-interval" -> snapshotInterval = parseInt(name, value);
+            case "metrics" -> metrics = parseSwitch(name, value);
+            case "cart-reads" -> cartReadMode = parseEnum(CartReadMode.class, name, value);
+            case "display-cache" -> displayCache = parseSwitch(name, value);
+            case "display-cache-carts" -> displayCacheCarts = parseInt(name, value);
+            case "hot-carts" -> hotCarts = parseInt(name, value);
+            case "hot-cart-memory" -> hotCartMemoryMb = parseInt(name, value);
+            case "cart-idle-timeout" -> cartIdleTimeoutSeconds = parseInt(name, value);
+            case "cart-eviction" -> cartEviction = parseEnum(EvictionPolicy.class, name, value);
+            case "cart-spill" -> cartSpillDirectory = requireValue(name, value);
+            case "cart-store" -> cartStoreFile = requireValue(name, value);
+            default -> throw new IllegalArgumentException("Unknown option: " + arg);
+        }
+    }
+
+    private static String requireValue(String name, String value) {
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Option --" + name + " expects a value");
+        }
+        return value;
+    }
+
+    private static int parseInt(String name, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Option --" + name + " expects a number", e);
+        }
+    }
+
+    private static boolean parseSwitch(String name, String value) {
+        if ("on".equalsIgnoreCase(value)) {
+            return true;
+        }
+        if ("off".equalsIgnoreCase(value)) {
+            return false;
+        }
+        throw new IllegalArgumentException("Unknown value for --" + name + ": " + value);
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String name, String value) {
+        for (E candidate : type.getEnumConstants()) {
+            if (candidate.name().equalsIgnoreCase(value)) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("Unknown value for --" + name + ": " + value);
+    }
+
+    public String getInputFile() {
+        return inputFile;
+    }
+
+    public String getOutputFile() {
+        return outputFile;
+    }
+
+    public int getFlushInterval() {
+        return flushInterval;
+    }
+
+    public int getReplayThreads() {
+        return replayThreads;
+    }
+
+    // Above 1 the input is memory-mapped and parsed on this many threads
+    public int getReadThreads() {
+        return readThreads;
+    }
+
+    // Above 0 parse and serialize run on pools of this size around a single apply thread
+    public int getPipelineThreads() {
+        return pipelineThreads;
+    }
+
+    // HTTP server mode instead of replaying the input file, -1 when not set
+    public int getServerPort() {
+        return serverPort;
+    }
+
+    public boolean isServerMode() {
+        return serverPort >= 0;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public PromotionMode getPromotionMode() {
+        return promotionMode;
+    }
+
+    // null = built-in promotions
+    public String getPromotionCatalogFile() {
+        return promotionCatalogFile;
+    }
+
+    // null = carts are not persisted
+    public String getJournalDirectory() {
+        return journalDirectory;
+    }
+
+    // Journal records between snapshots, 0 = snapshot only on shutdown
+    public int getSnapshotInterval() {
+        return snapshotInterval;
+    }
+
+    // Per command latency histograms, printed at the end of a run and published over JMX
+    public boolean isMetricsEnabled() {
+        return metrics;
+    }
+
+    // SNAPSHOT: displayCart reads a copy published after each change, without waiting for the cart's lock
+    public CartReadMode getCartReadMode() {
+        return cartReadMode;
+    }
+
+    // Reuse the encoded displayCart response of a cart that has not changed since its last display
+    public boolean isDisplayCacheEnabled() {
+        return displayCache;
+    }
+
+    // Carts that keep an encoded displayCart response, the least recently displayed one loses it first
+    public int getDisplayCacheCarts() {
+        return displayCacheCarts;
+    }
+
+    // Above 0 only this many carts stay on the heap, idle ones are kept off-heap; 0 = all on the heap
+    public int getHotCarts() {
+        return hotCarts;
+    }
+
+    // Bounds of the carts kept on the heap, the rest is moved off-heap (or to the spill file / cart store)
+    public ResidencyLimits getResidencyLimits() {
+        return new ResidencyLimits(hotCarts, hotCartMemoryMb * 1024L * 1024L,
+                Duration.ofSeconds(cartIdleTimeoutSeconds), cartEviction);
+    }
+
+    // Directory for a temporary file that holds idle carts instead of direct buffers, null = off-heap memory
+    public String getCartSpillDirectory() {
+        return cartSpillDirectory;
+    }
+
+    // Memory-mapped file the carts are kept in across runs, null = carts are not persisted
+    public String getCartStoreFile() {
+        return cartStoreFile;
+    }
+}
@@ -0,0 +1,42 @@
+package com.trendyol.command;
+
+import com.trendyol.service.CartOperation;
+
+import java.util.List;
+
+/*
+ * Typed, already validated form of a command line. Payload values are kept as primitives,
+ * so handlers neither look up map keys nor unbox numbers.
+ */
+public sealed interface CartCommand {
+
+    String ADD_ITEM = "addItem";
+    String ADD_VAS_ITEM_TO_ITEM = "addVasItemToItem";
+    String REMOVE_ITEM = "removeItem";
+    String RESET_CART = "resetCart";
+    String DISPLAY_CART = "displayCart";
+    String BATCH = "batch";
+
+    int cartId();
+
+    record AddItem(int cartId, int itemId, int categoryId, int sellerId, long price, int quantity)
+            implements CartCommand {
+    }
+
+    record AddVasItemToItem(int cartId, int itemId, int vasItemId, int vasCategoryId, int vasSellerId,
+                            long price, int quantity) implements CartCommand {
+    }
+
+    record RemoveItem(int cartId, int itemId) implements CartCommand {
+    }
+
+    record ResetCart(int cartId) implements CartCommand {
+    }
+
+    record DisplayCart(int cartId) implements CartCommand {
+    }
+
+    // addItem / addVasItemToItem / removeItem operations applied to the cart as one unit
+    record Batch(int cartId, List<CartOperation> operations) implements CartCommand {
+    }
+}
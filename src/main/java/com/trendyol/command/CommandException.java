@@ -0,0 +1,32 @@
+package com.trendyol.command;
+
+/*
+ * A well-formed line that does not describe a valid command (unknown name, missing parameters).
+ * The message is returned to the client as is.
+ */
+public class CommandException extends RuntimeException {
+
+    public CommandException(String message) {
+        super(message);
+    }
+
+    public static CommandException unknownCommand(String command) {
+        return new CommandException("Unknown command: " + command);
+    }
+
+    public static CommandException missingParameters(String command) {
+        return new CommandException("Missing required parameters for " + command);
+    }
+
+    public static CommandException missingParameter(String name) {
+        return new CommandException("Missing required parameter: " + name);
+    }
+
+    public static CommandException invalidPrice(double price) {
+        return new CommandException("Invalid price: " + price);
+    }
+
+    public static CommandException unsupportedBatchOperation(String command) {
+        return new CommandException("Unsupported batch operation: " + command);
+    }
+}
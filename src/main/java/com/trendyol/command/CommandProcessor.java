@@ -0,0 +1,252 @@
+package com.trendyol.command;
+
+import com.trendyol.domain.exception.CartException;
+import com.trendyol.domain.exception.ErrorCode;
+import com.trendyol.domain.exception.ItemException;
+import com.trendyol.io.JsonMapper;
+import com.trendyol.journal.CartJournal;
+import com.trendyol.metrics.Metrics;
+import com.trendyol.service.BatchException;
+import com.trendyol.service.CartOperation;
+import com.trendyol.service.CartReadMode;
+import com.trendyol.service.CartService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Parses a command line and runs it against the cart addressed by its cartId.
+ * Stateless apart from the CartService, so it can be shared by several threads
+ * as long as each cart is only driven by one of them at a time (see isLockFree for the exception).
+ */
+public class CommandProcessor {
+
+    private final JsonMapper jsonMapper;
+    private final CartService cartService;
+    private final CartJournal journal;
+    private final Metrics metrics;
+
+    public CommandProcessor(JsonMapper jsonMapper, CartService cartService) {
+        this(jsonMapper, cartService, null);
+    }
+
+    public CommandProcessor(JsonMapper jsonMapper, CartService cartService, CartJournal journal) {
+        this(jsonMapper, cartService, journal, null);
+    }
+
+    /**
+     * @param journal Records every command that changed a cart, null for in-memory carts only
+     * @param metrics Receives the latency and outcome of every command, null to not measure
+     */
+    public CommandProcessor(JsonMapper jsonMapper, CartService cartService, CartJournal journal, Metrics metrics) {
+        this.jsonMapper = jsonMapper;
+        this.cartService = cartService;
+        this.journal = journal;
+        this.metrics = metrics;
+    }
+
+    public CommandResponse process(String jsonLine) {
+        CartCommand command;
+        try {
+            // Parse JSON
+            command = jsonMapper.parseCommand(jsonLine);
+        } catch (Exception e) {
+            return rejectLine(e);
+        }
+
+        return execute(command);
+    }
+
+    /**
+     * Parse step of process; touches no cart, so lines can be parsed ahead on other threads
+     *
+     * @param jsonLine Command line
+     * @return The command, or the rejection response
+     */
+    public ParsedCommand parse(String jsonLine) {
+        try {
+            return ParsedCommand.of(jsonMapper.parseCommand(jsonLine));
+        } catch (Exception e) {
+            return ParsedCommand.rejected(rejectLine(e));
+        }
+    }
+
+    /**
+     * Execute step of process
+     *
+     * @param parsed Result of parse
+     * @return Response of the command, or the rejection
+     */
+    public CommandResponse process(ParsedCommand parsed) {
+        return parsed.isRejected() ? parsed.rejection() : execute(parsed.command());
+    }
+
+    /**
+     * Response for a line that could not be turned into a command
+     *
+     * @param e Failure raised by the parser
+     * @return Error response
+     */
+    public CommandResponse rejectLine(Exception e) {
+        if (metrics != null) {
+            metrics.recordRejected();
+        }
+        if (e instanceof CommandException) {
+            return CommandResponse.error(e.getMessage());
+        }
+        return CommandResponse.error("Error processing command: " + e.getMessage());
+    }
+
+    /**
+     * Runs a parsed command, journaling it when it changed the cart. The measured latency covers
+     * this step only: parsing happens ahead on other threads in the parallel replay modes.
+     *
+     * @param command Command to run
+     * @return Its response
+     */
+    public CommandResponse execute(CartCommand command) {
+        if (metrics == null) {
+            return journaled(command);
+        }
+
+        long started = System.nanoTime();
+        CommandResponse response = journaled(command);
+        metrics.recordCommand(command, System.nanoTime() - started, !response.isResult());
+        return response;
+    }
+
+    /**
+     * Whether the command may run while another thread drives its cart: displayCart in the SNAPSHOT
+     * read mode, which only reads the snapshot published by the last completed command
+     *
+     * @param command Parsed command
+     * @return True if no per-cart lock is needed
+     */
+    public boolean isLockFree(CartCommand command) {
+        return command instanceof CartCommand.DisplayCart && cartService.getReadMode() == CartReadMode.SNAPSHOT;
+    }
+
+    /**
+     * Blocks until the journal holds every command executed so far, no-op without a journal.
+     * Concurrent callers are covered by the same fsync.
+     */
+    public void awaitDurable() {
+        if (journal != null) {
+            journal.awaitDurable();
+        }
+    }
+
+    private CommandResponse journaled(CartCommand command) {
+        if (journal == null || command instanceof CartCommand.DisplayCart) {
+            return run(command);
+        }
+
+        CommandResponse response;
+        journal.beginMutation();
+        try {
+            response = run(command);
+
+            // A false result leaves the cart as it was, there is nothing to replay
+            if (response.isResult()) {
+                journal.append(command);
+            }
+        } finally {
+            journal.endMutation();
+        }
+
+        journal.snapshotIfDue();
+        return response;
+    }
+
+    private CommandResponse run(CartCommand command) {
+        try {
+            // Run the command
+            return switch (command) {
+                case CartCommand.AddItem addItem -> handleAddItem(addItem);
+                case CartCommand.AddVasItemToItem addVasItem -> handleAddVasItemToItem(addVasItem);
+                case CartCommand.RemoveItem removeItem -> handleRemoveItem(removeItem);
+                case CartCommand.ResetCart resetCart -> handleResetCart(resetCart);
+                case CartCommand.DisplayCart displayCart -> handleDisplayCart(displayCart);
+                case CartCommand.Batch batch -> handleBatch(batch);
+            };
+
+        } catch (Exception e) {
+            return failure(e);
+        }
+    }
+
+    private static CommandResponse failure(Exception e) {
+        if (e instanceof CartException || e instanceof ItemException) {
+            return CommandResponse.error(e.getMessage());
+        }
+        return CommandResponse.error("Error processing command: " + e.getMessage());
+    }
+
+    private CommandResponse handleAddItem(CartCommand.AddItem command) {
+        ErrorCode error = cartService.tryAddItem(command.cartId(), command.itemId(), command.categoryId(),
+                command.sellerId(), command.price(), command.quantity());
+        if (error.isRejection()) {
+            return CommandResponse.rejected(error, command.itemId());
+        }
+        return CommandResponse.ITEM_ADDED;
+    }
+
+    private CommandResponse handleAddVasItemToItem(CartCommand.AddVasItemToItem command) {
+        ErrorCode error = cartService.tryAddVasItemToItem(command.cartId(), command.itemId(), command.vasItemId(),
+                command.vasCategoryId(), command.vasSellerId(), command.price(), command.quantity());
+        if (error.isRejection()) {
+            return CommandResponse.rejected(error, command.itemId());
+        }
+        return CommandResponse.VAS_ITEM_ADDED;
+    }
+
+    private CommandResponse handleRemoveItem(CartCommand.RemoveItem command) {
+        boolean removed = cartService.removeItem(command.cartId(), command.itemId());
+        if (removed) {
+            return CommandResponse.ITEM_REMOVED;
+        } else {
+            return CommandResponse.ITEM_NOT_FOUND;
+        }
+    }
+
+    private CommandResponse handleResetCart(CartCommand.ResetCart command) {
+        cartService.resetCart(command.cartId());
+        return CommandResponse.CART_RESET;
+    }
+
+    private CommandResponse handleBatch(CartCommand.Batch command) {
+        List<CartOperation> operations = command.operations();
+        List<CommandResponse> responses = new ArrayList<>(operations.size());
+
+        try {
+            boolean[] results = cartService.applyBatch(command.cartId(), operations);
+            for (int i = 0; i < results.length; i++) {
+                responses.add(switch (operations.get(i)) {
+                    case CartOperation.AddItem add -> CommandResponse.ITEM_ADDED;
+                    case CartOperation.AddVasItemToItem add -> CommandResponse.VAS_ITEM_ADDED;
+                    case CartOperation.RemoveItem remove ->
+                            results[i] ? CommandResponse.ITEM_REMOVED : CommandResponse.ITEM_NOT_FOUND;
+                });
+            }
+            return CommandResponse.batch(true, responses);
+
+        } catch (BatchException e) {
+            // The cart is unchanged; report the failing operation and what happened to the others
+            for (int i = 0; i < operations.size(); i++) {
+                if (i < e.getFailedIndex()) {
+                    responses.add(CommandResponse.OPERATION_ROLLED_BACK);
+                } else if (i == e.getFailedIndex()) {
+                    responses.add(e.getError() != null ? CommandResponse.rejected(e.getError(), e.getItemId())
+                            : failure((Exception) e.getCause()));
+                } else {
+                    responses.add(CommandResponse.OPERATION_SKIPPED);
+                }
+            }
+            return CommandResponse.batch(false, responses);
+        }
+    }
+
+    private CommandResponse handleDisplayCart(CartCommand.DisplayCart command) {
+        return CommandResponse.displayCart(cartService.displayCart(command.cartId()));
+    }
+}
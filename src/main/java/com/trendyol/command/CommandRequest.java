@@ -4,6 +4,7 @@ import java.util.Map;
 
 public class CommandRequest {
     private String command;
+    private Integer cartId;
     private Map<String, Object> payload;
 
     public CommandRequest() {
@@ -14,6 +15,12 @@ public class CommandRequest {
         this.payload = payload;
     }
 
+    public CommandRequest(String command, Integer cartId, Map<String, Object> payload) {
+        this.command = command;
+        this.cartId = cartId;
+        this.payload = payload;
+    }
+
     public String getCommand() {
         return command;
     }
@@ -22,6 +29,15 @@ public class CommandRequest {
         this.command = command;
     }
 
+    // Optional, commands without a cartId go to the default cart
+    public Integer getCartId() {
+        return cartId;
+    }
+
+    public void setCartId(Integer cartId) {
+        this.cartId = cartId;
+    }
+
     public Map<String, Object> getPayload() {
         return payload;
     }
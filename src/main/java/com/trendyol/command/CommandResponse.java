@@ -1,22 +1,36 @@
 package com.trendyol.command;
 
 import com.trendyol.domain.cart.Cart;
-import com.trendyol.domain.item.DefaultItem;
-import com.trendyol.domain.item.Item;
-import com.trendyol.domain.item.VasItem;
+import com.trendyol.domain.cart.CartSnapshot;
+import com.trendyol.domain.exception.ErrorCode;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
-public class CommandResponse {
+/*
+ * Immutable: the constant responses are shared by every caller, and encoders pre-encode them by identity.
+ */
+public final class CommandResponse {
 
-    private boolean result;
-    private Object message;
+    // Constant responses, shared so encoders can pre-encode them once
+    public static final CommandResponse ITEM_ADDED = success("Item added to cart successfully");
+    public static final CommandResponse VAS_ITEM_ADDED = success("VasItem added to item successfully");
+    public static final CommandResponse ITEM_REMOVED = success("Item removed from cart successfully");
+    public static final CommandResponse CART_RESET = success("Cart reset successfully");
+    public static final CommandResponse ITEM_NOT_FOUND = error("Item not found in cart");
 
-    public CommandResponse() {
-    }
+    // Responses of the other operations of a failed batch
+    public static final CommandResponse OPERATION_ROLLED_BACK = error("Operation rolled back");
+    public static final CommandResponse OPERATION_SKIPPED = error("Operation not executed");
+
+    // Rejections by ErrorCode ordinal, null for NONE and for the codes whose message names the item
+    private static final CommandResponse[] REJECTIONS = rejections();
+
+    public static final List<CommandResponse> CONSTANTS = constants(List.of(ITEM_ADDED, VAS_ITEM_ADDED,
+            ITEM_REMOVED, CART_RESET, ITEM_NOT_FOUND, OPERATION_ROLLED_BACK, OPERATION_SKIPPED));
+
+    private final boolean result;
+    private final Object message;
 
     public CommandResponse(boolean result, Object message) {
         this.result = result;
@@ -27,18 +41,13 @@ public class CommandResponse {
         return result;
     }
 
-    public void setResult(boolean result) {
-        this.result = result;
-    }
-
+    /**
+     * A String, a CartSnapshot for displayCart, or a List of CommandResponse for batch
+     */
     public Object getMessage() {
         return message;
     }
 
-    public void setMessage(Object message) {
-        this.message = message;
-    }
-
     public static CommandResponse success(String message) {
         return new CommandResponse(true, message);
     }
@@ -47,61 +56,56 @@ public class CommandResponse {
         return new CommandResponse(false, message);
     }
 
-    public static CommandResponse displayCart(Cart cart) {
-        Map<String, Object> cartData = new HashMap<>();
-
-        List<Map<String, Object>> itemsList = convertItemsToMap(cart.getItems());
-
-        cartData.put("items", itemsList);
-        cartData.put("totalAmount", cart.getTotalAmount());
-        cartData.put("appliedPromotionId", cart.getAppliedPromotionId());
-        cartData.put("totalDiscount", cart.getTotalDiscount());
-
-        return new CommandResponse(true, cartData);
+    /**
+     * The error response of a rejected operation, one shared instance per code when it can be
+     *
+     * @param error  A rejection, not NONE
+     * @param itemId Item of the operation, see ErrorCode.message(int)
+     */
+    public static CommandResponse rejected(ErrorCode error, int itemId) {
+        CommandResponse constant = REJECTIONS[error.ordinal()];
+        return constant != null ? constant : error(error.message(itemId));
     }
 
-    private static List<Map<String, Object>> convertItemsToMap(List<Item> items) {
-        List<Map<String, Object>> itemsList = new ArrayList<>();
+    public static CommandResponse displayCart(Cart cart) {
+        return displayCart(cart.latestSnapshot());
+    }
 
-        for (Item item : items) {
-            Map<String, Object> itemData = convertItemToMap(item);
-            itemsList.add(itemData);
-        }
+    public static CommandResponse displayCart(CartSnapshot snapshot) {
+        return new CommandResponse(true, snapshot);
+    }
 
-        return itemsList;
+    /**
+     * @param committed False if the batch was rolled back
+     * @param responses One response per operation, in batch order
+     */
+    public static CommandResponse batch(boolean committed, List<CommandResponse> responses) {
+        return new CommandResponse(committed, List.copyOf(responses));
     }
 
-    private static Map<String, Object> convertItemToMap(Item item) {
-        Map<String, Object> itemData = new HashMap<>();
-        itemData.put("itemId", item.getItemId());
-        itemData.put("categoryId", item.getCategoryId());
-        itemData.put("sellerId", item.getSellerId());
-        itemData.put("price", item.getPrice());
-        itemData.put("quantity", item.getQuantity());
-
-        // VasItems add
-        if (item instanceof DefaultItem defaultItem) {
-            itemData.put("vasItems", convertVasItemsToMap(defaultItem.getVasItems()));
-        } else {
-            itemData.put("vasItems", new ArrayList<>());
+    private static CommandResponse[] rejections() {
+        ErrorCode[] codes = ErrorCode.values();
+        CommandResponse[] rejections = new CommandResponse[codes.length];
+        for (ErrorCode code : codes) {
+            if (code.isRejection() && !code.namesItem()) {
+                rejections[code.ordinal()] = error(code.message());
+            }
         }
-
-        return itemData;
+        return rejections;
     }
 
-    private static List<Map<String, Object>> convertVasItemsToMap(List<VasItem> vasItems) {
-        List<Map<String, Object>> vasItemsList = new ArrayList<>();
-
-        for (VasItem vasItem : vasItems) {
-            Map<String, Object> vasItemData = new HashMap<>();
-            vasItemData.put("vasItemId", vasItem.getVasItemId());
-            vasItemData.put("vasCategoryId", vasItem.getCategoryId());
-            vasItemData.put("vasSellerId", vasItem.getSellerId());
-            vasItemData.put("price", vasItem.getPrice());
-            vasItemData.put("quantity", vasItem.getQuantity());
-            vasItemsList.add(vasItemData);
+    // The rejections follow in ErrorCode order, both lists are append-only
+    private static List<CommandResponse> constants(List<CommandResponse> fixed) {
+        List<CommandResponse> constants = new ArrayList<>(fixed);
+        for (CommandResponse rejection : REJECTIONS) {
+            if (rejection != null) {
+                constants.add(rejection);
+            }
         }
+        return List.copyOf(constants);
+    }
 
-        return vasItemsList;
+    public CartSnapshot getCartSnapshot() {
+        return message instanceof CartSnapshot snapshot ? snapshot : null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,20 @@
+package com.trendyol.command;
+
+/*
+ * Outcome of parsing one line: either the command, or the response rejecting the line.
+ * Produced by CommandProcessor.parse, which is safe to run on any thread.
+ */
+public record ParsedCommand(CartCommand command, CommandResponse rejection) {
+
+    public static ParsedCommand of(CartCommand command) {
+        return new ParsedCommand(command, null);
+    }
+
+    public static ParsedCommand rejected(CommandResponse rejection) {
+        return new ParsedCommand(null, rejection);
+    }
+
+    public boolean isRejected() {
+        return rejection != null;
+    }
+}
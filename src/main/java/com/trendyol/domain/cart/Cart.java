@@ -1,166 +1,588 @@
 package com.trendyol.domain.cart;
 
 import com.trendyol.domain.exception.CartException;
+import com.trendyol.domain.exception.ErrorCode;
 import com.trendyol.domain.item.DefaultItem;
+import com.trendyol.domain.item.DigitalItem;
 import com.trendyol.domain.item.Item;
 import com.trendyol.domain.item.VasItem;
+import com.trendyol.domain.money.Money;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.function.Consumer;
 
 public class Cart {
 
-    private static final int MAX_UNIQUE_ITEMS = 10;
+    static final int MAX_UNIQUE_ITEMS = 10;
     private static final int MAX_TOTAL_ITEMS = 30;
-    private static final double MAX_TOTAL_AMOUNT = 500_000.0;
-
-    private final List<Item> items;
+    private static final long MAX_TOTAL_AMOUNT = Money.ofLira(500_000);
+
+    // Rough heap footprint of a cart without its snapshots: 16-byte object and array headers
+    // (compressed references), sized by the fixed capacities; see estimateHeapBytes. About 1.4 KB,
+    // paid by every cart even when empty (the former ArrayList-backed cart started near 60 bytes).
+    private static final long FIXED_HEAP_BYTES = 64
+            + 48 + 5 * arrayBytes(MAX_UNIQUE_ITEMS, 4) + arrayBytes(MAX_UNIQUE_ITEMS, 8)
+            + arrayBytes(MAX_UNIQUE_ITEMS, 1)
+            + 2 * arrayBytes(MAX_UNIQUE_ITEMS * DefaultItem.MAX_VAS_ITEM_COUNT, 4)
+            + arrayBytes(MAX_UNIQUE_ITEMS * DefaultItem.MAX_VAS_ITEM_COUNT, 8)
+            + 48 + 4 * arrayBytes(MAX_UNIQUE_ITEMS, 4) + arrayBytes(MAX_UNIQUE_ITEMS, 8);
+
+    // Debug mode: -Dcheckout.cart.verifyAggregates=true (or -ea) checks the aggregates after each mutation
+    private static final boolean VERIFY_AGGREGATES =
+            Boolean.getBoolean("checkout.cart.verifyAggregates") || Cart.class.desiredAssertionStatus();
+
+    private final int cartId;
+    // Primitive storage, sized for MAX_UNIQUE_ITEMS items with MAX_VAS_ITEM_COUNT VasItems each
+    private final CartItemStore items;
+    private final CartAggregates aggregates;
     private int appliedPromotionId;
-    private double totalDiscount;
+    // Kuruş, like every amount of the cart
+    private long totalDiscount;
+
+    // Lazy promotions: mutations only mark the discount stale, the resolver runs on the next read
+    private Consumer<Cart> promotionResolver;
+    private boolean promotionsStale;
+
+    // Incremented by every change of what displayCart shows, see getVersion
+    private long version;
+    // Last snapshot handed out by latestSnapshot, reused while the version is unchanged
+    private CartSnapshot lastSnapshot;
+
+    // Snapshot reads: null unless enabled, then the copy made by the last publish, readable from any thread
+    private volatile CartSnapshot published;
 
     public Cart() {
-        this.items = new ArrayList<>();
+        this(0);
+    }
+
+    public Cart(int cartId) {
+        this.cartId = cartId;
+        this.items = new CartItemStore(MAX_UNIQUE_ITEMS, DefaultItem.MAX_VAS_ITEM_COUNT);
+        this.aggregates = new CartAggregates(MAX_UNIQUE_ITEMS);
         this.appliedPromotionId = 0;
-        this.totalDiscount = 0.0;
+        this.totalDiscount = 0;
     }
 
-    // Item add
+    // Item add, the cart keeps a copy of its values
     public void addItem(Item item) {
-        validateBeforeAddingItem(item);
+        ErrorCode error = checkBeforeAddingItem(item.getItemId(), item.getPrice(), item.getQuantity());
+        if (error.isRejection()) {
+            throw error.toException(item.getItemId());
+        }
 
-        Optional<Item> existingItem = findItemById(item.getItemId());
+        int existingIndex = indexOf(item.getItemId());
 
-        if (existingItem.isPresent()) {
-            existingItem.get().increaseQuantity(item.getQuantity());
+        if (existingIndex >= 0) {
+            items.increaseQuantity(existingIndex, item.getQuantity());
+            aggregates.quantityIncreased(items, existingIndex, item.getQuantity());
         } else {
-            items.add(item);
+            int index = items.append(item);
+            aggregates.itemAppended(items, index);
         }
+
+        verifyAggregates();
+        changed();
+    }
+
+    /**
+     * Item add from its values: the rules of the item (DefaultItem or DigitalItem) and of the cart are
+     * checked without creating the item or throwing
+     *
+     * @param digital Whether it is a DigitalItem
+     * @return NONE if the item was added, otherwise why the cart is unchanged
+     */
+    public ErrorCode tryAddItem(int itemId, int categoryId, int sellerId, long price, int quantity, boolean digital) {
+        ErrorCode error = digital ? DigitalItem.check(categoryId, quantity) : DefaultItem.check(quantity);
+        if (error.isRejection()) {
+            return error;
+        }
+        error = checkBeforeAddingItem(itemId, price, quantity);
+        if (error.isRejection()) {
+            return error;
+        }
+
+        int existingIndex = indexOf(itemId);
+
+        if (existingIndex >= 0) {
+            items.increaseQuantity(existingIndex, quantity);
+            aggregates.quantityIncreased(items, existingIndex, quantity);
+        } else {
+            int index = items.append(itemId, categoryId, sellerId, price, quantity, digital);
+            aggregates.itemAppended(items, index);
+        }
+
+        verifyAggregates();
+        changed();
+        return ErrorCode.NONE;
     }
 
     // VasItem add (DefaultItem)
     public void addVasItemToItem(int itemId, VasItem vasItem) {
-        Item item = findItemById(itemId)
-                .orElseThrow(() -> new CartException("Item not found in cart: " + itemId));
+        ErrorCode error = addVasItem(itemId, vasItem.getVasItemId(), vasItem.getPrice(), vasItem.getQuantity());
+        if (error.isRejection()) {
+            throw error.toException(itemId);
+        }
+    }
+
+    /**
+     * VasItem add from its values, like tryAddItem
+     *
+     * @param itemId Item the VasItem is added to
+     * @return NONE if the VasItem was added, otherwise why the cart is unchanged
+     */
+    public ErrorCode tryAddVasItemToItem(int itemId, int vasItemId, int vasCategoryId, int vasSellerId, long price,
+                                         int quantity) {
+        ErrorCode error = VasItem.check(vasCategoryId, vasSellerId, quantity);
+        if (error.isRejection()) {
+            return error;
+        }
+        return addVasItem(itemId, vasItemId, price, quantity);
+    }
+
+    private ErrorCode addVasItem(int itemId, int vasItemId, long price, int quantity) {
+        int index = indexOf(itemId);
+        if (index < 0) {
+            return ErrorCode.ITEM_NOT_IN_CART;
+        }
+
+        if (items.isDigital(index)) {
+            return ErrorCode.VAS_ITEM_ON_DIGITAL_ITEM;
+        }
 
-        if (!(item instanceof DefaultItem defaultItem)) {
-            throw new CartException("VasItem can only be added to DefaultItem");
+        ErrorCode error = DefaultItem.checkVasItem(items.getCategoryId(index), items.getPrice(index),
+                items.getVasItemCount(index), price);
+        if (error.isRejection()) {
+            return error;
         }
+        int ordinal = items.addVasItem(index, vasItemId, price, quantity);
+        aggregates.vasItemAdded(items, index, ordinal);
 
-        defaultItem.addVasItem(vasItem);
+        verifyAggregates();
+        changed();
+        return ErrorCode.NONE;
     }
 
     // Item delete
     public boolean removeItem(int itemId) {
-        return items.removeIf(item -> item.getItemId() == itemId);
+        int index = indexOf(itemId);
+        if (index < 0) {
+            return false;
+        }
+
+        aggregates.itemRemoved(items, index);
+        items.remove(index);
+
+        verifyAggregates();
+        changed();
+        return true;
     }
 
     // Reset cart
     public void reset() {
         items.clear();
+        aggregates.clear();
         appliedPromotionId = 0;
-        totalDiscount = 0.0;
+        totalDiscount = 0;
+        promotionsStale = false;
+        version++;
+    }
+
+    /**
+     * Replaces the contents with items saved from a cart, e.g. a snapshot. The add-time limits are not
+     * checked: a merged quantity may exceed what a single add accepts, and the items were valid when saved.
+     *
+     * @param savedItems Items in cart order, with their VasItems
+     * @throws CartException if there are more than MAX_UNIQUE_ITEMS items
+     */
+    public void load(List<Item> savedItems) {
+        if (savedItems.size() > MAX_UNIQUE_ITEMS) {
+            throw new CartException(ErrorCode.UNIQUE_ITEM_LIMIT.message());
+        }
+
+        items.clear();
+        for (Item item : savedItems) {
+            items.append(item);
+        }
+        aggregates.rebuild(items);
+        appliedPromotionId = 0;
+        totalDiscount = 0;
+
+        verifyAggregates();
+        changed();
+    }
+
+    /**
+     * Captures the current contents so a failed batch of mutations can be undone with restore.
+     * A copy of the primitive storage: a few small arrays, no object per item.
+     *
+     * @return Checkpoint that can be restored any number of times
+     */
+    public Checkpoint checkpoint() {
+        return new Checkpoint(items.copy(), appliedPromotionId, totalDiscount, promotionsStale);
+    }
+
+    /**
+     * Puts the cart back into the state of the checkpoint, discount and applied promotion included
+     *
+     * @param checkpoint Taken from this cart
+     */
+    public void restore(Checkpoint checkpoint) {
+        items.copyFrom(checkpoint.items);
+        aggregates.rebuild(items);
+        appliedPromotionId = checkpoint.appliedPromotionId;
+        totalDiscount = checkpoint.totalDiscount;
+        promotionsStale = checkpoint.promotionsStale;
+        // Same contents as at the checkpoint, but the version only moves forward
+        version++;
+
+        verifyAggregates();
+    }
+
+    public static final class Checkpoint {
+
+        private final CartItemStore items;
+        private final int appliedPromotionId;
+        private final long totalDiscount;
+        private final boolean promotionsStale;
+
+        private Checkpoint(CartItemStore items, int appliedPromotionId, long totalDiscount, boolean promotionsStale) {
+            this.items = items;
+            this.appliedPromotionId = appliedPromotionId;
+            this.totalDiscount = totalDiscount;
+            this.promotionsStale = promotionsStale;
+        }
+    }
+
+    /**
+     * Switches the cart to lazy promotions: the resolver (typically PromotionService::applyBestPromotion)
+     * is run on the first read of the discount after a mutation instead of after every mutation
+     *
+     * @param promotionResolver Sets totalDiscount and appliedPromotionId, null to turn lazy mode off
+     */
+    public void setPromotionResolver(Consumer<Cart> promotionResolver) {
+        this.promotionResolver = promotionResolver;
+        this.promotionsStale = promotionResolver != null;
+    }
+
+    private void changed() {
+        version++;
+        if (promotionResolver != null) {
+            promotionsStale = true;
+        }
+    }
+
+    private void resolvePromotions() {
+        if (promotionsStale) {
+            promotionsStale = false;
+            promotionResolver.accept(this);
+        }
     }
 
     // Validations
-    private void validateBeforeAddingItem(Item item) {
+    private ErrorCode checkBeforeAddingItem(int itemId, long price, int quantity) {
         // 1. Check the number of unique items (except VasItem)
-        if (!isItemExist(item.getItemId()) && getUniqueItemCount() >= MAX_UNIQUE_ITEMS) {
-            throw new CartException(
-                    "Cart cannot contain more than " + MAX_UNIQUE_ITEMS + " unique items"
-            );
+        if (!isItemExist(itemId) && getUniqueItemCount() >= MAX_UNIQUE_ITEMS) {
+            return ErrorCode.UNIQUE_ITEM_LIMIT;
         }
 
         // 2. Total item count check
         int currentTotal = getTotalItemCount();
-        if (currentTotal + item.getQuantity() > MAX_TOTAL_ITEMS) {
-            throw new CartException(
-                    "Total item count cannot exceed " + MAX_TOTAL_ITEMS
-            );
+        if (currentTotal + quantity > MAX_TOTAL_ITEMS) {
+            return ErrorCode.TOTAL_ITEM_LIMIT;
         }
 
         // 3. Total amount control
-        double itemTotalPrice = item.getPrice() * item.getQuantity();
-        double potentialTotalAmount = calculateTotalPrice() + itemTotalPrice;
+        long itemTotalPrice = Money.times(price, quantity);
+        long potentialTotalAmount = Math.addExact(calculateTotalPrice(), itemTotalPrice);
 
         if (potentialTotalAmount > MAX_TOTAL_AMOUNT) {
-            throw new CartException(
-                    "Cart total amount cannot exceed " + MAX_TOTAL_AMOUNT + " TL"
-            );
+            return ErrorCode.TOTAL_AMOUNT_LIMIT;
+        }
+        return ErrorCode.NONE;
+    }
+
+    private void verifyAggregates() {
+        if (!VERIFY_AGGREGATES) {
+            return;
+        }
+
+        String mismatch = aggregates.describeMismatch(CartAggregates.recompute(items, MAX_UNIQUE_ITEMS));
+        if (mismatch != null) {
+            throw new IllegalStateException("Cart aggregates out of sync: " + mismatch);
         }
     }
 
     // Helper methods
-    private Optional<Item> findItemById(int itemId) {
-        return items.stream()
-                .filter(item -> item.getItemId() == itemId)
-                .findFirst();
+    private int indexOf(int itemId) {
+        return items.indexOf(itemId);
     }
 
     private boolean isItemExist(int itemId) {
-        return findItemById(itemId).isPresent();
+        return indexOf(itemId) >= 0;
     }
 
     private int getUniqueItemCount() {
         return items.size();
     }
 
-    private int getTotalItemCount() {
-        int total = 0;
-        for (Item item : items) {
-            total += item.getQuantity();
+    // Live view of the running totals, used by promotions
+    public CartSummary getSummary() {
+        return aggregates;
+    }
 
-            // Count DefaultItem's VasItems too
-            if (item instanceof DefaultItem defaultItem) {
-                for (VasItem vasItem : defaultItem.getVasItems()) {
-                    total += vasItem.getQuantity();
-                }
-            }
-        }
-        return total;
+    // Includes DefaultItem's VasItems
+    public int getTotalItemCount() {
+        return aggregates.getTotalQuantity();
+    }
+
+    // Distinct sellers of the items (VasItems excluded)
+    public int getDistinctSellerCount() {
+        return aggregates.getDistinctSellerCount();
+    }
+
+    public int getSellerItemCount(int sellerId) {
+        return aggregates.getSellerItemCount(sellerId);
+    }
+
+    public boolean containsCategory(int categoryId) {
+        return aggregates.containsCategory(categoryId);
+    }
+
+    // Price of the items in the category, including their VasItems
+    public long getCategorySubtotal(int categoryId) {
+        return aggregates.getCategorySubtotal(categoryId);
     }
 
     // Calculations
-    public double calculateTotalPrice() {
-        double total = 0.0;
-
-        for (Item item : items) {
-            // Item price
-            total += item.getPrice() * item.getQuantity();
-
-            // Prices of DefaultItem's VasItems
-            if (item instanceof DefaultItem defaultItem) {
-                for (VasItem vasItem : defaultItem.getVasItems()) {
-                    total += vasItem.getPrice() * vasItem.getQuantity();
-                }
-            }
+    public long calculateTotalPrice() {
+        return aggregates.getTotalPrice();
+    }
+
+    public long getTotalAmount() {
+        resolvePromotions();
+        return calculateTotalPrice() - totalDiscount;
+    }
+
+    public CartSnapshot snapshot() {
+        resolvePromotions();
+        return CartSnapshot.of(cartId, version, items, getTotalAmount(), appliedPromotionId, totalDiscount);
+    }
+
+    public int getCartId() {
+        return cartId;
+    }
+
+    /**
+     * Starts the versions of a new, unchanged cart at firstVersion instead of 0, so they cannot repeat
+     * the versions of an earlier cart with the same cartId that a registry has dropped
+     */
+    public void startVersionsAt(long firstVersion) {
+        version = firstVersion;
+        lastSnapshot = null;
+        publish();
+    }
+
+    /**
+     * Estimated heap bytes of the cart with its storage and the snapshots it holds on to, for the
+     * memory bound of a cart registry. Only the owning writer may call it while the cart changes.
+     */
+    public long estimateHeapBytes() {
+        long bytes = FIXED_HEAP_BYTES;
+        CartSnapshot current = published;
+        if (current != null) {
+            bytes += snapshotHeapBytes(current);
+        }
+        if (lastSnapshot != null && lastSnapshot != current) {
+            bytes += snapshotHeapBytes(lastSnapshot);
         }
+        return bytes;
+    }
 
-        return total;
+    private static long snapshotHeapBytes(CartSnapshot snapshot) {
+        int itemCount = snapshot.getItemCount();
+        int vasCount = itemCount == 0 ? 0 : snapshot.getVasEnd(itemCount - 1);
+        return 80 + 4 * arrayBytes(itemCount, 4) + arrayBytes(itemCount, 8) + arrayBytes(itemCount + 1, 4)
+                + 4 * arrayBytes(vasCount, 4) + arrayBytes(vasCount, 8);
     }
 
-    public double getTotalAmount() {
-        return calculateTotalPrice() - totalDiscount;
+    private static long arrayBytes(int length, int elementBytes) {
+        return (16 + (long) length * elementBytes + 7) & ~7L;
+    }
+
+    // ---- CartRecord access ----
+
+    CartItemStore itemStore() {
+        return items;
+    }
+
+    /**
+     * Completes a CartRecord read into itemStore(): the cart takes the saved promotion, discount and
+     * version as they were, so a display cached for that version stays valid. A lazy promotion that
+     * was pending when the record was written is pending again, for a cart with a resolver.
+     */
+    void recordLoaded(long savedVersion, int savedPromotionId, long savedDiscount, boolean savedPromotionsStale) {
+        aggregates.rebuild(items);
+        appliedPromotionId = savedPromotionId;
+        totalDiscount = savedDiscount;
+        promotionsStale = savedPromotionsStale && promotionResolver != null;
+        version = savedVersion;
+        lastSnapshot = null;
+
+        verifyAggregates();
+        publish();
+    }
+
+    // Fields a CartRecord saves, read without resolving a lazy promotion (see getVersion)
+    long savedVersion() {
+        return version;
+    }
+
+    int savedPromotionId() {
+        return appliedPromotionId;
+    }
+
+    long savedDiscount() {
+        return totalDiscount;
+    }
+
+    boolean savedPromotionsStale() {
+        return promotionsStale;
+    }
+
+    /**
+     * Counter incremented by every mutation, reset, restore and discount change, so two reads with the
+     * same version show the same cart. A pending lazy promotion is resolved first.
+     *
+     * @return Current version, starting at 0 for a new cart
+     */
+    public long getVersion() {
+        resolvePromotions();
+        return version;
+    }
+
+    /**
+     * getVersion without resolving a pending lazy promotion: it still changes with every mutation, so
+     * it tells whether the cart changed without running the promotions. Resolving may raise it once more.
+     */
+    public long getUnresolvedVersion() {
+        return version;
+    }
+
+    /**
+     * Switches the cart to snapshot reads: latestSnapshot then returns the copy made by the last publish
+     * instead of reading the live cart, so readers on other threads need no lock while it changes
+     */
+    public void enablePublishing() {
+        published = snapshot();
+    }
+
+    /**
+     * Makes the current state visible to latestSnapshot, no-op unless publishing is enabled. Called by the
+     * writer once a change is complete, promotion included, so readers never see a half-applied command.
+     * A lazy promotion is resolved here.
+     */
+    public void publish() {
+        if (published != null) {
+            published = snapshot();
+        }
+    }
+
+    /**
+     * What displayCart shows. With publishing enabled a single volatile read, safe on any thread while
+     * another one mutates the cart; otherwise a copy of the live cart, only safe for its writer.
+     *
+     * @return Immutable state of the cart
+     */
+    public CartSnapshot latestSnapshot() {
+        CartSnapshot snapshot = published;
+        if (snapshot != null) {
+            return snapshot;
+        }
+
+        // Repeated reads of an unchanged cart share one copy
+        long current = getVersion();
+        if (lastSnapshot == null || lastSnapshot.getVersion() != current) {
+            lastSnapshot = snapshot();
+        }
+        return lastSnapshot;
     }
 
     // Getters
+
+    /**
+     * Visits the items in cart order with their stored values, allocating nothing
+     */
+    public void forEachItem(ItemConsumer action) {
+        for (int i = 0; i < items.size(); i++) {
+            action.accept(items.getItemId(i), items.getCategoryId(i), items.getSellerId(i), items.getPrice(i),
+                    items.getQuantity(i), items.isDigital(i));
+        }
+    }
+
+    /**
+     * Visits the VasItems of every item, items in cart order and each item's VasItems in the order added.
+     * Their categoryId and sellerId are always VasItem.VAS_CATEGORY_ID and VAS_SELLER_ID.
+     */
+    public void forEachVasItem(VasItemConsumer action) {
+        for (int i = 0; i < items.size(); i++) {
+            for (int v = 0; v < items.getVasItemCount(i); v++) {
+                action.accept(items.getItemId(i), items.getVasItemId(i, v), items.getVasPrice(i, v),
+                        items.getVasQuantity(i, v));
+            }
+        }
+    }
+
+    public interface ItemConsumer {
+        void accept(int itemId, int categoryId, int sellerId, long price, int quantity, boolean digital);
+    }
+
+    public interface VasItemConsumer {
+        // itemId is the DefaultItem the VasItem belongs to
+        void accept(int itemId, int vasItemId, long price, int quantity);
+    }
+
+    /**
+     * The items as DefaultItem / DigitalItem objects with their VasItems, built from the cart's storage.
+     * Detached copies: changing them does not change the cart. Reads that only need the values use
+     * forEachItem / forEachVasItem instead.
+     *
+     * Allocates an object per item and VasItem on every call. Kept that way because callers get real
+     * DefaultItem / DigitalItem instances they may modify, which no view over the storage can be; the
+     * replay, display, journal and store paths all read through the visitors and never call this.
+     */
     public List<Item> getItems() {
-        return new ArrayList<>(items); // Defensive copy
+        List<Item> copy = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            copy.add(items.toItem(i));
+        }
+        return copy;
     }
 
     public int getAppliedPromotionId() {
+        resolvePromotions();
         return appliedPromotionId;
     }
 
+    // A pending lazy resolution runs first, so an explicit value is never overwritten later
     public void setAppliedPromotionId(int appliedPromotionId) {
-        this.appliedPromotionId = appliedPromotionId;
+        resolvePromotions();
+        if (this.appliedPromotionId != appliedPromotionId) {
+            this.appliedPromotionId = appliedPromotionId;
+            version++;
+        }
     }
 
-    public double getTotalDiscount() {
+    public long getTotalDiscount() {
+        resolvePromotions();
         return totalDiscount;
     }
 
-    public void setTotalDiscount(double totalDiscount) {
-        this.totalDiscount = totalDiscount;
+    public void setTotalDiscount(long totalDiscount) {
+        resolvePromotions();
+        if (this.totalDiscount != totalDiscount) {
+            this.totalDiscount = totalDiscount;
+            version++;
+        }
     }
 }
@@ -0,0 +1,251 @@
+package com.trendyol.domain.cart;
+
+import com.trendyol.domain.money.Money;
+
+/*
+ * Running totals of a Cart, updated on every mutation so validation and reads do not walk the items.
+ *
+ * Counts (total quantity, per-seller item counts, per-category item counts) and money sums (total
+ * price, per-category subtotals, in kuruş) are all adjusted in O(1): long sums are exact in any order,
+ * so adding and subtracting terms always matches a full recomputation.
+ */
+final class CartAggregates implements CartSummary {
+
+    private long totalPrice;
+    private int totalQuantity;
+    private int itemCount;
+
+    // Small open tables, a cart has at most MAX_UNIQUE_ITEMS sellers/categories
+    private final int[] sellerIds;
+    private final int[] sellerItemCounts;
+    private int sellerCount;
+
+    private final int[] categoryIds;
+    private final int[] categoryItemCounts;
+    private final long[] categorySubtotals;
+    private int categoryCount;
+
+    CartAggregates(int capacity) {
+        this.sellerIds = new int[capacity];
+        this.sellerItemCounts = new int[capacity];
+        this.categoryIds = new int[capacity];
+        this.categoryItemCounts = new int[capacity];
+        this.categorySubtotals = new long[capacity];
+    }
+
+    static CartAggregates recompute(CartItemStore items, int capacity) {
+        CartAggregates aggregates = new CartAggregates(Math.max(capacity, items.size()));
+        aggregates.rebuild(items);
+        return aggregates;
+    }
+
+    // ---- Mutations, reading the item at index of the cart's store ----
+
+    void itemAppended(CartItemStore items, int index) {
+        int category = categoryIndex(items.getCategoryId(index), true);
+        categoryItemCounts[category]++;
+        sellerItemCounts[sellerIndex(items.getSellerId(index), true)]++;
+        itemCount++;
+
+        addMoney(category, Money.times(items.getPrice(index), items.getQuantity(index)));
+        totalQuantity += items.getQuantity(index);
+
+        for (int v = 0; v < items.getVasItemCount(index); v++) {
+            vasItemAdded(items, index, v);
+        }
+    }
+
+    void vasItemAdded(CartItemStore items, int index, int ordinal) {
+        addMoney(categoryIndex(items.getCategoryId(index), false),
+                Money.times(items.getVasPrice(index, ordinal), items.getVasQuantity(index, ordinal)));
+        totalQuantity += items.getVasQuantity(index, ordinal);
+    }
+
+    // The item is already in the cart, amount units were added to it
+    void quantityIncreased(CartItemStore items, int index, int amount) {
+        addMoney(categoryIndex(items.getCategoryId(index), false), Money.times(items.getPrice(index), amount));
+        totalQuantity += amount;
+    }
+
+    // Called before the item leaves the store
+    void itemRemoved(CartItemStore items, int index) {
+        int category = categoryIndex(items.getCategoryId(index), false);
+        addMoney(category, -Money.times(items.getPrice(index), items.getQuantity(index)));
+
+        itemCount--;
+        totalQuantity -= items.getQuantity(index);
+        for (int v = 0; v < items.getVasItemCount(index); v++) {
+            addMoney(category, -Money.times(items.getVasPrice(index, v), items.getVasQuantity(index, v)));
+            totalQuantity -= items.getVasQuantity(index, v);
+        }
+
+        int seller = sellerIndex(items.getSellerId(index), false);
+        if (--sellerItemCounts[seller] == 0) {
+            sellerCount = removeEntry(sellerIds, sellerItemCounts, null, seller, sellerCount);
+        }
+
+        if (--categoryItemCounts[category] == 0) {
+            categoryCount = removeEntry(categoryIds, categoryItemCounts, categorySubtotals, category, categoryCount);
+        }
+    }
+
+    void clear() {
+        totalPrice = 0;
+        totalQuantity = 0;
+        itemCount = 0;
+        sellerCount = 0;
+        categoryCount = 0;
+    }
+
+    void rebuild(CartItemStore items) {
+        clear();
+        for (int i = 0; i < items.size(); i++) {
+            itemAppended(items, i);
+        }
+    }
+
+    private void addMoney(int category, long amount) {
+        totalPrice += amount;
+        categorySubtotals[category] += amount;
+    }
+
+    // ---- Table helpers ----
+
+    private int sellerIndex(int sellerId, boolean create) {
+        for (int i = 0; i < sellerCount; i++) {
+            if (sellerIds[i] == sellerId) {
+                return i;
+            }
+        }
+        if (!create) {
+            throw new IllegalStateException("Seller not tracked: " + sellerId);
+        }
+        sellerIds[sellerCount] = sellerId;
+        sellerItemCounts[sellerCount] = 0;
+        return sellerCount++;
+    }
+
+    private int categoryIndex(int categoryId, boolean create) {
+        int index = findCategory(categoryId);
+        if (index >= 0) {
+            return index;
+        }
+        if (!create) {
+            throw new IllegalStateException("Category not tracked: " + categoryId);
+        }
+        categoryIds[categoryCount] = categoryId;
+        categoryItemCounts[categoryCount] = 0;
+        categorySubtotals[categoryCount] = 0;
+        return categoryCount++;
+    }
+
+    private int findCategory(int categoryId) {
+        for (int i = 0; i < categoryCount; i++) {
+            if (categoryIds[i] == categoryId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Moves the last entry into the freed index, returns the new size
+    private static int removeEntry(int[] ids, int[] counts, long[] subtotals, int index, int size) {
+        int last = size - 1;
+        ids[index] = ids[last];
+        counts[index] = counts[last];
+        if (subtotals != null) {
+            subtotals[index] = subtotals[last];
+        }
+        return last;
+    }
+
+    // ---- Reads ----
+
+    @Override
+    public long getTotalPrice() {
+        return totalPrice;
+    }
+
+    @Override
+    public int getUniqueItemCount() {
+        return itemCount;
+    }
+
+    int getTotalQuantity() {
+        return totalQuantity;
+    }
+
+    @Override
+    public int getDistinctSellerCount() {
+        return sellerCount;
+    }
+
+    @Override
+    public int getSellerIdAt(int index) {
+        return sellerIds[index];
+    }
+
+    @Override
+    public int getDistinctCategoryCount() {
+        return categoryCount;
+    }
+
+    @Override
+    public int getCategoryIdAt(int index) {
+        return categoryIds[index];
+    }
+
+    int getSellerItemCount(int sellerId) {
+        for (int i = 0; i < sellerCount; i++) {
+            if (sellerIds[i] == sellerId) {
+                return sellerItemCounts[i];
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public boolean containsCategory(int categoryId) {
+        return findCategory(categoryId) >= 0;
+    }
+
+    @Override
+    public long getCategorySubtotal(int categoryId) {
+        int index = findCategory(categoryId);
+        return index >= 0 ? categorySubtotals[index] : 0;
+    }
+
+    /**
+     * Compares with another instance regardless of table order
+     */
+    String describeMismatch(CartAggregates expected) {
+        if (totalPrice != expected.totalPrice) {
+            return "totalPrice " + totalPrice + " != " + expected.totalPrice;
+        }
+        if (itemCount != expected.itemCount) {
+            return "itemCount " + itemCount + " != " + expected.itemCount;
+        }
+        if (totalQuantity != expected.totalQuantity) {
+            return "totalQuantity " + totalQuantity + " != " + expected.totalQuantity;
+        }
+        if (sellerCount != expected.sellerCount) {
+            return "sellerCount " + sellerCount + " != " + expected.sellerCount;
+        }
+        for (int i = 0; i < expected.sellerCount; i++) {
+            if (getSellerItemCount(expected.sellerIds[i]) != expected.sellerItemCounts[i]) {
+                return "seller " + expected.sellerIds[i] + " item count differs";
+            }
+        }
+        if (categoryCount != expected.categoryCount) {
+            return "categoryCount " + categoryCount + " != " + expected.categoryCount;
+        }
+        for (int i = 0; i < expected.categoryCount; i++) {
+            int index = findCategory(expected.categoryIds[i]);
+            if (index < 0 || categoryItemCounts[index] != expected.categoryItemCounts[i]
+                    || categorySubtotals[index] != expected.categorySubtotals[i]) {
+                return "category " + expected.categoryIds[i] + " differs";
+            }
+        }
+        return null;
+    }
+}
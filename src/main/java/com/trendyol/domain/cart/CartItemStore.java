@@ -0,0 +1,236 @@
+package com.trendyol.domain.cart;
+
+import com.trendyol.domain.item.DefaultItem;
+import com.trendyol.domain.item.DigitalItem;
+import com.trendyol.domain.item.Item;
+import com.trendyol.domain.item.VasItem;
+
+/*
+ * The items of one cart in fixed-capacity parallel primitive arrays, in cart order: item i is at
+ * index i and its VasItems are in slots [i * vasPerItem, i * vasPerItem + getVasItemCount(i)).
+ * There is no object per item or VasItem, lookups and totals scan a single small array, and no
+ * mutation allocates.
+ *
+ * A VasItem's category and seller are fixed by VasItem validation (VAS_CATEGORY_ID, VAS_SELLER_ID),
+ * so only its id, price and quantity are stored. Not thread-safe, owned by its Cart.
+ */
+final class CartItemStore {
+
+    private final int vasPerItem;
+
+    private final int[] itemIds;
+    private final int[] categoryIds;
+    private final int[] sellerIds;
+    // Kuruş
+    private final long[] prices;
+    private final int[] quantities;
+    // DigitalItem, otherwise DefaultItem
+    private final boolean[] digital;
+    private final int[] vasCounts;
+
+    private final int[] vasItemIds;
+    private final long[] vasPrices;
+    private final int[] vasQuantities;
+
+    private int size;
+
+    CartItemStore(int capacity, int vasPerItem) {
+        this.vasPerItem = vasPerItem;
+        this.itemIds = new int[capacity];
+        this.categoryIds = new int[capacity];
+        this.sellerIds = new int[capacity];
+        this.prices = new long[capacity];
+        this.quantities = new int[capacity];
+        this.digital = new boolean[capacity];
+        this.vasCounts = new int[capacity];
+        this.vasItemIds = new int[capacity * vasPerItem];
+        this.vasPrices = new long[capacity * vasPerItem];
+        this.vasQuantities = new int[capacity * vasPerItem];
+    }
+
+    // ---- Mutations ----
+
+    /**
+     * Copies the item, with its VasItems for a DefaultItem, to the end
+     *
+     * @return Index of the new item
+     * @throws IllegalStateException if the store is full
+     */
+    int append(Item item) {
+        int index = append(item.getItemId(), item.getCategoryId(), item.getSellerId(), item.getPrice(),
+                item.getQuantity(), item instanceof DigitalItem);
+
+        if (item instanceof DefaultItem defaultItem) {
+            for (int v = 0; v < defaultItem.getVasItemCount(); v++) {
+                addVasItem(index, defaultItem.getVasItem(v));
+            }
+        }
+        return index;
+    }
+
+    // Values that were validated when first added, e.g. read back from a CartRecord
+    int append(int itemId, int categoryId, int sellerId, long price, int quantity, boolean isDigital) {
+        if (size == itemIds.length) {
+            throw new IllegalStateException("Cart storage is full: " + size + " items");
+        }
+
+        int index = size++;
+        itemIds[index] = itemId;
+        categoryIds[index] = categoryId;
+        sellerIds[index] = sellerId;
+        prices[index] = price;
+        quantities[index] = quantity;
+        digital[index] = isDigital;
+        vasCounts[index] = 0;
+        return index;
+    }
+
+    void increaseQuantity(int index, int amount) {
+        quantities[index] += amount;
+    }
+
+    /**
+     * @return Ordinal of the VasItem within the item
+     * @throws IllegalStateException if the item's slots are full
+     */
+    int addVasItem(int index, VasItem vasItem) {
+        return addVasItem(index, vasItem.getVasItemId(), vasItem.getPrice(), vasItem.getQuantity());
+    }
+
+    int addVasItem(int index, int vasItemId, long price, int quantity) {
+        int ordinal = vasCounts[index];
+        if (ordinal == vasPerItem) {
+            throw new IllegalStateException("Item " + itemIds[index] + " has no free VasItem slot");
+        }
+
+        int slot = index * vasPerItem + ordinal;
+        vasItemIds[slot] = vasItemId;
+        vasPrices[slot] = price;
+        vasQuantities[slot] = quantity;
+        vasCounts[index] = ordinal + 1;
+        return ordinal;
+    }
+
+    // Shifts the following items (and their VasItem slots) down, so cart order is kept
+    void remove(int index) {
+        int moved = size - index - 1;
+        if (moved > 0) {
+            System.arraycopy(itemIds, index + 1, itemIds, index, moved);
+            System.arraycopy(categoryIds, index + 1, categoryIds, index, moved);
+            System.arraycopy(sellerIds, index + 1, sellerIds, index, moved);
+            System.arraycopy(prices, index + 1, prices, index, moved);
+            System.arraycopy(quantities, index + 1, quantities, index, moved);
+            System.arraycopy(digital, index + 1, digital, index, moved);
+            System.arraycopy(vasCounts, index + 1, vasCounts, index, moved);
+
+            int from = (index + 1) * vasPerItem;
+            int to = index * vasPerItem;
+            int slots = moved * vasPerItem;
+            System.arraycopy(vasItemIds, from, vasItemIds, to, slots);
+            System.arraycopy(vasPrices, from, vasPrices, to, slots);
+            System.arraycopy(vasQuantities, from, vasQuantities, to, slots);
+        }
+        size--;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    // Replaces the contents with those of a store of the same capacity
+    void copyFrom(CartItemStore source) {
+        int count = source.size;
+        System.arraycopy(source.itemIds, 0, itemIds, 0, count);
+        System.arraycopy(source.categoryIds, 0, categoryIds, 0, count);
+        System.arraycopy(source.sellerIds, 0, sellerIds, 0, count);
+        System.arraycopy(source.prices, 0, prices, 0, count);
+        System.arraycopy(source.quantities, 0, quantities, 0, count);
+        System.arraycopy(source.digital, 0, digital, 0, count);
+        System.arraycopy(source.vasCounts, 0, vasCounts, 0, count);
+        System.arraycopy(source.vasItemIds, 0, vasItemIds, 0, count * vasPerItem);
+        System.arraycopy(source.vasPrices, 0, vasPrices, 0, count * vasPerItem);
+        System.arraycopy(source.vasQuantities, 0, vasQuantities, 0, count * vasPerItem);
+        size = count;
+    }
+
+    CartItemStore copy() {
+        CartItemStore copy = new CartItemStore(itemIds.length, vasPerItem);
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    // ---- Reads ----
+
+    int size() {
+        return size;
+    }
+
+    int indexOf(int itemId) {
+        for (int i = 0; i < size; i++) {
+            if (itemIds[i] == itemId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    int getItemId(int index) {
+        return itemIds[index];
+    }
+
+    int getCategoryId(int index) {
+        return categoryIds[index];
+    }
+
+    int getSellerId(int index) {
+        return sellerIds[index];
+    }
+
+    long getPrice(int index) {
+        return prices[index];
+    }
+
+    int getQuantity(int index) {
+        return quantities[index];
+    }
+
+    boolean isDigital(int index) {
+        return digital[index];
+    }
+
+    int getVasItemCount(int index) {
+        return vasCounts[index];
+    }
+
+    // VasItems of an item are addressed by their ordinal in [0, getVasItemCount(index))
+    int getVasItemId(int index, int ordinal) {
+        return vasItemIds[index * vasPerItem + ordinal];
+    }
+
+    long getVasPrice(int index, int ordinal) {
+        return vasPrices[index * vasPerItem + ordinal];
+    }
+
+    int getVasQuantity(int index, int ordinal) {
+        return vasQuantities[index * vasPerItem + ordinal];
+    }
+
+    /**
+     * Builds a DefaultItem or DigitalItem with the stored values, detached from the store
+     */
+    Item toItem(int index) {
+        // Created with one unit since a merged quantity can be above the per-add maximum
+        Item item = digital[index]
+                ? new DigitalItem(itemIds[index], categoryIds[index], sellerIds[index], prices[index], 1)
+                : new DefaultItem(itemIds[index], categoryIds[index], sellerIds[index], prices[index], 1);
+        item.increaseQuantity(quantities[index] - 1);
+
+        if (item instanceof DefaultItem defaultItem) {
+            for (int v = 0; v < vasCounts[index]; v++) {
+                defaultItem.addVasItem(new VasItem(getVasItemId(index, v), VasItem.VAS_CATEGORY_ID,
+                        VasItem.VAS_SELLER_ID, getVasPrice(index, v), getVasQuantity(index, v)));
+            }
+        }
+        return item;
+    }
+}
@@ -0,0 +1,153 @@
+package com.trendyol.domain.cart;
+
+import com.trendyol.domain.item.DefaultItem;
+
+import java.nio.ByteBuffer;
+
+/*
+ * A cart as a fixed-size binary record, possible because a cart has at most MAX_UNIQUE_ITEMS items
+ * with MAX_VAS_ITEM_COUNT VasItems each. Every slot has a fixed offset, unused ones are left as they
+ * are, so a record is written and read in place with absolute ByteBuffer access (heap, direct or
+ * mapped) and no intermediate objects:
+ *
+ *   header   32 bytes   cartId, itemCount, version, totalDiscount, appliedPromotionId, flags
+ *                       (in use, lazy promotion pending)
+ *   items    10 x 32    price, itemId, categoryId, sellerId, quantity, digital, vasCount, padding
+ *   vasItems 30 x 16    price, vasItemId, quantity; item i owns slots [3i, 3i + 3)
+ *
+ * Longs are 8-byte aligned within the record. Amounts are in kuruş. A zeroed record is unused, so a
+ * new file or buffer needs no initialization.
+ */
+public final class CartRecord {
+
+    private static final int HEADER_SIZE = 32;
+    private static final int ITEM_SIZE = 32;
+    private static final int VAS_ITEM_SIZE = 16;
+    private static final int VAS_PER_ITEM = DefaultItem.MAX_VAS_ITEM_COUNT;
+
+    private static final int CART_ID = 0;
+    private static final int ITEM_COUNT = 4;
+    private static final int VERSION = 8;
+    private static final int TOTAL_DISCOUNT = 16;
+    private static final int APPLIED_PROMOTION_ID = 24;
+    private static final int FLAGS = 28;
+    private static final int IN_USE = 1;
+    private static final int PROMOTIONS_STALE = 2;
+
+    private static final int ITEMS = HEADER_SIZE;
+    private static final int ITEM_PRICE = 0;
+    private static final int ITEM_ID = 8;
+    private static final int ITEM_CATEGORY_ID = 12;
+    private static final int ITEM_SELLER_ID = 16;
+    private static final int ITEM_QUANTITY = 20;
+    private static final int ITEM_DIGITAL = 24;
+    private static final int ITEM_VAS_COUNT = 25;
+
+    private static final int VAS_ITEMS = ITEMS + Cart.MAX_UNIQUE_ITEMS * ITEM_SIZE;
+    private static final int VAS_PRICE = 0;
+    private static final int VAS_ID = 8;
+    private static final int VAS_QUANTITY = 12;
+
+    // 832 bytes
+    public static final int SIZE = VAS_ITEMS + Cart.MAX_UNIQUE_ITEMS * VAS_PER_ITEM * VAS_ITEM_SIZE;
+
+    private CartRecord() {
+    }
+
+    /**
+     * Writes the cart at offset as it is: a pending lazy promotion is saved as pending, not resolved,
+     * so a save never runs the promotions
+     *
+     * @param cart   Cart to save
+     * @param buffer Receives SIZE bytes at offset, position and limit are not used
+     */
+    public static void write(Cart cart, ByteBuffer buffer, int offset) {
+        CartItemStore items = cart.itemStore();
+        int itemCount = items.size();
+
+        buffer.putInt(offset + CART_ID, cart.getCartId());
+        buffer.putInt(offset + ITEM_COUNT, itemCount);
+        buffer.putLong(offset + VERSION, cart.savedVersion());
+        buffer.putLong(offset + TOTAL_DISCOUNT, cart.savedDiscount());
+        buffer.putInt(offset + APPLIED_PROMOTION_ID, cart.savedPromotionId());
+        buffer.putInt(offset + FLAGS, cart.savedPromotionsStale() ? IN_USE | PROMOTIONS_STALE : IN_USE);
+
+        for (int i = 0; i < itemCount; i++) {
+            int item = offset + ITEMS + i * ITEM_SIZE;
+            int vasCount = items.getVasItemCount(i);
+            buffer.putLong(item + ITEM_PRICE, items.getPrice(i));
+            buffer.putInt(item + ITEM_ID, items.getItemId(i));
+            buffer.putInt(item + ITEM_CATEGORY_ID, items.getCategoryId(i));
+            buffer.putInt(item + ITEM_SELLER_ID, items.getSellerId(i));
+            buffer.putInt(item + ITEM_QUANTITY, items.getQuantity(i));
+            buffer.put(item + ITEM_DIGITAL, (byte) (items.isDigital(i) ? 1 : 0));
+            buffer.put(item + ITEM_VAS_COUNT, (byte) vasCount);
+
+            for (int v = 0; v < vasCount; v++) {
+                int vasItem = offset + VAS_ITEMS + (i * VAS_PER_ITEM + v) * VAS_ITEM_SIZE;
+                buffer.putLong(vasItem + VAS_PRICE, items.getVasPrice(i, v));
+                buffer.putInt(vasItem + VAS_ID, items.getVasItemId(i, v));
+                buffer.putInt(vasItem + VAS_QUANTITY, items.getVasQuantity(i, v));
+            }
+        }
+    }
+
+    /**
+     * Replaces the contents of the cart with the record at offset. The cart keeps its promotion mode
+     * and read mode; with publishing enabled the loaded state is published.
+     *
+     * @param cart Cart created for the record's cartId
+     * @throws IllegalArgumentException if the record belongs to another cart or is corrupt
+     */
+    public static void read(ByteBuffer buffer, int offset, Cart cart) {
+        if (buffer.getInt(offset + CART_ID) != cart.getCartId()) {
+            throw new IllegalArgumentException("Record of cart " + buffer.getInt(offset + CART_ID)
+                    + " read into cart " + cart.getCartId());
+        }
+        int itemCount = buffer.getInt(offset + ITEM_COUNT);
+        if (itemCount < 0 || itemCount > Cart.MAX_UNIQUE_ITEMS) {
+            throw new IllegalArgumentException("Corrupt cart record, item count " + itemCount);
+        }
+
+        CartItemStore items = cart.itemStore();
+        items.clear();
+        for (int i = 0; i < itemCount; i++) {
+            int item = offset + ITEMS + i * ITEM_SIZE;
+            int index = items.append(buffer.getInt(item + ITEM_ID), buffer.getInt(item + ITEM_CATEGORY_ID),
+                    buffer.getInt(item + ITEM_SELLER_ID), buffer.getLong(item + ITEM_PRICE),
+                    buffer.getInt(item + ITEM_QUANTITY), buffer.get(item + ITEM_DIGITAL) != 0);
+
+            int vasCount = buffer.get(item + ITEM_VAS_COUNT);
+            if (vasCount < 0 || vasCount > VAS_PER_ITEM) {
+                throw new IllegalArgumentException("Corrupt cart record, VasItem count " + vasCount);
+            }
+            for (int v = 0; v < vasCount; v++) {
+                int vasItem = offset + VAS_ITEMS + (i * VAS_PER_ITEM + v) * VAS_ITEM_SIZE;
+                items.addVasItem(index, buffer.getInt(vasItem + VAS_ID), buffer.getLong(vasItem + VAS_PRICE),
+                        buffer.getInt(vasItem + VAS_QUANTITY));
+            }
+        }
+
+        cart.recordLoaded(buffer.getLong(offset + VERSION), buffer.getInt(offset + APPLIED_PROMOTION_ID),
+                buffer.getLong(offset + TOTAL_DISCOUNT), (buffer.getInt(offset + FLAGS) & PROMOTIONS_STALE) != 0);
+    }
+
+    // Written and not released since
+    public static boolean isInUse(ByteBuffer buffer, int offset) {
+        return (buffer.getInt(offset + FLAGS) & IN_USE) != 0;
+    }
+
+    // Frees the record; the rest of it is overwritten by the next write
+    public static void markUnused(ByteBuffer buffer, int offset) {
+        buffer.putInt(offset + FLAGS, 0);
+    }
+
+    public static int readCartId(ByteBuffer buffer, int offset) {
+        return buffer.getInt(offset + CART_ID);
+    }
+
+    // Cart.getUnresolvedVersion when the record was written
+    public static long readVersion(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + VERSION);
+    }
+}
@@ -0,0 +1,223 @@
+package com.trendyol.domain.cart;
+
+import com.trendyol.domain.item.VasItem;
+
+/*
+ * Immutable copy of what displayCart shows, captured at the moment the command runs.
+ * Items and VasItems are flattened into a few primitive arrays instead of one object per entry.
+ * Amounts are in kuruş.
+ */
+public final class CartSnapshot {
+
+    // Version of a snapshot that was not taken from a cart, e.g. decoded from a binary response
+    public static final long UNVERSIONED = -1;
+
+    private final int cartId;
+    private final long version;
+
+    private final int[] itemIds;
+    private final int[] categoryIds;
+    private final int[] sellerIds;
+    private final long[] prices;
+    private final int[] quantities;
+
+    // VasItems of item i are at [vasStart[i], vasStart[i + 1])
+    private final int[] vasStart;
+    private final int[] vasItemIds;
+    private final int[] vasCategoryIds;
+    private final int[] vasSellerIds;
+    private final long[] vasPrices;
+    private final int[] vasQuantities;
+
+    private final long totalAmount;
+    private final int appliedPromotionId;
+    private final long totalDiscount;
+
+    private CartSnapshot(int cartId, long version, int itemCount, int vasCount, long totalAmount,
+                         int appliedPromotionId, long totalDiscount) {
+        this.cartId = cartId;
+        this.version = version;
+        this.itemIds = new int[itemCount];
+        this.categoryIds = new int[itemCount];
+        this.sellerIds = new int[itemCount];
+        this.prices = new long[itemCount];
+        this.quantities = new int[itemCount];
+        this.vasStart = new int[itemCount + 1];
+        this.vasItemIds = new int[vasCount];
+        this.vasCategoryIds = new int[vasCount];
+        this.vasSellerIds = new int[vasCount];
+        this.vasPrices = new long[vasCount];
+        this.vasQuantities = new int[vasCount];
+        this.totalAmount = totalAmount;
+        this.appliedPromotionId = appliedPromotionId;
+        this.totalDiscount = totalDiscount;
+    }
+
+    static CartSnapshot of(int cartId, long version, CartItemStore items, long totalAmount, int appliedPromotionId,
+                           long totalDiscount) {
+        int itemCount = items.size();
+        int vasCount = 0;
+        for (int i = 0; i < itemCount; i++) {
+            vasCount += items.getVasItemCount(i);
+        }
+
+        CartSnapshot snapshot = new CartSnapshot(cartId, version, itemCount, vasCount, totalAmount,
+                appliedPromotionId, totalDiscount);
+
+        int v = 0;
+        for (int i = 0; i < itemCount; i++) {
+            snapshot.itemIds[i] = items.getItemId(i);
+            snapshot.categoryIds[i] = items.getCategoryId(i);
+            snapshot.sellerIds[i] = items.getSellerId(i);
+            snapshot.prices[i] = items.getPrice(i);
+            snapshot.quantities[i] = items.getQuantity(i);
+            snapshot.vasStart[i] = v;
+
+            for (int ordinal = 0; ordinal < items.getVasItemCount(i); ordinal++) {
+                snapshot.vasItemIds[v] = items.getVasItemId(i, ordinal);
+                snapshot.vasCategoryIds[v] = VasItem.VAS_CATEGORY_ID;
+                snapshot.vasSellerIds[v] = VasItem.VAS_SELLER_ID;
+                snapshot.vasPrices[v] = items.getVasPrice(i, ordinal);
+                snapshot.vasQuantities[v] = items.getVasQuantity(i, ordinal);
+                v++;
+            }
+        }
+        snapshot.vasStart[itemCount] = v;
+
+        return snapshot;
+    }
+
+    public int getCartId() {
+        return cartId;
+    }
+
+    // Cart.getVersion at capture time, or UNVERSIONED
+    public long getVersion() {
+        return version;
+    }
+
+    public int getItemCount() {
+        return itemIds.length;
+    }
+
+    public int getItemId(int index) {
+        return itemIds[index];
+    }
+
+    public int getCategoryId(int index) {
+        return categoryIds[index];
+    }
+
+    public int getSellerId(int index) {
+        return sellerIds[index];
+    }
+
+    public long getPrice(int index) {
+        return prices[index];
+    }
+
+    public int getQuantity(int index) {
+        return quantities[index];
+    }
+
+    // VasItems are addressed by a flat index in [getVasStart(i), getVasEnd(i))
+    public int getVasStart(int index) {
+        return vasStart[index];
+    }
+
+    public int getVasEnd(int index) {
+        return vasStart[index + 1];
+    }
+
+    public int getVasItemId(int vasIndex) {
+        return vasItemIds[vasIndex];
+    }
+
+    public int getVasCategoryId(int vasIndex) {
+        return vasCategoryIds[vasIndex];
+    }
+
+    public int getVasSellerId(int vasIndex) {
+        return vasSellerIds[vasIndex];
+    }
+
+    public long getVasPrice(int vasIndex) {
+        return vasPrices[vasIndex];
+    }
+
+    public int getVasQuantity(int vasIndex) {
+        return vasQuantities[vasIndex];
+    }
+
+    public long getTotalAmount() {
+        return totalAmount;
+    }
+
+    public int getAppliedPromotionId() {
+        return appliedPromotionId;
+    }
+
+    public long getTotalDiscount() {
+        return totalDiscount;
+    }
+
+    /**
+     * Snapshot from decoded values rather than a live cart (e.g. a binary response)
+     *
+     * @param itemCount Number of items that will be added
+     * @param vasCount  Number of VasItems that will be added, over all items
+     */
+    public static Builder builder(int itemCount, int vasCount, long totalAmount, int appliedPromotionId,
+                                  long totalDiscount) {
+        return new Builder(new CartSnapshot(0, UNVERSIONED, itemCount, vasCount, totalAmount, appliedPromotionId,
+                totalDiscount));
+    }
+
+    /*
+     * Fills a snapshot in display order: each item, then the VasItems of that item.
+     */
+    public static final class Builder {
+
+        private final CartSnapshot snapshot;
+        private int items;
+        private int vasItems;
+
+        private Builder(CartSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        public Builder item(int itemId, int categoryId, int sellerId, long price, int quantity) {
+            snapshot.vasStart[items] = vasItems;
+            snapshot.itemIds[items] = itemId;
+            snapshot.categoryIds[items] = categoryId;
+            snapshot.sellerIds[items] = sellerId;
+            snapshot.prices[items] = price;
+            snapshot.quantities[items] = quantity;
+            items++;
+            return this;
+        }
+
+        // Belongs to the last added item
+        public Builder vasItem(int vasItemId, int vasCategoryId, int vasSellerId, long price, int quantity) {
+            if (items == 0) {
+                throw new IllegalStateException("VasItem without an item");
+            }
+            snapshot.vasItemIds[vasItems] = vasItemId;
+            snapshot.vasCategoryIds[vasItems] = vasCategoryId;
+            snapshot.vasSellerIds[vasItems] = vasSellerId;
+            snapshot.vasPrices[vasItems] = price;
+            snapshot.vasQuantities[vasItems] = quantity;
+            vasItems++;
+            return this;
+        }
+
+        public CartSnapshot build() {
+            if (items != snapshot.itemIds.length || vasItems != snapshot.vasItemIds.length) {
+                throw new IllegalStateException("Expected " + snapshot.itemIds.length + " items and "
+                        + snapshot.vasItemIds.length + " VasItems, got " + items + " and " + vasItems);
+            }
+            snapshot.vasStart[items] = vasItems;
+            return snapshot;
+        }
+    }
+}
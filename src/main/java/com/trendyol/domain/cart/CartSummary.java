@@ -0,0 +1,29 @@
+package com.trendyol.domain.cart;
+
+/*
+ * Read-only totals of a cart that promotions need. Backed by the cart's running aggregates,
+ * so reading it never walks or copies the items.
+ */
+public interface CartSummary {
+
+    // Items and VasItems, in kuruş
+    long getTotalPrice();
+
+    int getUniqueItemCount();
+
+    // Sellers of the items, VasItems excluded
+    int getDistinctSellerCount();
+
+    // Seller at index in [0, getDistinctSellerCount()), in no particular order
+    int getSellerIdAt(int index);
+
+    int getDistinctCategoryCount();
+
+    // Category at index in [0, getDistinctCategoryCount()), in no particular order
+    int getCategoryIdAt(int index);
+
+    boolean containsCategory(int categoryId);
+
+    // Items of the category including their VasItems, in kuruş
+    long getCategorySubtotal(int categoryId);
+}
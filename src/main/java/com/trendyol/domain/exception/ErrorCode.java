@@ -0,0 +1,77 @@
+package com.trendyol.domain.exception;
+
+/*
+ * Why a cart operation was rejected, returned by the validating try/check methods of Cart, the items
+ * and CartService instead of throwing, so a rejection costs no more than an acceptance: no exception,
+ * no stack trace, and a message built once per code. The exception API (CartException, ItemException)
+ * is a wrapper over these codes, see toException.
+ *
+ * The messages spell out the limits of Cart, DefaultItem, DigitalItem and VasItem. Constants are only
+ * appended: responses of the codes are appended to CommandResponse.CONSTANTS in this order.
+ */
+public enum ErrorCode {
+
+    // Accepted
+    NONE(false, null),
+
+    // Cart limits
+    UNIQUE_ITEM_LIMIT(false, "Cart cannot contain more than 10 unique items"),
+    TOTAL_ITEM_LIMIT(false, "Total item count cannot exceed 30"),
+    TOTAL_AMOUNT_LIMIT(false, "Cart total amount cannot exceed 500000.0 TL"),
+    // Followed by the itemId, see message(int)
+    ITEM_NOT_IN_CART(false, "Item not found in cart: "),
+    VAS_ITEM_ON_DIGITAL_ITEM(false, "VasItem can only be added to DefaultItem"),
+
+    // Item rules
+    DEFAULT_ITEM_QUANTITY(true, "DefaultItem quantity cannot exceed 10"),
+    DIGITAL_ITEM_CATEGORY(true, "DigitalItem categoryId must be 7889"),
+    DIGITAL_ITEM_QUANTITY(true, "DigitalItem quantity cannot exceed 5"),
+    VAS_ITEM_CATEGORY(true, "VasItem categoryId must be 3242"),
+    VAS_ITEM_SELLER(true, "VasItem sellerId must be 5003"),
+    VAS_ITEM_QUANTITY(true, "VasItem quantity cannot exceed 3"),
+    VAS_ITEM_OWNER_CATEGORY(true, "VasItem can only be added to Furniture (1001) or Electronics (3004) categories"),
+    VAS_ITEM_LIMIT(true, "Cannot add more than 3 VasItems to a DefaultItem"),
+    VAS_ITEM_PRICE(true, "VasItem price cannot be higher than DefaultItem price");
+
+    // ItemException, otherwise CartException
+    private final boolean itemRule;
+    private final String message;
+
+    ErrorCode(boolean itemRule, String message) {
+        this.itemRule = itemRule;
+        this.message = message;
+    }
+
+    public boolean isRejection() {
+        return this != NONE;
+    }
+
+    // Whether the message depends on the itemId of the operation, see message(int)
+    public boolean namesItem() {
+        return this == ITEM_NOT_IN_CART;
+    }
+
+    /**
+     * @return The message of a code that does not name an item, null for NONE
+     */
+    public String message() {
+        return message;
+    }
+
+    /**
+     * @param itemId Item the operation was about, only part of the message if namesItem
+     */
+    public String message(int itemId) {
+        return namesItem() ? message + itemId : message;
+    }
+
+    /**
+     * The exception the throwing API raises for this code
+     *
+     * @param itemId Item the operation was about, see message(int)
+     */
+    public RuntimeException toException(int itemId) {
+        String text = message(itemId);
+        return itemRule ? new ItemException(text) : new CartException(text);
+    }
+}
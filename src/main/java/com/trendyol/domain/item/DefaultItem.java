@@ -1,32 +1,40 @@
 package com.trendyol.domain.item;
 
-import com.trendyol.domain.exception.ItemException;
+import com.trendyol.domain.exception.ErrorCode;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class DefaultItem extends Item {
 
     private static final int MAX_ITEM_QUANTITY = 10;
-    private static final int MAX_VAS_ITEM_COUNT = 3;
+    public static final int MAX_VAS_ITEM_COUNT = 3;
     private static final int FURNITURE_CATEGORY_ID = 1001;
     private static final int ELECTRONICS_CATEGORY_ID = 3004;
 
     private final List<VasItem> vasItems;
 
-    public DefaultItem(int itemId, int categoryId, int sellerId, double price, int quantity) {
+    public DefaultItem(int itemId, int categoryId, int sellerId, long price, int quantity) {
         super(itemId, categoryId, sellerId, price, quantity);
         this.vasItems = new ArrayList<>();
-        validate(quantity);
+        ErrorCode error = check(quantity);
+        if (error.isRejection()) {
+            throw error.toException(itemId);
+        }
     }
 
-    private void validate(int quantity) {
+    /**
+     * The rules of the constructor, without creating the item
+     *
+     * @return NONE if a DefaultItem of this quantity is valid
+     */
+    public static ErrorCode check(int quantity) {
         // Quantity check
         if (quantity > MAX_ITEM_QUANTITY) {
-            throw new ItemException(
-                    "DefaultItem quantity cannot exceed " + MAX_ITEM_QUANTITY
-            );
+            return ErrorCode.DEFAULT_ITEM_QUANTITY;
         }
+        return ErrorCode.NONE;
     }
 
     // VasItem add
@@ -36,32 +44,57 @@ public class DefaultItem extends Item {
     }
 
     private void validateVasItem(VasItem vasItem) {
+        validateVasItem(categoryId, price, vasItems.size(), vasItem);
+    }
+
+    /**
+     * The rules of addVasItem for a DefaultItem that is not held as an object, e.g. stored in a cart
+     *
+     * @param categoryId   Category of the DefaultItem
+     * @param price        Price of the DefaultItem
+     * @param vasItemCount VasItems it already has
+     * @throws com.trendyol.domain.exception.ItemException if checkVasItem rejects the VasItem
+     */
+    public static void validateVasItem(int categoryId, long price, int vasItemCount, VasItem vasItem) {
+        ErrorCode error = checkVasItem(categoryId, price, vasItemCount, vasItem.getPrice());
+        if (error.isRejection()) {
+            throw error.toException(vasItem.getItemId());
+        }
+    }
+
+    /**
+     * validateVasItem without the exception
+     *
+     * @param vasPrice Price of the VasItem
+     * @return NONE if the VasItem may be added
+     */
+    public static ErrorCode checkVasItem(int categoryId, long price, int vasItemCount, long vasPrice) {
         // VasItem can only be added to Furniture and Electronics categories.
-        if (this.categoryId != FURNITURE_CATEGORY_ID &&
-                this.categoryId != ELECTRONICS_CATEGORY_ID) {
-            throw new ItemException(
-                    "VasItem can only be added to Furniture (1001) or Electronics (3004) categories"
-            );
+        if (categoryId != FURNITURE_CATEGORY_ID &&
+                categoryId != ELECTRONICS_CATEGORY_ID) {
+            return ErrorCode.VAS_ITEM_OWNER_CATEGORY;
         }
 
         // A maximum of 3 VasItems can be added
-        if (vasItems.size() >= MAX_VAS_ITEM_COUNT) {
-            throw new ItemException(
-                    "Cannot add more than " + MAX_VAS_ITEM_COUNT + " VasItems to a DefaultItem"
-            );
+        if (vasItemCount >= MAX_VAS_ITEM_COUNT) {
+            return ErrorCode.VAS_ITEM_LIMIT;
         }
 
         // VasItem price cannot be higher than DefaultItem price
-        if (vasItem.getPrice() > this.price) {
-            throw new ItemException(
-                    "VasItem price cannot be higher than DefaultItem price"
-            );
+        if (vasPrice > price) {
+            return ErrorCode.VAS_ITEM_PRICE;
         }
+        return ErrorCode.NONE;
     }
 
-    // Get VasItem List
+    // Get VasItem List, a read-only view that follows later addVasItem calls
     public List<VasItem> getVasItems() {
-        return new ArrayList<>(vasItems); // Defensive copy
+        return Collections.unmodifiableList(vasItems);
+    }
+
+    // Indexed access without the defensive copy, index in [0, getVasItemCount())
+    public VasItem getVasItem(int index) {
+        return vasItems.get(index);
     }
 
     public boolean hasVasItems() {
@@ -1,30 +1,35 @@
 package com.trendyol.domain.item;
 
-import com.trendyol.domain.exception.ItemException;
+import com.trendyol.domain.exception.ErrorCode;
 
 public class DigitalItem extends Item {
 
     private static final int DIGITAL_CATEGORY_ID = 7889;
     private static final int MAX_DIGITAL_QUANTITY = 5;
 
-    public DigitalItem(int itemId, int categoryId, int sellerId, double price, int quantity) {
+    public DigitalItem(int itemId, int categoryId, int sellerId, long price, int quantity) {
         super(itemId, categoryId, sellerId, price, quantity);
-        validate(categoryId, quantity);
+        ErrorCode error = check(categoryId, quantity);
+        if (error.isRejection()) {
+            throw error.toException(itemId);
+        }
     }
 
-    private void validate(int categoryId, int quantity) {
+    /**
+     * The rules of the constructor, without creating the item
+     *
+     * @return NONE if a DigitalItem of this category and quantity is valid
+     */
+    public static ErrorCode check(int categoryId, int quantity) {
         // CategoryID check
         if (categoryId != DIGITAL_CATEGORY_ID) {
-            throw new ItemException(
-                    "DigitalItem categoryId must be " + DIGITAL_CATEGORY_ID
-            );
+            return ErrorCode.DIGITAL_ITEM_CATEGORY;
         }
 
         // Quantity check
         if (quantity > MAX_DIGITAL_QUANTITY) {
-            throw new ItemException(
-                    "DigitalItem quantity cannot exceed " + MAX_DIGITAL_QUANTITY
-            );
+            return ErrorCode.DIGITAL_ITEM_QUANTITY;
         }
+        return ErrorCode.NONE;
     }
 }
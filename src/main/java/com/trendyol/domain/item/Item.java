@@ -13,10 +13,11 @@ public abstract class Item {
     protected int itemId;
     protected int categoryId;
     protected int sellerId;
-    protected double price;
+    // Kuruş, see Money
+    protected long price;
     protected int quantity;
 
-    public Item(int itemId, int categoryId, int sellerId, double price, int quantity) {
+    public Item(int itemId, int categoryId, int sellerId, long price, int quantity) {
         this.itemId = itemId;
         this.categoryId = categoryId;
         this.sellerId = sellerId;
@@ -48,7 +49,7 @@ public abstract class Item {
         return sellerId;
     }
 
-    public double getPrice() {
+    public long getPrice() {
         return price;
     }
 
@@ -1,6 +1,6 @@
 package com.trendyol.domain.item;
 
-import com.trendyol.domain.exception.ItemException;
+import com.trendyol.domain.exception.ErrorCode;
 
 public class VasItem extends Item {
 
@@ -8,32 +8,35 @@ public class VasItem extends Item {
     public static final int VAS_SELLER_ID = 5003;
     private static final int MAX_VAS_QUANTITY = 3;
 
-    public VasItem(int itemId, int categoryId, int sellerId, double price, int quantity) {
+    public VasItem(int itemId, int categoryId, int sellerId, long price, int quantity) {
         super(itemId, categoryId, sellerId, price, quantity);
-        validate(categoryId, sellerId, quantity);
+        ErrorCode error = check(categoryId, sellerId, quantity);
+        if (error.isRejection()) {
+            throw error.toException(itemId);
+        }
     }
 
-    private void validate(int categoryId, int sellerId, int quantity) {
+    /**
+     * The rules of the constructor, without creating the VasItem
+     *
+     * @return NONE if a VasItem with these values is valid
+     */
+    public static ErrorCode check(int categoryId, int sellerId, int quantity) {
         // CategoryID check
         if (categoryId != VAS_CATEGORY_ID) {
-            throw new ItemException(
-                    "VasItem categoryId must be " + VAS_CATEGORY_ID
-            );
+            return ErrorCode.VAS_ITEM_CATEGORY;
         }
 
         // SellerID check
         if (sellerId != VAS_SELLER_ID) {
-            throw new ItemException(
-                    "VasItem sellerId must be " + VAS_SELLER_ID
-            );
+            return ErrorCode.VAS_ITEM_SELLER;
         }
 
         // Quantity check
         if (quantity > MAX_VAS_QUANTITY) {
-            throw new ItemException(
-                    "VasItem quantity cannot exceed " + MAX_VAS_QUANTITY
-            );
+            return ErrorCode.VAS_ITEM_QUANTITY;
         }
+        return ErrorCode.NONE;
     }
 
     // Getter (for vasItemId)
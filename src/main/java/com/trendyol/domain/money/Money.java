@@ -0,0 +1,75 @@
+package com.trendyol.domain.money;
+
+/*
+ * Money in the domain is a long number of kuruş (1/100 TL), so sums and comparisons are exact and
+ * stay primitive: no 0.1 + 0.2 drift and no BigDecimal allocation on the hot path. Decimal TL
+ * values only exist where JSON is read or written.
+ *
+ * Percentage discounts are rates in basis points (1000 = 10%) and are rounded once, half up, to the
+ * kuruş: 10% of 0.05 TL is 0.01 TL.
+ */
+public final class Money {
+
+    public static final int KURUS_PER_LIRA = 100;
+    public static final int BASIS_POINTS = 10_000;
+
+    // Any larger decimal amount is rejected, which keeps price * quantity and the cart sums far from overflow
+    private static final double MAX_DECIMAL = 1e12;
+
+    private Money() {
+    }
+
+    public static long ofLira(long lira) {
+        return lira * KURUS_PER_LIRA;
+    }
+
+    /**
+     * Decimal TL amount as read from JSON to kuruş, rounded half up to the nearest kuruş
+     *
+     * @param amount Amount in TL, e.g. 999.99
+     * @return Amount in kuruş, e.g. 99999
+     * @throws IllegalArgumentException if the amount is not a number or beyond ±10^12 TL
+     */
+    public static long fromDecimal(double amount) {
+        if (!(Math.abs(amount) <= MAX_DECIMAL)) {
+            throw new IllegalArgumentException("Amount out of range: " + amount);
+        }
+        return Math.round(amount * KURUS_PER_LIRA);
+    }
+
+    /**
+     * Kuruş back to a decimal TL value for JSON. Exact for display: 99999 becomes 999.99, which
+     * prints as "999.99".
+     */
+    public static double toDecimal(long kurus) {
+        return kurus / (double) KURUS_PER_LIRA;
+    }
+
+    /**
+     * Rate as read from a promotion catalog, e.g. 0.05, to basis points, e.g. 500
+     */
+    public static int rateToBasisPoints(double rate) {
+        if (!(Math.abs(rate) <= 1_000)) {
+            throw new IllegalArgumentException("Rate out of range: " + rate);
+        }
+        return (int) Math.round(rate * BASIS_POINTS);
+    }
+
+    /**
+     * @throws ArithmeticException instead of silently wrapping around
+     */
+    public static long times(long price, int quantity) {
+        return Math.multiplyExact(price, quantity);
+    }
+
+    /**
+     * The rate applied to the amount, rounded half up to the kuruş
+     *
+     * @param amount      Amount in kuruş
+     * @param basisPoints Rate, 10_000 = 100%
+     * @return Discount in kuruş
+     */
+    public static long percentage(long amount, int basisPoints) {
+        return Math.floorDiv(Math.multiplyExact(amount, basisPoints) + BASIS_POINTS / 2, BASIS_POINTS);
+    }
+}
@@ -1,54 +1,55 @@
 package com.trendyol.domain.promotion;
 
-import com.trendyol.domain.cart.Cart;
-import com.trendyol.domain.item.DefaultItem;
-import com.trendyol.domain.item.Item;
-import com.trendyol.domain.item.VasItem;
+import com.trendyol.domain.cart.CartSummary;
+import com.trendyol.domain.money.Money;
 
 public class CategoryPromotion implements Promotion {
 
     private static final int PROMOTION_ID = 5676;
     private static final int TARGET_CATEGORY_ID = 3003;
-    private static final double DISCOUNT_RATE = 0.05; // %5
+    private static final int DISCOUNT_BASIS_POINTS = 500; // %5
+
+    private final int promotionId;
+    private final int targetCategoryId;
+    private final int discountBasisPoints;
+
+    public CategoryPromotion() {
+        this(PROMOTION_ID, TARGET_CATEGORY_ID, DISCOUNT_BASIS_POINTS);
+    }
+
+    /**
+     * @param discountBasisPoints Rate of the discount, 10_000 = 100%
+     */
+    public CategoryPromotion(int promotionId, int targetCategoryId, int discountBasisPoints) {
+        this.promotionId = promotionId;
+        this.targetCategoryId = targetCategoryId;
+        this.discountBasisPoints = discountBasisPoints;
+    }
 
     @Override
     public int getPromotionId() {
-        return PROMOTION_ID;
+        return promotionId;
     }
 
     @Override
-    public double calculateDiscount(Cart cart) {
-        if (!isApplicable(cart)) {
-            return 0.0;
-        }
-
-        double categoryItemsTotal = calculateCategoryItemsTotal(cart);
-        return categoryItemsTotal * DISCOUNT_RATE;
+    public boolean appliesTo(CartSummary summary) {
+        return summary.containsCategory(targetCategoryId);
     }
 
     @Override
-    public boolean isApplicable(Cart cart) {
-        return cart.getItems().stream()
-                .anyMatch(item -> item.getCategoryId() == TARGET_CATEGORY_ID);
+    public long discount(CartSummary summary) {
+        // Items in the target category together with their VasItems
+        return Money.percentage(summary.getCategorySubtotal(targetCategoryId), discountBasisPoints);
     }
 
-    private double calculateCategoryItemsTotal(Cart cart) {
-        double total = 0.0;
-
-        for (Item item : cart.getItems()) {
-            // Only calculate items in category 3003
-            if (item.getCategoryId() == TARGET_CATEGORY_ID) {
-                total += item.getPrice() * item.getQuantity();
-
-                // Add DefaultItem's VasItems as well
-                if (item instanceof DefaultItem defaultItem) {
-                    for (VasItem vasItem : defaultItem.getVasItems()) {
-                        total += vasItem.getPrice() * vasItem.getQuantity();
-                    }
-                }
-            }
-        }
+    @Override
+    public long getDiscountUpperBound(CartSummary summary) {
+        // The discount itself, already O(1); the total price is no bound since other lines may be negative
+        return Money.percentage(summary.getCategorySubtotal(targetCategoryId), discountBasisPoints);
+    }
 
-        return total;
+    @Override
+    public int[] getTargetCategoryIds() {
+        return new int[]{targetCategoryId};
     }
 }
@@ -1,12 +1,56 @@
 package com.trendyol.domain.promotion;
 
 import com.trendyol.domain.cart.Cart;
+import com.trendyol.domain.cart.CartSummary;
 
 public interface Promotion {
 
+    int[] NO_TARGETS = new int[0];
+
     int getPromotionId();
 
-    double calculateDiscount(Cart cart);
+    /**
+     * Applicability check, working only on the cart summary
+     *
+     * @param summary Running totals of the cart
+     */
+    boolean appliesTo(CartSummary summary);
+
+    /**
+     * Discount for a cart the promotion applies to. Any amount is a discount, negative ones included,
+     * so applicability is never encoded in the amount.
+     *
+     * @param summary Running totals of a cart that appliesTo accepted
+     * @return Discount amount in kuruş
+     */
+    long discount(CartSummary summary);
+
+    /**
+     * Cheap value the discount can never exceed, lets the catalog skip rules early
+     *
+     * @param summary Running totals of the cart
+     * @return Upper bound of the discount
+     */
+    default long getDiscountUpperBound(CartSummary summary) {
+        return Long.MAX_VALUE;
+    }
+
+    // The rule can only apply if the cart holds one of these categories; empty = no category condition
+    default int[] getTargetCategoryIds() {
+        return NO_TARGETS;
+    }
+
+    // The rule can only apply if the cart holds one of these sellers; empty = no seller condition
+    default int[] getTargetSellerIds() {
+        return NO_TARGETS;
+    }
+
+    default long calculateDiscount(Cart cart) {
+        CartSummary summary = cart.getSummary();
+        return appliesTo(summary) ? discount(summary) : 0;
+    }
 
-    boolean isApplicable(Cart cart);
+    default boolean isApplicable(Cart cart) {
+        return appliesTo(cart.getSummary());
+    }
 }
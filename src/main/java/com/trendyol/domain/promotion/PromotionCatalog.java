@@ -0,0 +1,103 @@
+package com.trendyol.domain.promotion;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Immutable list of promotion rules, indexed by the categoryIds and sellerIds they target.
+ * Rule order is the catalog (file) order and breaks ties between equal discounts.
+ *
+ * A rule that targets categories is only indexed by category, since the cart must hold one of them;
+ * a rule without targets is global and considered for every cart.
+ */
+public final class PromotionCatalog {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final Promotion[] rules;
+    private final Map<Integer, int[]> rulesByCategory;
+    private final Map<Integer, int[]> rulesBySeller;
+    private final int[] globalRules;
+
+    private PromotionCatalog(List<Promotion> promotions) {
+        this.rules = promotions.toArray(new Promotion[0]);
+
+        Map<Integer, List<Integer>> byCategory = new HashMap<>();
+        Map<Integer, List<Integer>> bySeller = new HashMap<>();
+        List<Integer> global = new ArrayList<>();
+
+        for (int i = 0; i < rules.length; i++) {
+            int[] categories = rules[i].getTargetCategoryIds();
+            int[] sellers = rules[i].getTargetSellerIds();
+
+            if (categories.length > 0) {
+                addAll(byCategory, categories, i);
+            } else if (sellers.length > 0) {
+                addAll(bySeller, sellers, i);
+            } else {
+                global.add(i);
+            }
+        }
+
+        this.rulesByCategory = toArrays(byCategory);
+        this.rulesBySeller = toArrays(bySeller);
+        this.globalRules = toArray(global);
+    }
+
+    public static PromotionCatalog of(List<Promotion> promotions) {
+        return new PromotionCatalog(promotions);
+    }
+
+    // The three promotions the application has always shipped with
+    public static PromotionCatalog builtIn() {
+        return of(List.of(new SameSellerPromotion(), new CategoryPromotion(), new TotalPricePromotion()));
+    }
+
+    public int size() {
+        return rules.length;
+    }
+
+    public Promotion get(int index) {
+        return rules[index];
+    }
+
+    // Indexes of the rules targeting the category, ascending; do not modify
+    int[] rulesForCategory(int categoryId) {
+        return rulesByCategory.getOrDefault(categoryId, EMPTY);
+    }
+
+    // Indexes of the rules targeting the seller, ascending; do not modify
+    int[] rulesForSeller(int sellerId) {
+        return rulesBySeller.getOrDefault(sellerId, EMPTY);
+    }
+
+    int[] globalRules() {
+        return globalRules;
+    }
+
+    private static void addAll(Map<Integer, List<Integer>> index, int[] keys, int rule) {
+        for (int key : keys) {
+            List<Integer> list = index.computeIfAbsent(key, k -> new ArrayList<>());
+            // A rule may list the same id twice
+            if (list.isEmpty() || list.get(list.size() - 1) != rule) {
+                list.add(rule);
+            }
+        }
+    }
+
+    private static Map<Integer, int[]> toArrays(Map<Integer, List<Integer>> index) {
+        Map<Integer, int[]> arrays = new HashMap<>(index.size() * 2);
+        index.forEach((key, list) -> arrays.put(key, toArray(list)));
+        return arrays;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+}
@@ -1,44 +1,225 @@
 package com.trendyol.domain.promotion;
 
 import com.trendyol.domain.cart.Cart;
+import com.trendyol.domain.cart.CartSummary;
+import com.trendyol.metrics.Metrics;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 public class PromotionService {
 
-    private final List<Promotion> promotions;
+    private final PromotionCatalog catalog;
+
+    // Carts are resolved concurrently (replay workers, one virtual thread per HTTP request), so scratch
+    // space is pooled rather than kept per thread. Fixed slots instead of a queue: taking and returning
+    // is a single CAS and never allocates a node; a call finding every slot empty uses a fresh one.
+    private final AtomicReferenceArray<Candidates> candidatesPool;
+
+    // null = not measured
+    private final Metrics metrics;
 
     public PromotionService() {
-        this.promotions = new ArrayList<>();
-        initializePromotions();
+        this(PromotionCatalog.builtIn());
+    }
+
+    public PromotionService(PromotionCatalog catalog) {
+        this(catalog, null);
+    }
+
+    /**
+     * @param metrics Receives the time of every promotion choice and the winner, null to not measure
+     */
+    public PromotionService(PromotionCatalog catalog, Metrics metrics) {
+        this.catalog = catalog;
+        this.candidatesPool = new AtomicReferenceArray<>(2 * Runtime.getRuntime().availableProcessors());
+        this.metrics = metrics;
     }
 
-    private void initializePromotions() {
-        promotions.add(new SameSellerPromotion());
-        promotions.add(new CategoryPromotion());
-        promotions.add(new TotalPricePromotion());
+    public PromotionCatalog getCatalog() {
+        return catalog;
     }
 
     public void applyBestPromotion(Cart cart) {
-        Promotion bestPromotion = findBestPromotion(cart);
+        int start = (int) (Thread.currentThread().threadId() % candidatesPool.length());
+        Candidates candidates = takeCandidates(start);
+
+        try {
+            if (metrics == null) {
+                applyBestPromotion(cart, candidates);
+            } else {
+                long started = System.nanoTime();
+                int promotionId = applyBestPromotion(cart, candidates);
+                metrics.recordPromotion(promotionId, System.nanoTime() - started);
+            }
+        } finally {
+            returnCandidates(start, candidates);
+        }
+    }
+
+    private Candidates takeCandidates(int start) {
+        for (int i = 0; i < candidatesPool.length(); i++) {
+            int slot = (start + i) % candidatesPool.length();
+            if (candidatesPool.get(slot) != null) {
+                Candidates candidates = candidatesPool.getAndSet(slot, null);
+                if (candidates != null) {
+                    return candidates;
+                }
+            }
+        }
+        return new Candidates(catalog.size());
+    }
+
+    // Dropped when every slot is taken, more concurrent calls than slots only cost an allocation
+    private void returnCandidates(int start, Candidates candidates) {
+        for (int i = 0; i < candidatesPool.length(); i++) {
+            int slot = (start + i) % candidatesPool.length();
+            if (candidatesPool.get(slot) == null && candidatesPool.compareAndSet(slot, null, candidates)) {
+                return;
+            }
+        }
+    }
+
+    // Returns the applied promotion id, 0 for none
+    private int applyBestPromotion(Cart cart, Candidates candidates) {
+        CartSummary summary = cart.getSummary();
+
+        // Only rules targeting the cart's categories or sellers, plus the global ones
+        candidates.begin();
+        for (int i = 0; i < summary.getDistinctCategoryCount(); i++) {
+            candidates.addAll(catalog.rulesForCategory(summary.getCategoryIdAt(i)), catalog, summary);
+        }
+        for (int i = 0; i < summary.getDistinctSellerCount(); i++) {
+            candidates.addAll(catalog.rulesForSeller(summary.getSellerIdAt(i)), catalog, summary);
+        }
+        candidates.addAll(catalog.globalRules(), catalog, summary);
+        candidates.heapify();
+
+        // Highest bound first; once a bound is below the best discount no remaining rule can win.
+        // On equal discounts the earlier catalog entry wins.
+        int bestRule = -1;
+        long bestDiscount = 0;
+
+        while (candidates.size > 0) {
+            if (bestRule >= 0 && candidates.topBound() < bestDiscount) {
+                break;
+            }
+
+            int rule = candidates.pop();
+            Promotion promotion = catalog.get(rule);
+            if (!promotion.appliesTo(summary)) {
+                continue;
+            }
+            long discount = promotion.discount(summary);
+            if (bestRule < 0 || discount > bestDiscount || (discount == bestDiscount && rule < bestRule)) {
+                bestRule = rule;
+                bestDiscount = discount;
+            }
+        }
 
-        if (bestPromotion != null) {
-            double discount = bestPromotion.calculateDiscount(cart);
-            cart.setTotalDiscount(discount);
-            cart.setAppliedPromotionId(bestPromotion.getPromotionId());
+        int promotionId = bestRule >= 0 ? catalog.get(bestRule).getPromotionId() : 0;
+        if (bestRule >= 0) {
+            cart.setTotalDiscount(bestDiscount);
+            cart.setAppliedPromotionId(promotionId);
         } else {
             // No promotions applied
-            cart.setTotalDiscount(0.0);
+            cart.setTotalDiscount(0);
             cart.setAppliedPromotionId(0);
         }
+        return promotionId;
     }
 
-    private Promotion findBestPromotion(Cart cart) {
-        return promotions.stream()
-                .filter(promotion -> promotion.isApplicable(cart))
-                .max(Comparator.comparingDouble(promotion -> promotion.calculateDiscount(cart)))
-                .orElse(null);
+    /*
+     * Max-heap of candidate rule indexes ordered by discount upper bound, then catalog order.
+     * A rule reachable through several categories/sellers is added once, tracked with a per-call stamp.
+     */
+    private static final class Candidates {
+
+        private final int[] stamps;
+        private int stamp;
+
+        private int[] rules = new int[16];
+        private long[] bounds = new long[16];
+        private int size;
+
+        Candidates(int catalogSize) {
+            this.stamps = new int[catalogSize];
+        }
+
+        void begin() {
+            size = 0;
+            if (++stamp == 0) {
+                Arrays.fill(stamps, 0);
+                stamp = 1;
+            }
+        }
+
+        void addAll(int[] ruleIndexes, PromotionCatalog catalog, CartSummary summary) {
+            for (int rule : ruleIndexes) {
+                if (stamps[rule] == stamp) {
+                    continue;
+                }
+                stamps[rule] = stamp;
+
+                if (size == rules.length) {
+                    rules = Arrays.copyOf(rules, size * 2);
+                    bounds = Arrays.copyOf(bounds, size * 2);
+                }
+                rules[size] = rule;
+                bounds[size] = catalog.get(rule).getDiscountUpperBound(summary);
+                size++;
+            }
+        }
+
+        void heapify() {
+            for (int i = size / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+
+        long topBound() {
+            return bounds[0];
+        }
+
+        int pop() {
+            int top = rules[0];
+            size--;
+            rules[0] = rules[size];
+            bounds[0] = bounds[size];
+            siftDown(0);
+            return top;
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int largest = index;
+                int left = 2 * index + 1;
+                int right = left + 1;
+                if (left < size && before(left, largest)) {
+                    largest = left;
+                }
+                if (right < size && before(right, largest)) {
+                    largest = right;
+                }
+                if (largest == index) {
+                    return;
+                }
+                swap(index, largest);
+                index = largest;
+            }
+        }
+
+        private boolean before(int a, int b) {
+            return bounds[a] > bounds[b] || (bounds[a] == bounds[b] && rules[a] < rules[b]);
+        }
+
+        private void swap(int a, int b) {
+            int rule = rules[a];
+            rules[a] = rules[b];
+            rules[b] = rule;
+            long bound = bounds[a];
+            bounds[a] = bounds[b];
+            bounds[b] = bound;
+        }
     }
 }
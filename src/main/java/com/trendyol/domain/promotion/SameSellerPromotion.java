@@ -1,43 +1,59 @@
 package com.trendyol.domain.promotion;
 
-import com.trendyol.domain.cart.Cart;
-import com.trendyol.domain.item.Item;
-import com.trendyol.domain.item.VasItem;
-
-import java.util.HashSet;
-import java.util.Set;
+import com.trendyol.domain.cart.CartSummary;
+import com.trendyol.domain.money.Money;
 
 public class SameSellerPromotion implements Promotion {
 
     private static final int PROMOTION_ID = 9909;
-    private static final double DISCOUNT_RATE = 0.10;
+    private static final int DISCOUNT_BASIS_POINTS = 1_000; // %10
+    private static final int ANY_SELLER = -1;
+
+    private final int promotionId;
+    private final int discountBasisPoints;
+    private final int sellerId;
 
+    public SameSellerPromotion() {
+        this(PROMOTION_ID, DISCOUNT_BASIS_POINTS, ANY_SELLER);
+    }
+
+    /**
+     * @param discountBasisPoints Rate of the discount, 10_000 = 100%
+     * @param sellerId            Only carts whose single seller is this one qualify, -1 for any seller
+     */
+    public SameSellerPromotion(int promotionId, int discountBasisPoints, int sellerId) {
+        this.promotionId = promotionId;
+        this.discountBasisPoints = discountBasisPoints;
+        this.sellerId = sellerId;
+    }
 
     @Override
     public int getPromotionId() {
-        return PROMOTION_ID;
+        return promotionId;
     }
 
     @Override
-    public double calculateDiscount(Cart cart) {
-        if (!isApplicable(cart)) {
-            return 0.0;
+    public boolean appliesTo(CartSummary summary) {
+        // All items (VasItems excluded) come from one seller
+        if (summary.getDistinctSellerCount() != 1) {
+            return false;
         }
 
-        double totalPrice = cart.calculateTotalPrice();
-        return totalPrice * DISCOUNT_RATE;
+        return sellerId == ANY_SELLER || summary.getSellerIdAt(0) == sellerId;
     }
 
     @Override
-    public boolean isApplicable(Cart cart) {
-        Set<Integer> sellerIds = new HashSet<>();
+    public long discount(CartSummary summary) {
+        return Money.percentage(summary.getTotalPrice(), discountBasisPoints);
+    }
 
-        for (Item item : cart.getItems()) {
-            if (!(item instanceof VasItem)) {
-                sellerIds.add(item.getSellerId());
-            }
-        }
+    @Override
+    public long getDiscountUpperBound(CartSummary summary) {
+        return Money.percentage(summary.getTotalPrice(), discountBasisPoints);
+    }
 
-        return sellerIds.size() == 1;
+    @Override
+    public int[] getTargetSellerIds() {
+        return sellerId == ANY_SELLER ? NO_TARGETS : new int[]{sellerId};
     }
 }
@@ -1,54 +1,86 @@
 package com.trendyol.domain.promotion;
 
-import com.trendyol.domain.cart.Cart;
+import com.trendyol.domain.cart.CartSummary;
+import com.trendyol.domain.money.Money;
 
 public class TotalPricePromotion implements Promotion {
 
     private static final int PROMOTION_ID = 1232;
 
-    // Price ranges and discounts
-    private static final double TIER_1_MIN = 500.0;
-    private static final double TIER_1_DISCOUNT = 250.0;
+    // Price ranges and discounts, in kuruş
+    private static final long TIER_1_MIN = Money.ofLira(500);
+    private static final long TIER_1_DISCOUNT = Money.ofLira(250);
 
-    private static final double TIER_2_MIN = 5000.0;
-    private static final double TIER_2_DISCOUNT = 500.0;
+    private static final long TIER_2_MIN = Money.ofLira(5000);
+    private static final long TIER_2_DISCOUNT = Money.ofLira(500);
 
-    private static final double TIER_3_MIN = 10000.0;
-    private static final double TIER_3_DISCOUNT = 1000.0;
+    private static final long TIER_3_MIN = Money.ofLira(10000);
+    private static final long TIER_3_DISCOUNT = Money.ofLira(1000);
 
-    private static final double TIER_4_MIN = 50000.0;
-    private static final double TIER_4_DISCOUNT = 2000.0;
+    private static final long TIER_4_MIN = Money.ofLira(50000);
+    private static final long TIER_4_DISCOUNT = Money.ofLira(2000);
+
+    private final int promotionId;
+
+    // Ascending by minimum price
+    private final long[] tierMins;
+    private final long[] tierDiscounts;
+    private final long maxDiscount;
+
+    public TotalPricePromotion() {
+        this(PROMOTION_ID,
+                new long[]{TIER_1_MIN, TIER_2_MIN, TIER_3_MIN, TIER_4_MIN},
+                new long[]{TIER_1_DISCOUNT, TIER_2_DISCOUNT, TIER_3_DISCOUNT, TIER_4_DISCOUNT});
+    }
+
+    public TotalPricePromotion(int promotionId, long[] tierMins, long[] tierDiscounts) {
+        if (tierMins.length == 0 || tierMins.length != tierDiscounts.length) {
+            throw new IllegalArgumentException("Tier minimums and discounts must be non-empty and of the same length");
+        }
+        for (int i = 1; i < tierMins.length; i++) {
+            if (tierMins[i] <= tierMins[i - 1]) {
+                throw new IllegalArgumentException("Tier minimums must be ascending");
+            }
+        }
+
+        this.promotionId = promotionId;
+        this.tierMins = tierMins.clone();
+        this.tierDiscounts = tierDiscounts.clone();
+
+        long max = 0;
+        for (long discount : tierDiscounts) {
+            max = Math.max(max, discount);
+        }
+        this.maxDiscount = max;
+    }
 
     @Override
     public int getPromotionId() {
-        return PROMOTION_ID;
+        return promotionId;
     }
 
     @Override
-    public double calculateDiscount(Cart cart) {
-        if (!isApplicable(cart)) {
-            return 0.0;
-        }
+    public boolean appliesTo(CartSummary summary) {
+        // Reaches the lowest tier
+        return summary.getTotalPrice() >= tierMins[0];
+    }
 
-        double totalPrice = cart.calculateTotalPrice();
+    @Override
+    public long discount(CartSummary summary) {
+        long totalPrice = summary.getTotalPrice();
 
         // Tier control (top-down)
-        if (totalPrice >= TIER_4_MIN) {
-            return TIER_4_DISCOUNT;
-        } else if (totalPrice >= TIER_3_MIN) {
-            return TIER_3_DISCOUNT;
-        } else if (totalPrice >= TIER_2_MIN) {
-            return TIER_2_DISCOUNT;
-        } else if (totalPrice >= TIER_1_MIN) {
-            return TIER_1_DISCOUNT;
+        for (int i = tierMins.length - 1; i > 0; i--) {
+            if (totalPrice >= tierMins[i]) {
+                return tierDiscounts[i];
+            }
         }
 
-        return 0.0;
+        return tierDiscounts[0];
     }
 
     @Override
-    public boolean isApplicable(Cart cart) {
-        double totalPrice = cart.calculateTotalPrice();
-        return totalPrice >= TIER_1_MIN;
+    public long getDiscountUpperBound(CartSummary summary) {
+        return maxDiscount;
     }
 }
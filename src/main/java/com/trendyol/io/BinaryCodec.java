@@ -0,0 +1,480 @@
+package com.trendyol.io;
+
+import com.trendyol.command.CartCommand;
+import com.trendyol.command.CommandResponse;
+import com.trendyol.domain.cart.CartSnapshot;
+import com.trendyol.service.CartOperation;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Compact binary codec. Every int is a zigzag varint (one byte for ids below 64, two below 8192), and
+ * so is every amount, a long in kuruş (three bytes up to 10485.75 TL).
+ *
+ * Command:  opcode, cartId, then the fields of the command in record order.
+ *           batch:   count, then per operation its opcode and fields (no cartId).
+ *           JSON:    length and UTF-8 text of a line that is not a valid command, kept so that
+ *                    replaying it gives the same rejection as the JSON input.
+ * Response: result byte (0/1), message tag, then the message.
+ *           constant: index into CommandResponse.CONSTANTS, which is append-only for this reason.
+ *           string:   length and UTF-8 bytes.
+ *           cart:     itemCount, vasCount, totalAmount, appliedPromotionId, totalDiscount, then per item
+ *                     itemId, categoryId, sellerId, price, quantity, VasItem count and its VasItems
+ *                     (vasItemId, vasCategoryId, vasSellerId, price, quantity).
+ *           list:     count, then the nested responses.
+ *
+ * Stateless and thread-safe.
+ */
+public class BinaryCodec implements CommandCodec {
+
+    // Command opcodes, also used for batch operations
+    private static final int OP_JSON = 0;
+    private static final int OP_ADD_ITEM = 1;
+    private static final int OP_ADD_VAS_ITEM_TO_ITEM = 2;
+    private static final int OP_REMOVE_ITEM = 3;
+    private static final int OP_RESET_CART = 4;
+    private static final int OP_DISPLAY_CART = 5;
+    private static final int OP_BATCH = 6;
+
+    // Response message tags
+    private static final int MESSAGE_NULL = 0;
+    private static final int MESSAGE_STRING = 1;
+    private static final int MESSAGE_CART = 2;
+    private static final int MESSAGE_LIST = 3;
+    private static final int MESSAGE_CONSTANT = 4;
+
+    private final CommandDecoder jsonDecoder = new CommandDecoder();
+
+    @Override
+    public CartCommand decodeCommand(byte[] body) {
+        Source in = new Source(body);
+        int opcode = in.readByte();
+
+        CartCommand command;
+        if (opcode == OP_JSON) {
+            command = jsonDecoder.decode(in.readString());
+        } else {
+            int cartId = in.readInt();
+            command = switch (opcode) {
+                case OP_ADD_ITEM -> new CartCommand.AddItem(cartId, in.readInt(), in.readInt(), in.readInt(),
+                        in.readLong(), in.readInt());
+                case OP_ADD_VAS_ITEM_TO_ITEM -> new CartCommand.AddVasItemToItem(cartId, in.readInt(), in.readInt(),
+                        in.readInt(), in.readInt(), in.readLong(), in.readInt());
+                case OP_REMOVE_ITEM -> new CartCommand.RemoveItem(cartId, in.readInt());
+                case OP_RESET_CART -> new CartCommand.ResetCart(cartId);
+                case OP_DISPLAY_CART -> new CartCommand.DisplayCart(cartId);
+                case OP_BATCH -> new CartCommand.Batch(cartId, readOperations(in));
+                default -> throw in.malformed("unknown opcode " + opcode);
+            };
+        }
+
+        in.requireEnd();
+        return command;
+    }
+
+    /**
+     * Encodes a command line that did not decode into a command, so it can still be replayed
+     *
+     * @param line Raw JSON line
+     * @return Encoded line, decodeCommand hands it to the JSON decoder
+     */
+    public byte[] encodeJsonLine(String line) {
+        Sink out = new Sink(line.length() + 8);
+        out.writeByte(OP_JSON);
+        out.writeString(line);
+        return out.toByteArray();
+    }
+
+    /**
+     * @param body Encoded command
+     * @return The line of a body written by encodeJsonLine, null for a typed command
+     */
+    public String decodeJsonLine(byte[] body) {
+        if (body.length == 0 || body[0] != OP_JSON) {
+            return null;
+        }
+        Source in = new Source(body);
+        in.readByte();
+        String line = in.readString();
+        in.requireEnd();
+        return line;
+    }
+
+    @Override
+    public byte[] encodeCommand(CartCommand command) {
+        Sink out = new Sink(64);
+
+        switch (command) {
+            case CartCommand.AddItem add -> {
+                out.writeByte(OP_ADD_ITEM);
+                out.writeInt(add.cartId());
+                writeAddItem(out, add.itemId(), add.categoryId(), add.sellerId(), add.price(), add.quantity());
+            }
+            case CartCommand.AddVasItemToItem add -> {
+                out.writeByte(OP_ADD_VAS_ITEM_TO_ITEM);
+                out.writeInt(add.cartId());
+                writeAddVasItem(out, add.itemId(), add.vasItemId(), add.vasCategoryId(), add.vasSellerId(),
+                        add.price(), add.quantity());
+            }
+            case CartCommand.RemoveItem remove -> {
+                out.writeByte(OP_REMOVE_ITEM);
+                out.writeInt(remove.cartId());
+                out.writeInt(remove.itemId());
+            }
+            case CartCommand.ResetCart reset -> {
+                out.writeByte(OP_RESET_CART);
+                out.writeInt(reset.cartId());
+            }
+            case CartCommand.DisplayCart display -> {
+                out.writeByte(OP_DISPLAY_CART);
+                out.writeInt(display.cartId());
+            }
+            case CartCommand.Batch batch -> {
+                out.writeByte(OP_BATCH);
+                out.writeInt(batch.cartId());
+                out.writeInt(batch.operations().size());
+                for (CartOperation operation : batch.operations()) {
+                    writeOperation(out, operation);
+                }
+            }
+        }
+
+        return out.toByteArray();
+    }
+
+    @Override
+    public byte[] encodeResponse(CommandResponse response) {
+        Sink out = new Sink(response.getMessage() instanceof CartSnapshot ? 256 : 16);
+        writeResponse(out, response);
+        return out.toByteArray();
+    }
+
+    /**
+     * Body produced by encodeResponse back to a response. Constant responses decode to the
+     * shared instances, so they encode to JSON exactly like the originals.
+     *
+     * @param body Encoded response
+     * @return Response
+     */
+    public CommandResponse decodeResponse(byte[] body) {
+        Source in = new Source(body);
+        CommandResponse response = readResponse(in);
+        in.requireEnd();
+        return response;
+    }
+
+    // ---- Commands ----
+
+    private static void writeOperation(Sink out, CartOperation operation) {
+        switch (operation) {
+            case CartOperation.AddItem add -> {
+                out.writeByte(OP_ADD_ITEM);
+                writeAddItem(out, add.itemId(), add.categoryId(), add.sellerId(), add.price(), add.quantity());
+            }
+            case CartOperation.AddVasItemToItem add -> {
+                out.writeByte(OP_ADD_VAS_ITEM_TO_ITEM);
+                writeAddVasItem(out, add.itemId(), add.vasItemId(), add.vasCategoryId(), add.vasSellerId(),
+                        add.price(), add.quantity());
+            }
+            case CartOperation.RemoveItem remove -> {
+                out.writeByte(OP_REMOVE_ITEM);
+                out.writeInt(remove.itemId());
+            }
+        }
+    }
+
+    private static List<CartOperation> readOperations(Source in) {
+        int count = in.readCount();
+        List<CartOperation> operations = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            int opcode = in.readByte();
+            operations.add(switch (opcode) {
+                case OP_ADD_ITEM -> new CartOperation.AddItem(in.readInt(), in.readInt(), in.readInt(),
+                        in.readLong(), in.readInt());
+                case OP_ADD_VAS_ITEM_TO_ITEM -> new CartOperation.AddVasItemToItem(in.readInt(), in.readInt(),
+                        in.readInt(), in.readInt(), in.readLong(), in.readInt());
+                case OP_REMOVE_ITEM -> new CartOperation.RemoveItem(in.readInt());
+                default -> throw in.malformed("unknown batch opcode " + opcode);
+            });
+        }
+
+        return operations;
+    }
+
+    private static void writeAddItem(Sink out, int itemId, int categoryId, int sellerId, long price, int quantity) {
+        out.writeInt(itemId);
+        out.writeInt(categoryId);
+        out.writeInt(sellerId);
+        out.writeLong(price);
+        out.writeInt(quantity);
+    }
+
+    private static void writeAddVasItem(Sink out, int itemId, int vasItemId, int vasCategoryId, int vasSellerId,
+                                        long price, int quantity) {
+        out.writeInt(itemId);
+        out.writeInt(vasItemId);
+        out.writeInt(vasCategoryId);
+        out.writeInt(vasSellerId);
+        out.writeLong(price);
+        out.writeInt(quantity);
+    }
+
+    // ---- Responses ----
+
+    private static void writeResponse(Sink out, CommandResponse response) {
+        out.writeByte(response.isResult() ? 1 : 0);
+
+        int constant = constantIndex(response);
+        if (constant >= 0) {
+            out.writeByte(MESSAGE_CONSTANT);
+            out.writeInt(constant);
+            return;
+        }
+
+        switch (response.getMessage()) {
+            case null -> out.writeByte(MESSAGE_NULL);
+            case String text -> {
+                out.writeByte(MESSAGE_STRING);
+                out.writeString(text);
+            }
+            case CartSnapshot cart -> {
+                out.writeByte(MESSAGE_CART);
+                writeCart(out, cart);
+            }
+            case List<?> responses -> {
+                out.writeByte(MESSAGE_LIST);
+                out.writeInt(responses.size());
+                for (Object nested : responses) {
+                    writeResponse(out, (CommandResponse) nested);
+                }
+            }
+            default -> throw new IllegalArgumentException("Unsupported message type: "
+                    + response.getMessage().getClass().getName());
+        }
+    }
+
+    private static CommandResponse readResponse(Source in) {
+        boolean result = in.readByte() != 0;
+        int tag = in.readByte();
+
+        return switch (tag) {
+            case MESSAGE_CONSTANT -> {
+                int index = in.readInt();
+                if (index < 0 || index >= CommandResponse.CONSTANTS.size()) {
+                    throw in.malformed("unknown constant response " + index);
+                }
+                yield CommandResponse.CONSTANTS.get(index);
+            }
+            case MESSAGE_NULL -> new CommandResponse(result, null);
+            case MESSAGE_STRING -> new CommandResponse(result, in.readString());
+            case MESSAGE_CART -> new CommandResponse(result, readCart(in));
+            case MESSAGE_LIST -> {
+                int count = in.readCount();
+                List<CommandResponse> responses = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    responses.add(readResponse(in));
+                }
+                yield new CommandResponse(result, responses);
+            }
+            default -> throw in.malformed("unknown message tag " + tag);
+        };
+    }
+
+    private static int constantIndex(CommandResponse response) {
+        List<CommandResponse> constants = CommandResponse.CONSTANTS;
+        for (int i = 0; i < constants.size(); i++) {
+            if (constants.get(i) == response) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void writeCart(Sink out, CartSnapshot cart) {
+        int itemCount = cart.getItemCount();
+        out.writeInt(itemCount);
+        out.writeInt(itemCount == 0 ? 0 : cart.getVasEnd(itemCount - 1));
+        out.writeLong(cart.getTotalAmount());
+        out.writeInt(cart.getAppliedPromotionId());
+        out.writeLong(cart.getTotalDiscount());
+
+        for (int i = 0; i < itemCount; i++) {
+            writeAddItem(out, cart.getItemId(i), cart.getCategoryId(i), cart.getSellerId(i), cart.getPrice(i),
+                    cart.getQuantity(i));
+            out.writeInt(cart.getVasEnd(i) - cart.getVasStart(i));
+            for (int v = cart.getVasStart(i); v < cart.getVasEnd(i); v++) {
+                out.writeInt(cart.getVasItemId(v));
+                out.writeInt(cart.getVasCategoryId(v));
+                out.writeInt(cart.getVasSellerId(v));
+                out.writeLong(cart.getVasPrice(v));
+                out.writeInt(cart.getVasQuantity(v));
+            }
+        }
+    }
+
+    private static CartSnapshot readCart(Source in) {
+        int itemCount = in.readCount();
+        int vasCount = in.readCount();
+        CartSnapshot.Builder builder = CartSnapshot.builder(itemCount, vasCount, in.readLong(), in.readInt(),
+                in.readLong());
+
+        int vasRead = 0;
+        for (int i = 0; i < itemCount; i++) {
+            builder.item(in.readInt(), in.readInt(), in.readInt(), in.readLong(), in.readInt());
+
+            int itemVasCount = in.readCount();
+            vasRead += itemVasCount;
+            if (vasRead > vasCount) {
+                throw in.malformed("more VasItems than announced");
+            }
+            for (int v = 0; v < itemVasCount; v++) {
+                builder.vasItem(in.readInt(), in.readInt(), in.readInt(), in.readLong(), in.readInt());
+            }
+        }
+        if (vasRead != vasCount) {
+            throw in.malformed("fewer VasItems than announced");
+        }
+
+        return builder.build();
+    }
+
+    // ---- Primitives ----
+
+    private static final class Sink {
+        private byte[] bytes;
+        private int size;
+
+        Sink(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeInt(int value) {
+            writeVarint((value << 1) ^ (value >> 31));
+        }
+
+        void writeVarint(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            long zigzag = (value << 1) ^ (value >> 63);
+            ensure(10);
+            while ((zigzag & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            bytes[size++] = (byte) zigzag;
+        }
+
+        void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(utf8.length);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, bytes, size, utf8.length);
+            size += utf8.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(size + extra, bytes.length * 2));
+            }
+        }
+    }
+
+    private static final class Source {
+        private final byte[] bytes;
+        private int position;
+
+        Source(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int readByte() {
+            require(1);
+            return bytes[position++] & 0xFF;
+        }
+
+        int readInt() {
+            int raw = readVarint();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        // A length or count, bounded by the remaining bytes so a corrupt value cannot allocate much
+        int readCount() {
+            int count = readInt();
+            if (count < 0 || count > bytes.length - position) {
+                throw malformed("invalid count " + count);
+            }
+            return count;
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw malformed("varint longer than 5 bytes");
+        }
+
+        long readLong() {
+            long raw = 0;
+            for (int shift = 0; shift < 70; shift += 7) {
+                int b = readByte();
+                raw |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return (raw >>> 1) ^ -(raw & 1);
+                }
+            }
+            throw malformed("varint longer than 10 bytes");
+        }
+
+        String readString() {
+            int length = readVarint();
+            if (length < 0) {
+                throw malformed("invalid string length");
+            }
+            require(length);
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        void requireEnd() {
+            if (position != bytes.length) {
+                throw malformed((bytes.length - position) + " trailing bytes");
+            }
+        }
+
+        RuntimeException malformed(String reason) {
+            return new RuntimeException("Failed to parse binary message: " + reason + " at byte " + position);
+        }
+
+        private void require(int count) {
+            if (count > bytes.length - position) {
+                throw malformed("unexpected end of message");
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.trendyol.io;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/*
+ * Reads a file of length-prefixed frames: an unsigned varint byte count, then the body.
+ * Counterpart of BinaryFrameWriter, the binary equivalent of InputReader.
+ */
+public class BinaryFrameReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Streams the frame bodies of the file to the consumer one by one
+     *
+     * @param filePath File path
+     * @param consumer Receives each body in file order
+     */
+    public void forEachFrame(String filePath, Consumer<byte[]> consumer) {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(filePath), BUFFER_SIZE)) {
+            int length;
+            while ((length = readLength(in)) >= 0) {
+                byte[] body = in.readNBytes(length);
+                if (body.length != length) {
+                    throw new EOFException("Truncated frame, expected " + length + " bytes but got " + body.length);
+                }
+                consumer.accept(body);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read input file: " + filePath, e);
+        }
+    }
+
+    // -1 at a clean end of file
+    private static int readLength(InputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                if (shift == 0) {
+                    return -1;
+                }
+                throw new EOFException("Truncated frame length");
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0) {
+                    throw new IOException("Invalid frame length " + Integer.toUnsignedString(value));
+                }
+                return value;
+            }
+        }
+        throw new IOException("Frame length longer than 5 bytes");
+    }
+}
@@ -0,0 +1,77 @@
+package com.trendyol.io;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/*
+ * Writes length-prefixed frames to one buffered stream kept open for the whole run,
+ * the binary equivalent of StreamingOutputWriter.
+ */
+public class BinaryFrameWriter implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String filePath;
+    private final OutputStream out;
+    private final int flushInterval;
+    private final byte[] lengthBytes = new byte[5];
+    private int framesSinceFlush;
+
+    /**
+     * Opens (and truncates) the output file
+     *
+     * @param filePath      File path
+     * @param flushInterval Number of frames after which the buffer is flushed, 0 flushes only on close
+     */
+    public BinaryFrameWriter(String filePath, int flushInterval) {
+        if (flushInterval < 0) {
+            throw new IllegalArgumentException("Flush interval cannot be negative");
+        }
+
+        this.filePath = filePath;
+        this.flushInterval = flushInterval;
+
+        try {
+            this.out = new BufferedOutputStream(new FileOutputStream(filePath, false), BUFFER_SIZE);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open output file: " + filePath, e);
+        }
+    }
+
+    /**
+     * Writes the length prefix and the body
+     *
+     * @param body Frame body
+     */
+    public void writeFrame(byte[] body) {
+        int size = 0;
+        int length = body.length;
+        while ((length & ~0x7F) != 0) {
+            lengthBytes[size++] = (byte) ((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        lengthBytes[size++] = (byte) length;
+
+        try {
+            out.write(lengthBytes, 0, size);
+            out.write(body);
+            if (flushInterval > 0 && ++framesSinceFlush >= flushInterval) {
+                out.flush();
+                framesSinceFlush = 0;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write to output file: " + filePath, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to close output file: " + filePath, e);
+        }
+    }
+}
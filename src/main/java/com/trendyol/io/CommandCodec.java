@@ -0,0 +1,32 @@
+package com.trendyol.io;
+
+import com.trendyol.command.CartCommand;
+import com.trendyol.command.CommandResponse;
+
+/*
+ * Wire encoding of commands and responses. Works on the body of one message; how bodies are
+ * delimited in a file (lines for JSON, length prefixes for binary) is up to the reader and writer.
+ */
+public interface CommandCodec {
+
+    /**
+     * Message body to typed command
+     *
+     * @param body Encoded command
+     * @return Typed command
+     * @throws com.trendyol.command.CommandException if the body is well-formed but not a valid command
+     */
+    CartCommand decodeCommand(byte[] body);
+
+    /**
+     * @param command Typed command
+     * @return Encoded command, accepted by decodeCommand
+     */
+    byte[] encodeCommand(CartCommand command);
+
+    /**
+     * @param response Response of a command
+     * @return Encoded response
+     */
+    byte[] encodeResponse(CommandResponse response);
+}
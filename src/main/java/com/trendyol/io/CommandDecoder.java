@@ -0,0 +1,253 @@
+package com.trendyol.io;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.trendyol.command.CartCommand;
+import com.trendyol.command.CommandException;
+import com.trendyol.domain.money.Money;
+import com.trendyol.service.CartOperation;
+import com.trendyol.service.CartService;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Decodes a command line into a typed CartCommand with a single pass over Gson's token stream.
+ *
+ * Payload values are read straight into primitive fields, so no Map<String, Object> and no boxed
+ * numbers are created. The whole line is consumed before anything is built, so malformed lines
+ * are rejected without allocating a command. Fields may come in any order. Prices are converted to
+ * kuruş as they are read (see Money).
+ *
+ * Rejections differ from the former Gson CommandRequest path in two cases: a missing or null
+ * "command" gives "Missing required parameter: command" instead of a NullPointerException text,
+ * and data after the JSON object gives "JSON document was not fully consumed." instead of Gson's
+ * MalformedJsonException text.
+ * Stateless and thread-safe.
+ */
+public class CommandDecoder {
+
+    // Presence bits of payload fields
+    private static final int ITEM_ID = 1;
+    private static final int CATEGORY_ID = 1 << 1;
+    private static final int SELLER_ID = 1 << 2;
+    private static final int PRICE = 1 << 3;
+    private static final int QUANTITY = 1 << 4;
+    private static final int VAS_ITEM_ID = 1 << 5;
+    private static final int VAS_CATEGORY_ID = 1 << 6;
+    private static final int VAS_SELLER_ID = 1 << 7;
+
+    private static final int ADD_ITEM_FIELDS = ITEM_ID | CATEGORY_ID | SELLER_ID | PRICE | QUANTITY;
+    private static final int ADD_VAS_ITEM_FIELDS = ITEM_ID | VAS_ITEM_ID | VAS_CATEGORY_ID | VAS_SELLER_ID | PRICE | QUANTITY;
+
+    /**
+     * JSON string to CartCommand
+     *
+     * @param json JSON string
+     * @return Typed command
+     * @throws CommandException if the line is valid JSON but not a valid command
+     */
+    public CartCommand decode(String json) {
+        Fields fields = new Fields();
+
+        try {
+            JsonReader reader = new JsonReader(new StringReader(json));
+            reader.setLenient(true);
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "command" -> fields.command = readString(reader);
+                    case "cartId" -> {
+                        if (reader.peek() == JsonToken.NULL) {
+                            reader.nextNull();
+                        } else {
+                            fields.cartId = reader.nextInt();
+                        }
+                    }
+                    case "payload" -> readPayload(reader, fields, true);
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new RuntimeException("Failed to parse JSON request: JSON document was not fully consumed.");
+            }
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            throw new RuntimeException("Failed to parse JSON request: " + e, e);
+        }
+
+        if (fields.command == null) {
+            throw CommandException.missingParameter("command");
+        }
+
+        int cartId = fields.cartId;
+        String command = fields.command;
+        return switch (command) {
+            case CartCommand.ADD_ITEM -> {
+                requireAll(fields.present, ADD_ITEM_FIELDS, command);
+                yield new CartCommand.AddItem(cartId, fields.itemId, fields.categoryId, fields.sellerId,
+                        fields.price, fields.quantity);
+            }
+            case CartCommand.ADD_VAS_ITEM_TO_ITEM -> {
+                requireAll(fields.present, ADD_VAS_ITEM_FIELDS, command);
+                yield new CartCommand.AddVasItemToItem(cartId, fields.itemId, fields.vasItemId, fields.vasCategoryId,
+                        fields.vasSellerId, fields.price, fields.quantity);
+            }
+            case CartCommand.REMOVE_ITEM -> {
+                requireItemId(fields.present);
+                yield new CartCommand.RemoveItem(cartId, fields.itemId);
+            }
+            case CartCommand.RESET_CART -> new CartCommand.ResetCart(cartId);
+            case CartCommand.DISPLAY_CART -> new CartCommand.DisplayCart(cartId);
+            case CartCommand.BATCH -> {
+                if (fields.operations == null) {
+                    throw CommandException.missingParameters(command);
+                }
+                yield new CartCommand.Batch(cartId, toOperations(fields.operations));
+            }
+            default -> throw CommandException.unknownCommand(command);
+        };
+    }
+
+    /*
+     * Reads a payload object into fields. Only a top-level payload may carry the "operations"
+     * array of a batch; each operation is an object with its own command and payload.
+     */
+    private static void readPayload(JsonReader reader, Fields fields, boolean allowOperations) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return;
+        }
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+
+            if (allowOperations && name.equals("operations") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                fields.operations = readOperations(reader);
+                continue;
+            }
+
+            // Non-numeric values count as missing
+            if (reader.peek() != JsonToken.NUMBER) {
+                reader.skipValue();
+                continue;
+            }
+
+            switch (name) {
+                case "itemId" -> { fields.itemId = (int) reader.nextDouble(); fields.present |= ITEM_ID; }
+                case "categoryId" -> { fields.categoryId = (int) reader.nextDouble(); fields.present |= CATEGORY_ID; }
+                case "sellerId" -> { fields.sellerId = (int) reader.nextDouble(); fields.present |= SELLER_ID; }
+                case "price" -> { fields.price = toKurus(reader.nextDouble()); fields.present |= PRICE; }
+                case "quantity" -> { fields.quantity = (int) reader.nextDouble(); fields.present |= QUANTITY; }
+                case "vasItemId" -> { fields.vasItemId = (int) reader.nextDouble(); fields.present |= VAS_ITEM_ID; }
+                case "vasCategoryId" -> { fields.vasCategoryId = (int) reader.nextDouble(); fields.present |= VAS_CATEGORY_ID; }
+                case "vasSellerId" -> { fields.vasSellerId = (int) reader.nextDouble(); fields.present |= VAS_SELLER_ID; }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private static long toKurus(double price) {
+        try {
+            return Money.fromDecimal(price);
+        } catch (IllegalArgumentException e) {
+            throw CommandException.invalidPrice(price);
+        }
+    }
+
+    private static List<Fields> readOperations(JsonReader reader) throws IOException {
+        List<Fields> operations = new ArrayList<>();
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            Fields operation = new Fields();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "command" -> operation.command = readString(reader);
+                    case "payload" -> readPayload(reader, operation, false);
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+            operations.add(operation);
+        }
+        reader.endArray();
+
+        return operations;
+    }
+
+    private static List<CartOperation> toOperations(List<Fields> operations) {
+        List<CartOperation> result = new ArrayList<>(operations.size());
+
+        for (Fields fields : operations) {
+            String command = fields.command;
+            if (command == null) {
+                throw CommandException.missingParameter("command");
+            }
+
+            result.add(switch (command) {
+                case CartCommand.ADD_ITEM -> {
+                    requireAll(fields.present, ADD_ITEM_FIELDS, command);
+                    yield new CartOperation.AddItem(fields.itemId, fields.categoryId, fields.sellerId,
+                            fields.price, fields.quantity);
+                }
+                case CartCommand.ADD_VAS_ITEM_TO_ITEM -> {
+                    requireAll(fields.present, ADD_VAS_ITEM_FIELDS, command);
+                    yield new CartOperation.AddVasItemToItem(fields.itemId, fields.vasItemId, fields.vasCategoryId,
+                            fields.vasSellerId, fields.price, fields.quantity);
+                }
+                case CartCommand.REMOVE_ITEM -> {
+                    requireItemId(fields.present);
+                    yield new CartOperation.RemoveItem(fields.itemId);
+                }
+                default -> throw CommandException.unsupportedBatchOperation(command);
+            });
+        }
+
+        return result;
+    }
+
+    private static String readString(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    private static void requireAll(int present, int required, String command) {
+        if ((present & required) != required) {
+            throw CommandException.missingParameters(command);
+        }
+    }
+
+    private static void requireItemId(int present) {
+        if ((present & ITEM_ID) == 0) {
+            throw CommandException.missingParameter("itemId");
+        }
+    }
+
+    // Raw values of one command, validated only after the whole line has been read
+    private static final class Fields {
+        String command;
+        int cartId = CartService.DEFAULT_CART_ID;
+        int present;
+        int itemId;
+        int categoryId;
+        int sellerId;
+        int quantity;
+        int vasItemId;
+        int vasCategoryId;
+        int vasSellerId;
+        long price;
+        List<Fields> operations;
+    }
+}
@@ -0,0 +1,239 @@
+package com.trendyol.io;
+
+import com.trendyol.domain.cart.CartSnapshot;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Encoded displayCart responses keyed by (cartId, version): showing a cart that has not changed since
+ * its last display returns the same string instead of encoding it again. Each cart keeps only its
+ * newest body, replaced once a later version is encoded, and at most maxCarts carts keep one. Past that
+ * a CLOCK sweep picks the cart losing its body: a hit only marks the entry as displayed, and the sweep
+ * passes over marked entries once, clearing the mark, so a cart not displayed since the last sweep goes
+ * first. A cart that leaves the heap of the registry is dropped with invalidate.
+ *
+ * Lookups read a ConcurrentHashMap and take no lock; put and invalidate, which already follow an
+ * encode or a registry change, serialize on one lock to keep the map, the clock and the counters in step.
+ *
+ * Versions are only comparable within one CartService, so a cache must not be shared between two.
+ * The bodies are in the format of the owning JsonResponseEncoder. Thread-safe.
+ */
+public class DisplayCartCache implements DisplayCartCacheMXBean {
+
+    public static final String OBJECT_NAME = "com.trendyol:type=DisplayCartCache";
+
+    public static final int DEFAULT_MAX_CARTS = 64 * 1024;
+
+    private final int maxCarts;
+
+    private final ConcurrentHashMap<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+    // Guards the clock below and the writes of chars and evictions, never taken by get
+    private final ReentrantLock lock = new ReentrantLock();
+    // Clock slots, grown up to maxCarts; slots freed by invalidate are reused before the hand moves
+    private Entry[] clock = new Entry[16];
+    private int used;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int hand;
+
+    // Written under lock, read without it
+    private volatile long chars;
+    private volatile long evictions;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public DisplayCartCache() {
+        this(DEFAULT_MAX_CARTS);
+    }
+
+    /**
+     * @param maxCarts Carts that keep a body, one not displayed since the last sweep loses it first
+     */
+    public DisplayCartCache(int maxCarts) {
+        if (maxCarts < 1) {
+            throw new IllegalArgumentException("maxCarts must be positive: " + maxCarts);
+        }
+        this.maxCarts = maxCarts;
+    }
+
+    /**
+     * @param cart Snapshot about to be encoded
+     * @return Its encoded response, or null if this version of the cart was not encoded yet
+     */
+    public String get(CartSnapshot cart) {
+        Entry entry = entries.get(cart.getCartId());
+        if (entry != null && entry.version == cart.getVersion()) {
+            // Written only when unset, so a hot cart does not keep dirtying the entry's cache line
+            if (!entry.referenced) {
+                entry.referenced = true;
+            }
+            hits.increment();
+            return entry.body;
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Keeps the body unless a later version of the cart is already cached, e.g. encoded by another thread
+     *
+     * @param cart Snapshot that was encoded
+     * @param body Its whole encoded response
+     */
+    public void put(CartSnapshot cart, String body) {
+        int cartId = cart.getCartId();
+        lock.lock();
+        try {
+            Entry previous = entries.get(cartId);
+            if (previous != null && previous.version >= cart.getVersion()) {
+                return;
+            }
+
+            Entry entry;
+            if (previous != null) {
+                // Same slot, the cart was just displayed
+                entry = new Entry(cartId, cart.getVersion(), body, previous.slot);
+                entry.referenced = true;
+                chars += body.length() - previous.body.length();
+            } else {
+                entry = new Entry(cartId, cart.getVersion(), body, takeSlot());
+                chars += body.length();
+            }
+            clock[entry.slot] = entry;
+            entries.put(cartId, entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops the body of a cart, e.g. one that left the heap or no longer exists
+     */
+    public void invalidate(int cartId) {
+        lock.lock();
+        try {
+            Entry removed = entries.remove(cartId);
+            if (removed != null) {
+                chars -= removed.body.length();
+                releaseSlot(removed.slot);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // A free slot, or the slot of the cart the clock evicts once maxCarts carts keep a body
+    private int takeSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (used < maxCarts) {
+            if (used == clock.length) {
+                clock = Arrays.copyOf(clock, Math.min(maxCarts, clock.length * 2));
+            }
+            return used++;
+        }
+
+        while (true) {
+            Entry candidate = clock[hand];
+            int slot = hand;
+            hand = (hand + 1) % maxCarts;
+            if (candidate.referenced) {
+                candidate.referenced = false;
+                continue;
+            }
+            entries.remove(candidate.cartId);
+            chars -= candidate.body.length();
+            evictions++;
+            return slot;
+        }
+    }
+
+    private void releaseSlot(int slot) {
+        clock[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    /**
+     * Registers this instance with the platform MBean server, replacing an earlier registration
+     */
+    public void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            throw new RuntimeException("Failed to register MBean " + OBJECT_NAME, e);
+        }
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    @Override
+    public int getEntries() {
+        return entries.size();
+    }
+
+    @Override
+    public long getChars() {
+        return chars;
+    }
+
+    @Override
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public String getSummary() {
+        return String.format("displayCart cache: %d hits, %d misses (%.1f%% hit rate), %d carts, %d chars,"
+                        + " %d evictions", getHits(), getMisses(), getHitRate() * 100, getEntries(), getChars(),
+                getEvictions());
+    }
+
+    private static final class Entry {
+
+        final int cartId;
+        final long version;
+        final String body;
+        final int slot;
+        // Displayed since the clock hand last passed, cleared by the sweep
+        volatile boolean referenced;
+
+        Entry(int cartId, long version, String body, int slot) {
+            this.cartId = cartId;
+            this.version = version;
+            this.body = body;
+            this.slot = slot;
+        }
+    }
+}
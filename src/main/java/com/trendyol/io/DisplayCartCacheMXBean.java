@@ -0,0 +1,25 @@
+package com.trendyol.io;
+
+/*
+ * JMX view of a DisplayCartCache, registered as com.trendyol:type=DisplayCartCache
+ */
+public interface DisplayCartCacheMXBean {
+
+    // displayCart responses answered from the cache
+    long getHits();
+
+    // displayCart responses that had to be encoded
+    long getMisses();
+
+    // Hits / (hits + misses), 0 before the first display
+    double getHitRate();
+
+    // Carts with a cached body
+    int getEntries();
+
+    // Length of the cached bodies in chars
+    long getChars();
+
+    // Bodies dropped because more than maxCarts carts had one
+    long getEvictions();
+}
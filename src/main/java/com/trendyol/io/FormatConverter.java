@@ -0,0 +1,103 @@
+package com.trendyol.io;
+
+import com.trendyol.command.CartCommand;
+
+/*
+ * Offline conversion between JSON-lines files and length-prefixed binary files.
+ *
+ * Usage: java com.trendyol.io.FormatConverter <mode> <inputFile> <outputFile>
+ *   commands-to-binary   JSON command lines to binary commands; lines that are not valid commands
+ *                        are carried as text, so replaying the result gives the same responses
+ *   commands-to-json     binary commands to compact JSON command lines
+ *   responses-to-json    binary responses to pretty-printed JSON, as in output.txt
+ *   responses-to-ndjson  binary responses to one JSON response per line
+ */
+public class FormatConverter {
+
+    private final BinaryCodec binaryCodec = new BinaryCodec();
+
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            throw new IllegalArgumentException(
+                    "Usage: FormatConverter <commands-to-binary|commands-to-json|responses-to-json|responses-to-ndjson> "
+                            + "<inputFile> <outputFile>");
+        }
+
+        FormatConverter converter = new FormatConverter();
+        int count = switch (args[0]) {
+            case "commands-to-binary" -> converter.commandsToBinary(args[1], args[2]);
+            case "commands-to-json" -> converter.commandsToJson(args[1], args[2]);
+            case "responses-to-json" -> converter.responsesToJson(args[1], args[2], true);
+            case "responses-to-ndjson" -> converter.responsesToJson(args[1], args[2], false);
+            default -> throw new IllegalArgumentException("Unknown mode: " + args[0]);
+        };
+
+        System.out.println("✓ Converted " + count + " records");
+        System.out.println("  Input file: " + args[1]);
+        System.out.println("  Output file: " + args[2]);
+    }
+
+    /**
+     * @return Number of commands written
+     */
+    public int commandsToBinary(String inputFilePath, String outputFilePath) {
+        CommandDecoder decoder = new CommandDecoder();
+        int[] count = {0};
+
+        try (BinaryFrameWriter writer = new BinaryFrameWriter(outputFilePath, 0)) {
+            new InputReader().forEachLine(inputFilePath, line -> {
+                CartCommand command;
+                try {
+                    command = decoder.decode(line);
+                } catch (RuntimeException e) {
+                    // Rejected again, with the same message, when the binary file is replayed
+                    writer.writeFrame(binaryCodec.encodeJsonLine(line));
+                    count[0]++;
+                    return;
+                }
+                writer.writeFrame(binaryCodec.encodeCommand(command));
+                count[0]++;
+            });
+        }
+
+        return count[0];
+    }
+
+    /**
+     * @return Number of commands written
+     */
+    public int commandsToJson(String inputFilePath, String outputFilePath) {
+        JsonMapper jsonMapper = new JsonMapper(false);
+        int[] count = {0};
+
+        try (StreamingOutputWriter writer = new StreamingOutputWriter(outputFilePath, 0)) {
+            new BinaryFrameReader().forEachFrame(inputFilePath, body -> {
+                String line = binaryCodec.decodeJsonLine(body);
+                writer.writeLine(line != null ? line : jsonMapper.toJson(binaryCodec.decodeCommand(body)));
+                count[0]++;
+            });
+        }
+
+        return count[0];
+    }
+
+    /**
+     * @return Number of responses written
+     */
+    public int responsesToJson(String inputFilePath, String outputFilePath, boolean prettyPrinting) {
+        JsonMapper jsonMapper = new JsonMapper(prettyPrinting);
+        StringBuilder json = new StringBuilder(1024);
+        int[] count = {0};
+
+        try (StreamingOutputWriter writer = new StreamingOutputWriter(outputFilePath, 0)) {
+            new BinaryFrameReader().forEachFrame(inputFilePath, body -> {
+                json.setLength(0);
+                jsonMapper.writeJson(binaryCodec.decodeResponse(body), json);
+                writer.writeLine(json);
+                count[0]++;
+            });
+        }
+
+        return count[0];
+    }
+}
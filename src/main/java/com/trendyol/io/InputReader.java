@@ -5,6 +5,7 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class InputReader {
 
@@ -16,19 +17,30 @@ public class InputReader {
      */
     public List<String> readLines(String filePath) {
         List<String> lines = new ArrayList<>();
+        forEachLine(filePath, lines::add);
+        return lines;
+    }
 
+    /**
+     * Streams the non-blank lines of the file to the consumer one by one,
+     * without keeping the file content in memory
+     *
+     * @param filePath File path
+     * @param consumer Receives each trimmed, non-blank line in file order
+     */
+    public void forEachLine(String filePath, Consumer<String> consumer) {
         try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
             String line;
             while ((line = reader.readLine()) != null) {
+                String trimmed = line.trim();
+
                 // Skip blank lines
-                if (!line.trim().isEmpty()) {
-                    lines.add(line.trim());
+                if (!trimmed.isEmpty()) {
+                    consumer.accept(trimmed);
                 }
             }
         } catch (IOException e) {
             throw new RuntimeException("Failed to read input file: " + filePath, e);
         }
-
-        return lines;
     }
 }
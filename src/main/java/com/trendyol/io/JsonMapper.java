@@ -2,17 +2,58 @@ package com.trendyol.io;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import com.trendyol.command.CartCommand;
 import com.trendyol.command.CommandRequest;
 import com.trendyol.command.CommandResponse;
+import com.trendyol.domain.money.Money;
+import com.trendyol.service.CartOperation;
+import com.trendyol.service.CartService;
 
-public class JsonMapper {
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * JSON codec: a command is one UTF-8 JSON line, a response is pretty-printed or NDJSON.
+ */
+public class JsonMapper implements CommandCodec {
 
     private final Gson gson;
+    private final CommandDecoder commandDecoder;
+    private final JsonResponseEncoder responseEncoder;
 
     public JsonMapper() {
+        this(true);
+    }
+
+    /**
+     * @param prettyPrinting true for indented output, false for one response per line (NDJSON)
+     */
+    public JsonMapper(boolean prettyPrinting) {
+        this(prettyPrinting, null);
+    }
+
+    /**
+     * @param displayCache Reuses encoded displayCart responses of unchanged carts, null to always encode;
+     *                     only valid for the responses of a single CartService
+     */
+    public JsonMapper(boolean prettyPrinting, DisplayCartCache displayCache) {
         this.gson = new GsonBuilder()
                 .setPrettyPrinting()
                 .create();
+        this.commandDecoder = new CommandDecoder();
+        this.responseEncoder = new JsonResponseEncoder(prettyPrinting, displayCache);
+    }
+
+    /**
+     * JSON string to typed CartCommand, without building the payload map
+     *
+     * @param json JSON string
+     * @return CartCommand object
+     */
+    public CartCommand parseCommand(String json) {
+        return commandDecoder.decode(json);
     }
 
     /**
@@ -37,9 +78,132 @@ public class JsonMapper {
      */
     public String toJson(CommandResponse response) {
         try {
-            return gson.toJson(response);
+            return responseEncoder.encode(response);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to convert response to JSON: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Appends the JSON of the response to the builder
+     *
+     * @param response CommandResponse object
+     * @param out      Target builder
+     */
+    public void writeJson(CommandResponse response, StringBuilder out) {
+        try {
+            responseEncoder.encode(response, out);
         } catch (Exception e) {
             throw new RuntimeException("Failed to convert response to JSON: " + e.getMessage(), e);
         }
     }
+
+    @Override
+    public CartCommand decodeCommand(byte[] body) {
+        return parseCommand(new String(body, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public byte[] encodeCommand(CartCommand command) {
+        return toJson(command).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public byte[] encodeResponse(CommandResponse response) {
+        return toJson(response).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * CartCommand to a compact JSON line in the input file format, cartId omitted for the default cart
+     *
+     * @param command Typed command
+     * @return JSON string
+     */
+    public String toJson(CartCommand command) {
+        StringWriter out = new StringWriter(128);
+
+        try (JsonWriter writer = new JsonWriter(out)) {
+            writer.beginObject();
+            switch (command) {
+                case CartCommand.AddItem add -> {
+                    header(writer, CartCommand.ADD_ITEM, add.cartId());
+                    writer.name("payload");
+                    writeAddItem(writer, add.itemId(), add.categoryId(), add.sellerId(), add.price(), add.quantity());
+                }
+                case CartCommand.AddVasItemToItem add -> {
+                    header(writer, CartCommand.ADD_VAS_ITEM_TO_ITEM, add.cartId());
+                    writer.name("payload");
+                    writeAddVasItem(writer, add.itemId(), add.vasItemId(), add.vasCategoryId(), add.vasSellerId(),
+                            add.price(), add.quantity());
+                }
+                case CartCommand.RemoveItem remove -> {
+                    header(writer, CartCommand.REMOVE_ITEM, remove.cartId());
+                    writer.name("payload").beginObject().name("itemId").value(remove.itemId()).endObject();
+                }
+                case CartCommand.ResetCart reset -> header(writer, CartCommand.RESET_CART, reset.cartId());
+                case CartCommand.DisplayCart display -> header(writer, CartCommand.DISPLAY_CART, display.cartId());
+                case CartCommand.Batch batch -> {
+                    header(writer, CartCommand.BATCH, batch.cartId());
+                    writer.name("payload").beginObject().name("operations").beginArray();
+                    for (CartOperation operation : batch.operations()) {
+                        writeOperation(writer, operation);
+                    }
+                    writer.endArray().endObject();
+                }
+            }
+            writer.endObject();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to convert command to JSON: " + e.getMessage(), e);
+        }
+
+        return out.toString();
+    }
+
+    private static void header(JsonWriter writer, String command, int cartId) throws IOException {
+        writer.name("command").value(command);
+        if (cartId != CartService.DEFAULT_CART_ID) {
+            writer.name("cartId").value(cartId);
+        }
+    }
+
+    private static void writeOperation(JsonWriter writer, CartOperation operation) throws IOException {
+        writer.beginObject();
+        switch (operation) {
+            case CartOperation.AddItem add -> {
+                writer.name("command").value(CartCommand.ADD_ITEM).name("payload");
+                writeAddItem(writer, add.itemId(), add.categoryId(), add.sellerId(), add.price(), add.quantity());
+            }
+            case CartOperation.AddVasItemToItem add -> {
+                writer.name("command").value(CartCommand.ADD_VAS_ITEM_TO_ITEM).name("payload");
+                writeAddVasItem(writer, add.itemId(), add.vasItemId(), add.vasCategoryId(), add.vasSellerId(),
+                        add.price(), add.quantity());
+            }
+            case CartOperation.RemoveItem remove -> writer.name("command").value(CartCommand.REMOVE_ITEM)
+                    .name("payload").beginObject().name("itemId").value(remove.itemId()).endObject();
+        }
+        writer.endObject();
+    }
+
+    private static void writeAddItem(JsonWriter writer, int itemId, int categoryId, int sellerId, long price,
+                                     int quantity) throws IOException {
+        writer.beginObject()
+                .name("itemId").value(itemId)
+                .name("categoryId").value(categoryId)
+                .name("sellerId").value(sellerId)
+                .name("price").value(Money.toDecimal(price))
+                .name("quantity").value(quantity)
+                .endObject();
+    }
+
+    private static void writeAddVasItem(JsonWriter writer, int itemId, int vasItemId, int vasCategoryId,
+                                        int vasSellerId, long price, int quantity) throws IOException {
+        writer.beginObject()
+                .name("itemId").value(itemId)
+                .name("vasItemId").value(vasItemId)
+                .name("vasCategoryId").value(vasCategoryId)
+                .name("vasSellerId").value(vasSellerId)
+                .name("price").value(Money.toDecimal(price))
+                .name("quantity").value(quantity)
+                .endObject();
+    }
 }
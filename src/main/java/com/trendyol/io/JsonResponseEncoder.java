@@ -0,0 +1,307 @@
+package com.trendyol.io;
+
+import com.trendyol.command.CommandResponse;
+import com.trendyol.domain.cart.CartSnapshot;
+import com.trendyol.domain.money.Money;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Writes CommandResponse JSON straight into a StringBuilder, without reflection and without
+ * building an intermediate map tree for displayCart.
+ *
+ * Pretty mode reproduces Gson's pretty printing byte for byte, including the key order the
+ * previous HashMap based displayCart produced. Compact mode writes one response per line (NDJSON).
+ * Constant responses are encoded once up front, and with a DisplayCartCache a displayCart of an
+ * unchanged cart reuses the body encoded for its version. Thread-safe.
+ */
+public class JsonResponseEncoder {
+
+    private static final char LINE_SEPARATOR = 0x2028;
+    private static final char PARAGRAPH_SEPARATOR = 0x2029;
+    private static final String[] ESCAPES = new String[128];
+
+    static {
+        for (int c = 0; c < 0x20; c++) {
+            ESCAPES[c] = String.format("\\u%04x", c);
+        }
+        ESCAPES['"'] = "\\\"";
+        ESCAPES['\\'] = "\\\\";
+        ESCAPES['\t'] = "\\t";
+        ESCAPES['\b'] = "\\b";
+        ESCAPES['\n'] = "\\n";
+        ESCAPES['\r'] = "\\r";
+        ESCAPES['\f'] = "\\f";
+        // Gson escapes HTML sensitive characters by default
+        ESCAPES['<'] = "\\u003c";
+        ESCAPES['>'] = "\\u003e";
+        ESCAPES['&'] = "\\u0026";
+        ESCAPES['='] = "\\u003d";
+        ESCAPES['\''] = "\\u0027";
+    }
+
+    private final boolean pretty;
+    private final String nameSeparator;
+    private final Map<CommandResponse, String> preEncoded;
+    private final DisplayCartCache displayCache;
+
+    public JsonResponseEncoder(boolean pretty) {
+        this(pretty, null);
+    }
+
+    /**
+     * @param displayCache Encoded displayCart responses of one CartService, null to always encode
+     */
+    public JsonResponseEncoder(boolean pretty, DisplayCartCache displayCache) {
+        this.pretty = pretty;
+        this.displayCache = displayCache;
+        this.nameSeparator = pretty ? ": " : ":";
+        this.preEncoded = new IdentityHashMap<>();
+
+        for (CommandResponse constant : CommandResponse.CONSTANTS) {
+            StringBuilder out = new StringBuilder();
+            writeResponse(constant, out);
+            preEncoded.put(constant, out.toString());
+        }
+    }
+
+    public boolean isPretty() {
+        return pretty;
+    }
+
+    /**
+     * CommandResponse to JSON string
+     *
+     * @param response CommandResponse object
+     * @return JSON string
+     */
+    public String encode(CommandResponse response) {
+        String constant = preEncoded.get(response);
+        if (constant != null) {
+            return constant;
+        }
+
+        CartSnapshot cart = cacheableCart(response);
+        if (cart != null) {
+            String cached = displayCache.get(cart);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        StringBuilder out = new StringBuilder(128);
+        writeResponse(response, out);
+        String json = out.toString();
+        if (cart != null) {
+            displayCache.put(cart, json);
+        }
+        return json;
+    }
+
+    /**
+     * Appends the JSON of the response to the builder
+     *
+     * @param response CommandResponse object
+     * @param out      Target builder
+     */
+    public void encode(CommandResponse response, StringBuilder out) {
+        String constant = preEncoded.get(response);
+        if (constant != null) {
+            out.append(constant);
+            return;
+        }
+
+        CartSnapshot cart = cacheableCart(response);
+        if (cart == null) {
+            writeResponse(response, out);
+            return;
+        }
+
+        String cached = displayCache.get(cart);
+        if (cached != null) {
+            out.append(cached);
+        } else {
+            int start = out.length();
+            writeResponse(response, out);
+            displayCache.put(cart, out.substring(start));
+        }
+    }
+
+    public DisplayCartCache getDisplayCache() {
+        return displayCache;
+    }
+
+    // The snapshot of a displayCart response taken from a live cart, null if it is not cached
+    private CartSnapshot cacheableCart(CommandResponse response) {
+        if (displayCache != null && response.getMessage() instanceof CartSnapshot cart
+                && cart.getVersion() != CartSnapshot.UNVERSIONED) {
+            return cart;
+        }
+        return null;
+    }
+
+    private void writeResponse(CommandResponse response, StringBuilder out) {
+        writeResponse(response, out, 0);
+    }
+
+    private void writeResponse(CommandResponse response, StringBuilder out, int depth) {
+        out.append('{');
+        name(out, depth + 1, "result", true);
+        out.append(response.isResult());
+        name(out, depth + 1, "message", false);
+
+        Object message = response.getMessage();
+        if (message instanceof CartSnapshot snapshot) {
+            writeCart(snapshot, out, depth + 1);
+        } else if (message instanceof List<?> responses) {
+            writeResponses(responses, out, depth + 1);
+        } else if (message == null) {
+            out.append("null");
+        } else {
+            string(out, message.toString());
+        }
+
+        newLine(out, depth);
+        out.append('}');
+    }
+
+    // Per operation responses of a batch
+    private void writeResponses(List<?> responses, StringBuilder out, int depth) {
+        out.append('[');
+        for (int i = 0; i < responses.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            newLine(out, depth + 1);
+            writeResponse((CommandResponse) responses.get(i), out, depth + 1);
+        }
+        if (!responses.isEmpty()) {
+            newLine(out, depth);
+        }
+        out.append(']');
+    }
+
+    private void writeCart(CartSnapshot cart, StringBuilder out, int depth) {
+        out.append('{');
+        name(out, depth + 1, "appliedPromotionId", true);
+        out.append(cart.getAppliedPromotionId());
+        name(out, depth + 1, "totalAmount", false);
+        out.append(Money.toDecimal(cart.getTotalAmount()));
+        name(out, depth + 1, "totalDiscount", false);
+        out.append(Money.toDecimal(cart.getTotalDiscount()));
+        name(out, depth + 1, "items", false);
+
+        int itemCount = cart.getItemCount();
+        out.append('[');
+        for (int i = 0; i < itemCount; i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            newLine(out, depth + 2);
+            writeItem(cart, i, out, depth + 2);
+        }
+        if (itemCount > 0) {
+            newLine(out, depth + 1);
+        }
+        out.append(']');
+
+        newLine(out, depth);
+        out.append('}');
+    }
+
+    private void writeItem(CartSnapshot cart, int index, StringBuilder out, int depth) {
+        out.append('{');
+        name(out, depth + 1, "itemId", true);
+        out.append(cart.getItemId(index));
+        name(out, depth + 1, "sellerId", false);
+        out.append(cart.getSellerId(index));
+        name(out, depth + 1, "quantity", false);
+        out.append(cart.getQuantity(index));
+        name(out, depth + 1, "price", false);
+        out.append(Money.toDecimal(cart.getPrice(index)));
+        name(out, depth + 1, "vasItems", false);
+
+        int vasStart = cart.getVasStart(index);
+        int vasEnd = cart.getVasEnd(index);
+        out.append('[');
+        for (int v = vasStart; v < vasEnd; v++) {
+            if (v > vasStart) {
+                out.append(',');
+            }
+            newLine(out, depth + 2);
+            writeVasItem(cart, v, out, depth + 2);
+        }
+        if (vasEnd > vasStart) {
+            newLine(out, depth + 1);
+        }
+        out.append(']');
+
+        name(out, depth + 1, "categoryId", false);
+        out.append(cart.getCategoryId(index));
+        newLine(out, depth);
+        out.append('}');
+    }
+
+    private void writeVasItem(CartSnapshot cart, int vasIndex, StringBuilder out, int depth) {
+        out.append('{');
+        name(out, depth + 1, "quantity", true);
+        out.append(cart.getVasQuantity(vasIndex));
+        name(out, depth + 1, "price", false);
+        out.append(Money.toDecimal(cart.getVasPrice(vasIndex)));
+        name(out, depth + 1, "vasItemId", false);
+        out.append(cart.getVasItemId(vasIndex));
+        name(out, depth + 1, "vasCategoryId", false);
+        out.append(cart.getVasCategoryId(vasIndex));
+        name(out, depth + 1, "vasSellerId", false);
+        out.append(cart.getVasSellerId(vasIndex));
+        newLine(out, depth);
+        out.append('}');
+    }
+
+    private void name(StringBuilder out, int depth, String name, boolean first) {
+        if (!first) {
+            out.append(',');
+        }
+        newLine(out, depth);
+        out.append('"').append(name).append('"').append(nameSeparator);
+    }
+
+    private void newLine(StringBuilder out, int depth) {
+        if (pretty) {
+            out.append('\n');
+            for (int i = 0; i < depth; i++) {
+                out.append("  ");
+            }
+        }
+    }
+
+    private static void string(StringBuilder out, String value) {
+        out.append('"');
+
+        int last = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String replacement;
+            if (c < 128) {
+                replacement = ESCAPES[c];
+            } else if (c == LINE_SEPARATOR) {
+                replacement = "\\u2028";
+            } else if (c == PARAGRAPH_SEPARATOR) {
+                replacement = "\\u2029";
+            } else {
+                continue;
+            }
+
+            if (replacement != null) {
+                out.append(value, last, i).append(replacement);
+                last = i + 1;
+            }
+        }
+        out.append(value, last, length);
+
+        out.append('"');
+    }
+}
@@ -0,0 +1,209 @@
+package com.trendyol.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/*
+ * Reads a command file through memory-mapped, newline-aligned chunks and parses the chunks on
+ * several threads. Line boundaries and blank lines are found on the bytes, so no String is built
+ * for a line the parser does not ask for, and UTF-8 decoding happens on the parser threads.
+ *
+ * Lines are split on '\n' and '\r' and trimmed of bytes <= ' ', which matches BufferedReader.readLine
+ * followed by String.trim(): in UTF-8 those characters are exactly the single bytes 0x00-0x20.
+ * Parsed lines are handed to the consumer on the calling thread, in file order. At most two chunks
+ * per thread are in flight, so memory stays bounded for any file size.
+ */
+public class MappedInputReader {
+
+    private static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+    private static final int PROBE_SIZE = 8 * 1024;
+
+    /**
+     * Parses one line, called on a parser thread
+     */
+    @FunctionalInterface
+    public interface LineParser<T> {
+
+        /**
+         * @param buffer Chunk holding the line, read with absolute gets only
+         * @param start  First byte of the trimmed, non-blank line
+         * @param end    Exclusive end of the line
+         * @return Parsed value passed to the consumer
+         */
+        T parse(ByteBuffer buffer, int start, int end);
+    }
+
+    private final int threads;
+    private final int chunkSize;
+
+    public MappedInputReader(int threads) {
+        this(threads, DEFAULT_CHUNK_SIZE);
+    }
+
+    public MappedInputReader(int threads, int chunkSize) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1");
+        }
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1");
+        }
+
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Parses the non-blank lines of the file on the parser threads and streams the results
+     * to the consumer in file order
+     *
+     * @param filePath File path
+     * @param parser   Turns a line's byte range into a value, must be thread-safe
+     * @param consumer Receives the parsed lines in file order, on the calling thread
+     */
+    public <T> void forEachLine(String filePath, LineParser<T> parser, Consumer<T> consumer) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, parserThreadFactory());
+
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            ArrayDeque<Future<List<T>>> inFlight = new ArrayDeque<>();
+
+            while (position < size || !inFlight.isEmpty()) {
+                // Keep every thread busy with the next chunks while the oldest one is consumed
+                while (position < size && inFlight.size() < threads * 2) {
+                    long end = chunkEnd(channel, position, size);
+                    ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, position, end - position);
+                    inFlight.add(pool.submit(() -> parseChunk(chunk, parser)));
+                    position = end;
+                }
+
+                for (T parsed : await(inFlight.poll())) {
+                    consumer.accept(parsed);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read input file: " + filePath, e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * UTF-8 text of a line, for parsers that work on Strings
+     *
+     * @param buffer Chunk holding the line
+     * @param start  First byte
+     * @param end    Exclusive end
+     * @return Decoded line
+     */
+    public static String decode(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Exclusive end of the chunk starting at position: just past the first line break after chunkSize bytes
+    private long chunkEnd(FileChannel channel, long position, long size) throws IOException {
+        long offset = position + chunkSize;
+        if (offset >= size) {
+            return checkedEnd(position, size);
+        }
+
+        ByteBuffer probe = ByteBuffer.allocate(PROBE_SIZE);
+        while (offset < size) {
+            probe.clear();
+            int read = channel.read(probe, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (isLineBreak(probe.get(i))) {
+                    return checkedEnd(position, offset + i + 1);
+                }
+            }
+            offset += read;
+        }
+        return checkedEnd(position, size);
+    }
+
+    private static long checkedEnd(long position, long end) {
+        if (end - position > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Line starting near byte " + position + " is longer than 2 GB");
+        }
+        return end;
+    }
+
+    private static <T> List<T> parseChunk(ByteBuffer chunk, LineParser<T> parser) {
+        List<T> results = new ArrayList<>();
+        int limit = chunk.limit();
+        int lineStart = 0;
+
+        for (int i = 0; i <= limit; i++) {
+            if (i < limit && !isLineBreak(chunk.get(i))) {
+                continue;
+            }
+
+            // Trim, blank lines end up empty and are skipped
+            int start = lineStart;
+            int end = i;
+            while (start < end && isWhitespace(chunk.get(start))) {
+                start++;
+            }
+            while (end > start && isWhitespace(chunk.get(end - 1))) {
+                end--;
+            }
+            if (start < end) {
+                results.add(parser.parse(chunk, start, end));
+            }
+
+            lineStart = i + 1;
+        }
+
+        return results;
+    }
+
+    private static boolean isLineBreak(byte b) {
+        return b == '\n' || b == '\r';
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return (b & 0xFF) <= ' ';
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Input reading interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new RuntimeException("Failed to parse input chunk", e.getCause());
+        }
+    }
+
+    private static ThreadFactory parserThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "input-parser-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
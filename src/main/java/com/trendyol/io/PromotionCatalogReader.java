@@ -0,0 +1,106 @@
+package com.trendyol.io;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.trendyol.domain.money.Money;
+import com.trendyol.domain.promotion.CategoryPromotion;
+import com.trendyol.domain.promotion.Promotion;
+import com.trendyol.domain.promotion.PromotionCatalog;
+import com.trendyol.domain.promotion.SameSellerPromotion;
+import com.trendyol.domain.promotion.TotalPricePromotion;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Loads a promotion catalog from a JSON lines file, one rule per line, in priority order:
+ *   {"type":"sameSeller","promotionId":9909,"rate":0.10}                  any single seller
+ *   {"type":"sameSeller","promotionId":7001,"rate":0.15,"sellerId":500}   only seller 500
+ *   {"type":"category","promotionId":5676,"categoryId":3003,"rate":0.05}
+ *   {"type":"totalPrice","promotionId":1232,"tiers":[{"min":500,"discount":250}, ...]}
+ * Rates become basis points and amounts kuruş (see Money). Blank lines and lines starting with # are skipped.
+ */
+public class PromotionCatalogReader {
+
+    /**
+     * Reads the whole catalog file
+     *
+     * @param filePath File path
+     * @return Indexed catalog, rules in file order
+     */
+    public PromotionCatalog read(String filePath) {
+        List<Promotion> promotions = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+
+                try {
+                    promotions.add(parseRule(trimmed));
+                } catch (RuntimeException e) {
+                    throw new IllegalArgumentException(
+                            "Invalid promotion at " + filePath + ":" + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read promotion catalog: " + filePath, e);
+        }
+
+        return PromotionCatalog.of(promotions);
+    }
+
+    /**
+     * One catalog line to a Promotion
+     *
+     * @param json JSON object of the rule
+     * @return Promotion object
+     */
+    public Promotion parseRule(String json) {
+        JsonObject rule = JsonParser.parseString(json).getAsJsonObject();
+        String type = requireMember(rule, "type").getAsString();
+        int promotionId = requireMember(rule, "promotionId").getAsInt();
+
+        return switch (type) {
+            case "sameSeller" -> new SameSellerPromotion(
+                    promotionId,
+                    Money.rateToBasisPoints(requireMember(rule, "rate").getAsDouble()),
+                    rule.has("sellerId") ? rule.get("sellerId").getAsInt() : -1);
+            case "category" -> new CategoryPromotion(
+                    promotionId,
+                    requireMember(rule, "categoryId").getAsInt(),
+                    Money.rateToBasisPoints(requireMember(rule, "rate").getAsDouble()));
+            case "totalPrice" -> parseTotalPrice(promotionId, requireMember(rule, "tiers").getAsJsonArray());
+            default -> throw new IllegalArgumentException("Unknown promotion type: " + type);
+        };
+    }
+
+    private static TotalPricePromotion parseTotalPrice(int promotionId, JsonArray tiers) {
+        long[] mins = new long[tiers.size()];
+        long[] discounts = new long[tiers.size()];
+        for (int i = 0; i < tiers.size(); i++) {
+            JsonObject tier = tiers.get(i).getAsJsonObject();
+            mins[i] = Money.fromDecimal(requireMember(tier, "min").getAsDouble());
+            discounts[i] = Money.fromDecimal(requireMember(tier, "discount").getAsDouble());
+        }
+        return new TotalPricePromotion(promotionId, mins, discounts);
+    }
+
+    private static JsonElement requireMember(JsonObject object, String name) {
+        JsonElement element = object.get(name);
+        if (element == null || element.isJsonNull()) {
+            throw new IllegalArgumentException("Missing field: " + name);
+        }
+        return element;
+    }
+}
@@ -0,0 +1,102 @@
+package com.trendyol.io;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/*
+ * Keeps one buffered channel open to the output file for the whole run, instead of
+ * opening and closing a FileWriter per line like OutputWriter does.
+ */
+public class StreamingOutputWriter implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String filePath;
+    private final BufferedWriter writer;
+    private final int flushInterval;
+    private int linesSinceFlush;
+    private char[] copyBuffer = new char[1024];
+
+    /**
+     * Opens (and truncates) the output file
+     *
+     * @param filePath      File path
+     * @param flushInterval Number of lines after which the buffer is flushed, 0 flushes only on close
+     */
+    public StreamingOutputWriter(String filePath, int flushInterval) {
+        if (flushInterval < 0) {
+            throw new IllegalArgumentException("Flush interval cannot be negative");
+        }
+
+        this.filePath = filePath;
+        this.flushInterval = flushInterval;
+
+        try {
+            this.writer = new BufferedWriter(new FileWriter(filePath, false), BUFFER_SIZE);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open output file: " + filePath, e);
+        }
+    }
+
+    /**
+     * Writes the line to the buffer, flushing it every flushInterval lines
+     *
+     * @param line Line to write
+     */
+    public void writeLine(String line) {
+        try {
+            writer.write(line);
+            writer.newLine();
+            afterLine();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write to output file: " + filePath, e);
+        }
+    }
+
+    /**
+     * Writes the builder content as one line without turning it into a String first
+     *
+     * @param line Line to write
+     */
+    public void writeLine(StringBuilder line) {
+        int length = line.length();
+        if (copyBuffer.length < length) {
+            copyBuffer = new char[Math.max(length, copyBuffer.length * 2)];
+        }
+        line.getChars(0, length, copyBuffer, 0);
+
+        try {
+            writer.write(copyBuffer, 0, length);
+            writer.newLine();
+            afterLine();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write to output file: " + filePath, e);
+        }
+    }
+
+    public void flush() {
+        try {
+            writer.flush();
+            linesSinceFlush = 0;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to flush output file: " + filePath, e);
+        }
+    }
+
+    private void afterLine() throws IOException {
+        if (flushInterval > 0 && ++linesSinceFlush >= flushInterval) {
+            writer.flush();
+            linesSinceFlush = 0;
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to close output file: " + filePath, e);
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.trendyol.journal;
+
+import com.trendyol.command.CartCommand;
+import com.trendyol.domain.cart.Cart;
+import com.trendyol.domain.item.VasItem;
+import com.trendyol.io.BinaryCodec;
+import com.trendyol.service.CartOperation;
+import com.trendyol.service.CartService;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/*
+ * Durable cart state: every successful mutation is appended to a CommandJournal, and every
+ * snapshotInterval records the carts are written to a snapshot so recovery only replays the tail.
+ *
+ * Journal records and snapshots share one format: BinaryCodec command bodies. A snapshot holds one
+ * batch per non-empty cart listing its items and VasItems, loaded with CartService.restoreCart; journal
+ * records are replayed through the normal command path. Promotions are recomputed either way.
+ *
+ * Mutations run under the shared side of a read-write lock and snapshots take the exclusive side
+ * only to cut the journal and copy the carts, which gives a consistent cut without stopping
+ * mutations of different carts from running in parallel.
+ */
+public class CartJournal implements AutoCloseable {
+
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 100_000;
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+    private final Path directory;
+    private final int snapshotInterval;
+    private final CartService cartService;
+    private final BinaryCodec codec = new BinaryCodec();
+    private final ReentrantReadWriteLock mutationLock = new ReentrantReadWriteLock();
+    private final AtomicBoolean snapshotRunning = new AtomicBoolean();
+
+    private CommandJournal journal;
+    private volatile long snapshotSequence;
+
+    /**
+     * @param directory        Journal directory, created if missing
+     * @param snapshotInterval Journal records between snapshots, 0 snapshots only on close
+     * @param cartService      Carts to snapshot and restore
+     */
+    public CartJournal(Path directory, int snapshotInterval, CartService cartService) {
+        if (snapshotInterval < 0) {
+            throw new IllegalArgumentException("Snapshot interval cannot be negative");
+        }
+
+        this.directory = directory;
+        this.snapshotInterval = snapshotInterval;
+        this.cartService = cartService;
+    }
+
+    /**
+     * Loads the latest snapshot, replays the journal after it and opens the journal for appends.
+     * Must run once, before any append.
+     *
+     * @param executor Runs a recovered command against the carts without journaling it
+     * @return What was recovered
+     */
+    public Recovery recover(Consumer<CartCommand> executor) {
+        long started = System.nanoTime();
+
+        try {
+            Files.createDirectories(directory);
+
+            long snapshot = latest(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+            int carts = 0;
+            if (snapshot > 0) {
+                List<byte[]> records = new ArrayList<>();
+                CommandJournal.readRecords(snapshotPath(snapshot), records::add);
+                for (byte[] record : records) {
+                    CartCommand.Batch cart = (CartCommand.Batch) codec.decodeCommand(record);
+                    cartService.restoreCart(cart.cartId(), cart.operations());
+                }
+                carts = records.size();
+            }
+
+            // Segments are contiguous; records up to the snapshot may still be there after a crash
+            long sequence = snapshot;
+            long replayed = 0;
+            for (long first : list(CommandJournal.SEGMENT_PREFIX, CommandJournal.SEGMENT_SUFFIX)) {
+                Path segment = CommandJournal.segmentPath(directory, first);
+                long[] next = {first};
+                long[] applied = {0};
+                long intact = CommandJournal.readRecords(segment, body -> {
+                    if (next[0]++ > snapshot) {
+                        executor.accept(codec.decodeCommand(body));
+                        applied[0]++;
+                    }
+                });
+                truncate(segment, intact);
+
+                sequence = Math.max(sequence, next[0] - 1);
+                replayed += applied[0];
+            }
+
+            snapshotSequence = snapshot;
+            journal = new CommandJournal(directory, sequence);
+            return new Recovery(carts, replayed, sequence, (System.nanoTime() - started) / 1_000_000);
+
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to recover journal: " + directory, e);
+        }
+    }
+
+    /**
+     * Shared side of the snapshot lock, held while a command changes a cart and is appended
+     */
+    public void beginMutation() {
+        mutationLock.readLock().lock();
+    }
+
+    public void endMutation() {
+        mutationLock.readLock().unlock();
+    }
+
+    /**
+     * Journals a command that changed its cart; call between beginMutation and endMutation
+     *
+     * @param command Command that succeeded
+     * @return Journal sequence of the command
+     */
+    public long append(CartCommand command) {
+        return journal.append(codec.encodeCommand(command));
+    }
+
+    /**
+     * Blocks until every command appended so far is on disk; concurrent callers share one fsync
+     */
+    public void awaitDurable() {
+        journal.awaitDurable(journal.getAppendedSequence());
+    }
+
+    /**
+     * Takes a snapshot once snapshotInterval records were appended since the last one. Called after
+     * endMutation; at most one thread snapshots at a time, the others return immediately.
+     */
+    public void snapshotIfDue() {
+        if (snapshotInterval > 0
+                && journal.getAppendedSequence() - snapshotSequence >= snapshotInterval
+                && snapshotRunning.compareAndSet(false, true)) {
+            try {
+                snapshot();
+            } finally {
+                snapshotRunning.set(false);
+            }
+        }
+    }
+
+    /**
+     * Writes a snapshot of all carts and drops the journal segments and snapshots it covers
+     */
+    public void snapshot() {
+        long sequence;
+        List<byte[]> carts = new ArrayList<>();
+
+        // Only the cut and the copy need the carts to hold still
+        mutationLock.writeLock().lock();
+        try {
+            sequence = journal.roll();
+            cartService.getCartRegistry().forEach((cartId, cart) -> {
+                if (cart.getSummary().getUniqueItemCount() > 0) {
+                    carts.add(codec.encodeCommand(savedCart(cartId, cart)));
+                }
+            });
+        } finally {
+            mutationLock.writeLock().unlock();
+        }
+
+        try {
+            writeSnapshot(sequence, carts);
+
+            for (long old : list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+                if (old < sequence) {
+                    Files.deleteIfExists(snapshotPath(old));
+                }
+            }
+            for (long first : list(CommandJournal.SEGMENT_PREFIX, CommandJournal.SEGMENT_SUFFIX)) {
+                if (first <= sequence) {
+                    Files.deleteIfExists(CommandJournal.segmentPath(directory, first));
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write snapshot to " + directory, e);
+        }
+
+        snapshotSequence = sequence;
+    }
+
+    /**
+     * Snapshots what was journaled since the last snapshot, so the next start only loads the snapshot
+     */
+    @Override
+    public void close() {
+        if (journal == null) {
+            return;
+        }
+        if (journal.getAppendedSequence() > snapshotSequence) {
+            snapshot();
+        }
+        journal.close();
+    }
+
+    // The items in cart order, then their VasItems, for CartService.restoreCart
+    private static CartCommand.Batch savedCart(int cartId, Cart cart) {
+        List<CartOperation> operations = new ArrayList<>();
+
+        cart.forEachItem((itemId, categoryId, sellerId, price, quantity, digital) ->
+                operations.add(new CartOperation.AddItem(itemId, categoryId, sellerId, price, quantity)));
+        cart.forEachVasItem((itemId, vasItemId, price, quantity) ->
+                operations.add(new CartOperation.AddVasItemToItem(itemId, vasItemId, VasItem.VAS_CATEGORY_ID,
+                        VasItem.VAS_SELLER_ID, price, quantity)));
+
+        return new CartCommand.Batch(cartId, operations);
+    }
+
+    // Written to a temporary file and renamed, so a snapshot file is either complete or absent
+    private void writeSnapshot(long sequence, List<byte[]> carts) throws IOException {
+        Path target = snapshotPath(sequence);
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            byte[] buffer = new byte[64 * 1024];
+            int size = 0;
+            for (byte[] body : carts) {
+                int recordSize = CommandJournal.recordOverhead(body.length) + body.length;
+                if (size + recordSize > buffer.length) {
+                    writeFully(channel, buffer, size);
+                    size = 0;
+                    if (recordSize > buffer.length) {
+                        buffer = new byte[recordSize];
+                    }
+                }
+                size = CommandJournal.writeRecord(buffer, size, body);
+            }
+            writeFully(channel, buffer, size);
+            channel.force(true);
+        }
+
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void writeFully(FileChannel channel, byte[] bytes, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, size);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // Cuts off a torn record so later segments continue right after the last intact one
+    private static void truncate(Path segment, long size) throws IOException {
+        if (Files.size(segment) > size) {
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                channel.truncate(size);
+            }
+        }
+    }
+
+    private Path snapshotPath(long sequence) {
+        return directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, sequence, SNAPSHOT_SUFFIX));
+    }
+
+    private long latest(String prefix, String suffix) throws IOException {
+        List<Long> sequences = list(prefix, suffix);
+        return sequences.isEmpty() ? 0 : sequences.get(sequences.size() - 1);
+    }
+
+    // Sequences in the names of matching files, ascending
+    private List<Long> list(String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .map(name -> Long.parseLong(name, prefix.length(), name.length() - suffix.length(), 10))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * @param carts         Carts loaded from the snapshot
+     * @param replayed      Journal records replayed after the snapshot
+     * @param sequence      Last recovered sequence
+     * @param elapsedMillis Recovery time
+     */
+    public record Recovery(int carts, long replayed, long sequence, long elapsedMillis) {
+    }
+}
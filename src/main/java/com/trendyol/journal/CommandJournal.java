@@ -0,0 +1,380 @@
+package com.trendyol.journal;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/*
+ * Append-only log of encoded commands with group commit.
+ *
+ * append only copies the record into an in-memory buffer. A single flusher thread swaps that buffer
+ * with a spare one, writes it and fsyncs, so one force covers a whole group of records. A group is
+ * written as soon as a caller waits for durability (e.g. before acknowledging a request), once it
+ * reaches GROUP_COMMIT_BYTES, or COMMIT_DELAY_NANOS after its first record, whichever comes first;
+ * callers that do not wait never pay for an fsync or a thread handoff per record.
+ *
+ * Records are numbered from 1 and stored in segment files named after their first sequence.
+ * Each record is a varint body length, the body and the CRC32C of the body, so a torn tail left by
+ * a crash is detected and cut off on recovery.
+ */
+public class CommandJournal implements AutoCloseable {
+
+    static final String SEGMENT_PREFIX = "journal-";
+    static final String SEGMENT_SUFFIX = ".log";
+
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    private static final int GROUP_COMMIT_BYTES = 256 * 1024;
+    private static final long COMMIT_DELAY_NANOS = 10_000_000;
+
+    // Appends block above this much unwritten data, which bounds memory when the disk falls behind
+    private static final int MAX_PENDING_BYTES = 8 * 1024 * 1024;
+
+    private final Path directory;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hasData = lock.newCondition();
+    private final Condition written = lock.newCondition();
+    private final Thread flusher;
+
+    // Guarded by lock
+    private byte[] pending = new byte[INITIAL_BUFFER_SIZE];
+    private int pendingSize;
+    private byte[] spare = new byte[INITIAL_BUFFER_SIZE];
+    private FileChannel segment;
+    private boolean syncRequested;
+    private boolean closed;
+    private Throwable failure;
+
+    // Written under lock, read without it
+    private volatile long appendedSequence;
+    private volatile long durableSequence;
+
+    /**
+     * Starts a new segment after the given sequence; existing segments are left to recovery
+     *
+     * @param directory    Journal directory
+     * @param lastSequence Last sequence already stored, the next record gets lastSequence + 1
+     */
+    public CommandJournal(Path directory, long lastSequence) {
+        this.directory = directory;
+        this.appendedSequence = lastSequence;
+        this.durableSequence = lastSequence;
+        this.segment = openSegment(lastSequence + 1);
+
+        this.flusher = new Thread(this::flushLoop, "journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Buffers one record; it is written by the next group commit
+     *
+     * @param body Encoded command
+     * @return Sequence of the record
+     */
+    public long append(byte[] body) {
+        lock.lock();
+        try {
+            while (pendingSize > MAX_PENDING_BYTES && failure == null && !closed) {
+                written.awaitUninterruptibly();
+            }
+            checkOpen();
+
+            int before = pendingSize;
+            ensureCapacity(body.length + recordOverhead(body.length));
+            pendingSize = writeRecord(pending, pendingSize, body);
+
+            // Wakes the flusher to start the commit delay of a new group, or to write a full one
+            if (before == 0 || (before < GROUP_COMMIT_BYTES && pendingSize >= GROUP_COMMIT_BYTES)) {
+                hasData.signal();
+            }
+            return ++appendedSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until the record and every record before it are on disk
+     *
+     * @param sequence Sequence returned by append
+     */
+    public void awaitDurable(long sequence) {
+        if (durableSequence >= sequence) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            syncRequested = true;
+            hasData.signal();
+
+            // The flusher drains everything before it stops, so only a write failure ends the wait early
+            while (durableSequence < sequence) {
+                if (failure != null) {
+                    throw new IllegalStateException("Journal write failed: " + failure.getMessage(), failure);
+                }
+                written.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getAppendedSequence() {
+        return appendedSequence;
+    }
+
+    /**
+     * Syncs the current segment and continues in a new one. The caller must keep appends out
+     * while this runs, so the old segment ends exactly at the returned sequence.
+     *
+     * @return Last sequence of the closed segment
+     */
+    long roll() {
+        long last = getAppendedSequence();
+        awaitDurable(last);
+
+        lock.lock();
+        try {
+            checkOpen();
+            FileChannel previous = segment;
+            segment = openSegment(last + 1);
+            closeQuietly(previous);
+            return last;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            byte[] batch;
+            int size;
+            long sequence;
+            FileChannel channel;
+
+            lock.lock();
+            try {
+                while (pendingSize == 0 && !closed) {
+                    hasData.awaitUninterruptibly();
+                }
+                long remaining = COMMIT_DELAY_NANOS;
+                while (!closed && !syncRequested && pendingSize < GROUP_COMMIT_BYTES && remaining > 0) {
+                    remaining = awaitData(remaining);
+                }
+                if (pendingSize == 0) {
+                    return;
+                }
+
+                syncRequested = false;
+
+                batch = pending;
+                size = pendingSize;
+                pending = spare;
+                pendingSize = 0;
+                spare = batch;
+                sequence = appendedSequence;
+                channel = segment;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(batch, 0, size);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            } catch (IOException | RuntimeException e) {
+                lock.lock();
+                try {
+                    failure = e;
+                    written.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+
+            lock.lock();
+            try {
+                durableSequence = sequence;
+                written.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private long awaitData(long nanos) {
+        try {
+            return hasData.awaitNanos(nanos);
+        } catch (InterruptedException e) {
+            // Nobody interrupts the flusher; if it happens, write the group now
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+    }
+
+    /**
+     * Writes out what is buffered and closes the segment
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            hasData.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeQuietly(segment);
+
+        if (failure != null) {
+            throw new RuntimeException("Journal write failed: " + failure.getMessage(), failure);
+        }
+    }
+
+    // ---- Record format, shared with snapshots ----
+
+    static int recordOverhead(int bodyLength) {
+        int lengthBytes = 1;
+        for (int value = bodyLength >>> 7; value != 0; value >>>= 7) {
+            lengthBytes++;
+        }
+        return lengthBytes + 4;
+    }
+
+    // Returns the new end offset, the array must have room for recordOverhead + body
+    static int writeRecord(byte[] target, int offset, byte[] body) {
+        int length = body.length;
+        while ((length & ~0x7F) != 0) {
+            target[offset++] = (byte) ((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        target[offset++] = (byte) length;
+
+        System.arraycopy(body, 0, target, offset, body.length);
+        offset += body.length;
+
+        int crc = checksum(body);
+        target[offset++] = (byte) (crc >>> 24);
+        target[offset++] = (byte) (crc >>> 16);
+        target[offset++] = (byte) (crc >>> 8);
+        target[offset++] = (byte) crc;
+        return offset;
+    }
+
+    static int checksum(byte[] body) {
+        CRC32C crc = new CRC32C();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Reads the records of a segment or snapshot file in order. Reading stops at the first record
+     * that is cut short or fails its checksum, which is where a crash interrupted a write.
+     *
+     * @param file     File to read
+     * @param consumer Receives each record body
+     * @return Offset just past the last intact record
+     */
+    static long readRecords(Path file, Consumer<byte[]> consumer) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), INITIAL_BUFFER_SIZE)) {
+            long position = 0;
+            while (true) {
+                int length = readLength(in);
+                if (length < 0) {
+                    return position;
+                }
+                byte[] body = in.readNBytes(length);
+                byte[] crc = in.readNBytes(4);
+                if (body.length != length || crc.length != 4) {
+                    return position;
+                }
+                int expected = ((crc[0] & 0xFF) << 24) | ((crc[1] & 0xFF) << 16) | ((crc[2] & 0xFF) << 8) | (crc[3] & 0xFF);
+                if (checksum(body) != expected) {
+                    return position;
+                }
+
+                consumer.accept(body);
+                position += recordOverhead(length) + length;
+            }
+        }
+    }
+
+    // -1 at the end of the file or on a damaged length
+    private static int readLength(InputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                return -1;
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        return -1;
+    }
+
+    static Path segmentPath(Path directory, long firstSequence) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+    }
+
+    // ---- Helpers ----
+
+    private FileChannel openSegment(long firstSequence) {
+        Path path = segmentPath(directory, firstSequence);
+        try {
+            return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open journal segment: " + path, e);
+        }
+    }
+
+    private void ensureCapacity(int extra) {
+        if (pendingSize + extra > pending.length) {
+            pending = Arrays.copyOf(pending, Math.max(pendingSize + extra, pending.length * 2));
+        }
+    }
+
+    private void checkOpen() {
+        if (failure != null) {
+            throw new IllegalStateException("Journal write failed: " + failure.getMessage(), failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Everything in it has already been forced
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.trendyol.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Lock-free latency histogram with HdrHistogram-style log-linear buckets: values below 64 ns get a
+ * bucket each, above that every power of two is split into 32 buckets, so any recorded value is
+ * reported within 1/32 (about 3%) of itself. 1888 buckets cover the whole long range.
+ *
+ * record is a single atomic increment (plus a compare-and-set on a new maximum); count, mean and
+ * percentiles are all derived from a copy of the buckets, so reading while other threads record gives
+ * a slightly stale but usable view.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+    private static final int BUCKET_COUNT = bucketIndex(Long.MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * @param nanos Latency to record, negative values count as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts.incrementAndGet(bucketIndex(value));
+
+        long max = maxNanos.get();
+        while (value > max && !maxNanos.compareAndSet(max, value)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * @return Count, mean and percentiles of what was recorded so far, in nanoseconds
+     */
+    public Summary summarize() {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long count = 0;
+        double total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+            total += snapshot[i] * bucketMidpoint(i);
+        }
+
+        long max = maxNanos.get();
+        return new Summary(count,
+                count == 0 ? 0 : Math.min((long) (total / count), max),
+                percentile(snapshot, count, 50, max),
+                percentile(snapshot, count, 90, max),
+                percentile(snapshot, count, 99, max),
+                percentile(snapshot, count, 99.9, max),
+                max);
+    }
+
+    // Upper end of the bucket holding the value at the percentile, capped by the recorded maximum
+    private static long percentile(long[] snapshot, long count, double percentile, long max) {
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    private static double bucketMidpoint(int index) {
+        return index < LINEAR_LIMIT ? index : (bucketUpperBound(index - 1) + 1 + bucketUpperBound(index)) / 2.0;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+        // The last bucket overflows to Long.MIN_VALUE, minus one is Long.MAX_VALUE
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * @param count Recorded values
+     * @param mean  Average, within the bucket precision
+     * @param p50   Median, within the bucket precision
+     * @param max   Largest value, exact
+     */
+    public record Summary(long count, long mean, long p50, long p90, long p99, long p999, long max) {
+    }
+}
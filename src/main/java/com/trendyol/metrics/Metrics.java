@@ -0,0 +1,179 @@
+package com.trendyol.metrics;
+
+import com.trendyol.command.CartCommand;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Per command type count, error count and latency histogram, plus the time spent choosing promotions
+ * and which promotion won. Recording is lock-free (adders and LatencyHistogram), so the replay
+ * workers and the server's virtual threads share one instance.
+ */
+public class Metrics implements MetricsMXBean {
+
+    public static final String OBJECT_NAME = "com.trendyol:type=Metrics";
+
+    private static final String INVALID = "invalid";
+    private static final String APPLY_BEST_PROMOTION = "applyBestPromotion";
+    private static final List<String> COMMAND_NAMES = List.of(CartCommand.ADD_ITEM,
+            CartCommand.ADD_VAS_ITEM_TO_ITEM, CartCommand.REMOVE_ITEM, CartCommand.RESET_CART,
+            CartCommand.DISPLAY_CART, CartCommand.BATCH, INVALID);
+
+    private final Counters[] commands = new Counters[COMMAND_NAMES.size()];
+    private final Counters promotions = new Counters();
+    private final ConcurrentHashMap<Integer, LongAdder> promotionWins = new ConcurrentHashMap<>();
+
+    public Metrics() {
+        for (int i = 0; i < commands.length; i++) {
+            commands[i] = new Counters();
+        }
+    }
+
+    /**
+     * @param command Executed command
+     * @param nanos   Time it took
+     * @param failed  Whether the response was an error
+     */
+    public void recordCommand(CartCommand command, long nanos, boolean failed) {
+        Counters counters = commands[indexOf(command)];
+        counters.latency.record(nanos);
+        if (failed) {
+            counters.errors.increment();
+        }
+    }
+
+    /**
+     * A line that was not a valid command; counted as an error, there is no latency to record
+     */
+    public void recordRejected() {
+        Counters counters = commands[COMMAND_NAMES.size() - 1];
+        counters.untimed.increment();
+        counters.errors.increment();
+    }
+
+    /**
+     * @param promotionId Applied promotion, 0 for none
+     * @param nanos       Time applyBestPromotion took
+     */
+    public void recordPromotion(int promotionId, long nanos) {
+        promotions.latency.record(nanos);
+
+        LongAdder wins = promotionWins.get(promotionId);
+        if (wins == null) {
+            wins = promotionWins.computeIfAbsent(promotionId, id -> new LongAdder());
+        }
+        wins.increment();
+    }
+
+    /**
+     * Registers this instance with the platform MBean server, replacing an earlier registration
+     */
+    public void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            throw new RuntimeException("Failed to register MBean " + OBJECT_NAME, e);
+        }
+    }
+
+    @Override
+    public List<Statistics> getCommands() {
+        List<Statistics> statistics = new ArrayList<>(commands.length);
+        for (int i = 0; i < commands.length; i++) {
+            statistics.add(commands[i].statistics(COMMAND_NAMES.get(i)));
+        }
+        return statistics;
+    }
+
+    @Override
+    public Statistics getPromotions() {
+        return promotions.statistics(APPLY_BEST_PROMOTION);
+    }
+
+    @Override
+    public Map<Integer, Long> getPromotionWins() {
+        Map<Integer, Long> wins = new TreeMap<>();
+        promotionWins.forEach((promotionId, count) -> wins.put(promotionId, count.sum()));
+        return wins;
+    }
+
+    @Override
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format("%-20s %10s %8s %9s %9s %9s %9s %9s %9s%n", "Latency (us)", "count", "errors",
+                "mean", "p50", "p90", "p99", "p99.9", "max"));
+        for (Statistics statistics : getCommands()) {
+            if (statistics.count() == 0) {
+                continue;
+            }
+            if (statistics.name().equals(INVALID)) {
+                // Rejected while parsing, never timed
+                summary.append(String.format("%-20s %10d %8d %9s %9s %9s %9s %9s %9s%n", INVALID, statistics.count(),
+                        statistics.errors(), "-", "-", "-", "-", "-", "-"));
+            } else {
+                appendRow(summary, statistics);
+            }
+        }
+        appendRow(summary, getPromotions());
+
+        summary.append("Winning promotions (0 = none):");
+        getPromotionWins().forEach((promotionId, count) -> summary.append(' ').append(promotionId).append('=').append(count));
+        return summary.toString();
+    }
+
+    private static void appendRow(StringBuilder summary, Statistics statistics) {
+        summary.append(String.format("%-20s %10d %8d %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n", statistics.name(),
+                statistics.count(), statistics.errors(), statistics.meanMicros(), statistics.p50Micros(),
+                statistics.p90Micros(), statistics.p99Micros(), statistics.p999Micros(), statistics.maxMicros()));
+    }
+
+    private static int indexOf(CartCommand command) {
+        return switch (command) {
+            case CartCommand.AddItem addItem -> 0;
+            case CartCommand.AddVasItemToItem addVasItem -> 1;
+            case CartCommand.RemoveItem removeItem -> 2;
+            case CartCommand.ResetCart resetCart -> 3;
+            case CartCommand.DisplayCart displayCart -> 4;
+            case CartCommand.Batch batch -> 5;
+        };
+    }
+
+    private static final class Counters {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        // Occurrences without a latency, only rejected lines
+        private final LongAdder untimed = new LongAdder();
+
+        Statistics statistics(String name) {
+            LatencyHistogram.Summary summary = latency.summarize();
+            return new Statistics(name, summary.count() + untimed.sum(), errors.sum(), micros(summary.mean()), micros(summary.p50()),
+                    micros(summary.p90()), micros(summary.p99()), micros(summary.p999()), micros(summary.max()));
+        }
+
+        private static double micros(long nanos) {
+            return nanos / 1e3;
+        }
+    }
+
+    /**
+     * Snapshot of one command type; latencies in microseconds, percentiles within about 3%
+     */
+    public record Statistics(String name, long count, long errors, double meanMicros, double p50Micros,
+                             double p90Micros, double p99Micros, double p999Micros, double maxMicros) {
+    }
+}
@@ -0,0 +1,22 @@
+package com.trendyol.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+/*
+ * JMX view of Metrics, registered as com.trendyol:type=Metrics (see jconsole / VisualVM)
+ */
+public interface MetricsMXBean {
+
+    // One entry per command type, in CartCommand order, followed by rejected lines
+    List<Metrics.Statistics> getCommands();
+
+    // PromotionService.applyBestPromotion calls
+    Metrics.Statistics getPromotions();
+
+    // Winning promotion id -> times it won, 0 when no promotion applied
+    Map<Integer, Long> getPromotionWins();
+
+    // Same table as printed at the end of a run
+    String getSummary();
+}
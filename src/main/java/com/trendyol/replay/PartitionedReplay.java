@@ -0,0 +1,287 @@
+package com.trendyol.replay;
+
+import com.trendyol.command.CommandProcessor;
+import com.trendyol.command.CartCommand;
+import com.trendyol.command.CommandResponse;
+import com.trendyol.command.ParsedCommand;
+import com.trendyol.io.InputReader;
+import com.trendyol.io.JsonMapper;
+import com.trendyol.io.MappedInputReader;
+import com.trendyol.io.StreamingOutputWriter;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/*
+ * Replays a command file on several worker threads.
+ *
+ * Commands are hashed by cartId onto the workers, so all commands of one cart run on the
+ * same thread and keep their relative order. Responses are collected in a bounded window
+ * indexed by input sequence and written back in input order by a dedicated writer thread.
+ * The reader blocks once the window is full, so memory stays bounded for any input size.
+ *
+ * The first failure of any thread (reader, worker or writer) stops the run: blocked threads check it
+ * while they wait, so a failed writer or a dead worker ends the run with its error instead of a hang.
+ */
+public class PartitionedReplay {
+
+    private static final int QUEUE_CAPACITY = 1024;
+    // How often a blocked thread checks for a failure
+    private static final long POLL_MILLIS = 10;
+    private static final int DEFAULT_WINDOW_SIZE = 16 * 1024;
+
+    private final CommandProcessor processor;
+    private final JsonMapper jsonMapper;
+    private final int workerCount;
+    private final int windowSize;
+
+    public PartitionedReplay(CommandProcessor processor, JsonMapper jsonMapper, int workerCount) {
+        this(processor, jsonMapper, workerCount, DEFAULT_WINDOW_SIZE);
+    }
+
+    public PartitionedReplay(CommandProcessor processor, JsonMapper jsonMapper, int workerCount, int windowSize) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("Worker count must be at least 1");
+        }
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("Window size must be at least 1");
+        }
+
+        this.processor = processor;
+        this.jsonMapper = jsonMapper;
+        this.workerCount = workerCount;
+        this.windowSize = windowSize;
+    }
+
+    public void run(InputReader inputReader, String inputFilePath, StreamingOutputWriter outputWriter) {
+        replay(commands -> inputReader.forEachLine(inputFilePath,
+                line -> commands.accept(processor.parse(line))), outputWriter);
+    }
+
+    /**
+     * Same as run with an InputReader, but lines are also parsed ahead on the reader's threads
+     */
+    public void run(MappedInputReader inputReader, String inputFilePath, StreamingOutputWriter outputWriter) {
+        replay(commands -> inputReader.forEachLine(inputFilePath,
+                (buffer, start, end) -> processor.parse(MappedInputReader.decode(buffer, start, end)),
+                commands), outputWriter);
+    }
+
+    // input pushes the parsed lines in file order to the consumer it is given
+    private void replay(Consumer<Consumer<ParsedCommand>> input, StreamingOutputWriter outputWriter) {
+        AtomicReferenceArray<String> window = new AtomicReferenceArray<>(windowSize);
+        Semaphore freeSlots = new Semaphore(windowSize);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        ResponseWriter writer = new ResponseWriter(window, freeSlots, outputWriter, failure);
+        writer.start();
+
+        Worker[] workers = new Worker[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Worker(i, window, writer, failure);
+            workers[i].start();
+        }
+
+        long[] sequence = {0};
+        try {
+            input.accept(parsed -> {
+                acquire(freeSlots, failure);
+                long seq = sequence[0]++;
+
+                if (parsed.isRejected()) {
+                    // Rejected lines never touch a cart, answer them right away
+                    publish(window, seq, serialize(parsed.rejection()));
+                    writer.wakeUp();
+                    return;
+                }
+
+                CartCommand command = parsed.command();
+                workers[partitionOf(command.cartId())].submit(new Task(seq, command));
+            });
+        } catch (RuntimeException e) {
+            // Reported below, unless another thread failed first and caused it
+            failure.compareAndSet(null, e);
+        } finally {
+            for (Worker worker : workers) {
+                worker.submit(Task.END);
+            }
+            joinAll(workers);
+            writer.finish(sequence[0]);
+            join(writer);
+        }
+
+        Throwable error = failure.get();
+        if (error != null) {
+            throw new RuntimeException("Replay failed: " + error.getMessage(), error);
+        }
+    }
+
+    private int partitionOf(int cartId) {
+        // Spread consecutive cartIds over the workers
+        int hash = cartId * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), workerCount);
+    }
+
+    private String serialize(CommandResponse response) {
+        return jsonMapper.toJson(response);
+    }
+
+    private void publish(AtomicReferenceArray<String> window, long seq, String json) {
+        window.set((int) (seq % windowSize), json);
+    }
+
+    // Blocks for a free slot of the window until the run fails
+    private static void acquire(Semaphore semaphore, AtomicReference<Throwable> failure) {
+        try {
+            do {
+                if (failure.get() != null) {
+                    throw new IllegalStateException("Replay stopped");
+                }
+            } while (!semaphore.tryAcquire(POLL_MILLIS, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Replay interrupted", e);
+        }
+    }
+
+    private static void joinAll(Thread[] threads) {
+        for (Thread thread : threads) {
+            join(thread);
+        }
+    }
+
+    private static void join(Thread thread) {
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Replay interrupted", e);
+        }
+    }
+
+    private record Task(long sequence, CartCommand command) {
+        static final Task END = new Task(-1, null);
+    }
+
+    private final class Worker extends Thread {
+
+        private final BlockingQueue<Task> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final AtomicReferenceArray<String> window;
+        private final ResponseWriter writer;
+        private final AtomicReference<Throwable> failure;
+
+        Worker(int index, AtomicReferenceArray<String> window, ResponseWriter writer,
+               AtomicReference<Throwable> failure) {
+            super("replay-worker-" + index);
+            setDaemon(true);
+            this.window = window;
+            this.writer = writer;
+            this.failure = failure;
+        }
+
+        // Dropped if the worker has died, its failure stops the run
+        void submit(Task task) {
+            try {
+                while (!queue.offer(task, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (!isAlive()) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Replay interrupted", e);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    Task task = queue.take();
+                    if (task == Task.END) {
+                        return;
+                    }
+
+                    String json;
+                    try {
+                        json = serialize(processor.execute(task.command()));
+                    } catch (Exception e) {
+                        failure.compareAndSet(null, e);
+                        json = serialize(CommandResponse.error("Error processing command: " + e.getMessage()));
+                    }
+
+                    publish(window, task.sequence(), json);
+                    writer.wakeUp();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable e) {
+                // The writer would wait for this worker's sequences forever
+                failure.compareAndSet(null, e);
+                writer.wakeUp();
+            }
+        }
+    }
+
+    private final class ResponseWriter extends Thread {
+
+        private final AtomicReferenceArray<String> window;
+        private final Semaphore freeSlots;
+        private final StreamingOutputWriter outputWriter;
+        private final AtomicReference<Throwable> failure;
+        private volatile long total = Long.MAX_VALUE;
+
+        ResponseWriter(AtomicReferenceArray<String> window, Semaphore freeSlots,
+                       StreamingOutputWriter outputWriter, AtomicReference<Throwable> failure) {
+            super("replay-writer");
+            setDaemon(true);
+            this.window = window;
+            this.freeSlots = freeSlots;
+            this.outputWriter = outputWriter;
+            this.failure = failure;
+        }
+
+        void wakeUp() {
+            LockSupport.unpark(this);
+        }
+
+        void finish(long totalCount) {
+            total = totalCount;
+            wakeUp();
+        }
+
+        @Override
+        public void run() {
+            try {
+                long seq = 0;
+                while (seq < total) {
+                    int slot = (int) (seq % windowSize);
+                    String json = window.get(slot);
+
+                    if (json == null) {
+                        if (failure.get() != null) {
+                            return;
+                        }
+                        // Not produced yet, a worker or finish() unparks us
+                        LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(POLL_MILLIS));
+                        continue;
+                    }
+
+                    window.set(slot, null);
+                    outputWriter.writeLine(json);
+                    freeSlots.release();
+                    seq++;
+                }
+            } catch (Throwable e) {
+                // The reader sees it while waiting for a free slot
+                failure.compareAndSet(null, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.trendyol.replay;
+
+import com.trendyol.command.CommandProcessor;
+import com.trendyol.command.CommandResponse;
+import com.trendyol.command.ParsedCommand;
+import com.trendyol.io.InputReader;
+import com.trendyol.io.JsonMapper;
+import com.trendyol.io.StreamingOutputWriter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Replays a command file as a pipeline: parse -> apply -> serialize -> write.
+ *
+ * Only the apply stage touches carts and runs on a single thread, in input order. Parsing and
+ * serialization run on worker pools on either side of it; worker i of a pool handles the sequences
+ * congruent to i, so workers never contend for work. All stages share one preallocated ring of slots:
+ * each slot moves through the stages by its state field, and the reader only reuses a slot once the
+ * writer has written it, which bounds memory and applies backpressure to the reader.
+ *
+ * Output is byte-identical to the sequential mode: the writer emits sequences strictly in order.
+ */
+public class PipelinedReplay {
+
+    private static final int DEFAULT_RING_SIZE = 4096;
+
+    // Slot states, in stage order
+    private static final int FREE = 0;
+    private static final int READ = 1;
+    private static final int PARSED = 2;
+    private static final int APPLIED = 3;
+    private static final int SERIALIZED = 4;
+
+    // Idle strategy of a stage waiting for its next slot
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 200;
+    private static final long PARK_NANOS = 50_000;
+
+    private final CommandProcessor processor;
+    private final JsonMapper jsonMapper;
+    private final int parseThreads;
+    private final int serializeThreads;
+    private final int ringSize;
+
+    public PipelinedReplay(CommandProcessor processor, JsonMapper jsonMapper, int workerThreads) {
+        this(processor, jsonMapper, workerThreads, workerThreads, DEFAULT_RING_SIZE);
+    }
+
+    /**
+     * @param parseThreads     Threads of the parse stage
+     * @param serializeThreads Threads of the serialize stage
+     * @param ringSize         Slots shared by the stages, rounded up to a power of two
+     */
+    public PipelinedReplay(CommandProcessor processor, JsonMapper jsonMapper,
+                           int parseThreads, int serializeThreads, int ringSize) {
+        if (parseThreads < 1 || serializeThreads < 1) {
+            throw new IllegalArgumentException("Worker count must be at least 1");
+        }
+        if (ringSize < 1) {
+            throw new IllegalArgumentException("Ring size must be at least 1");
+        }
+
+        this.processor = processor;
+        this.jsonMapper = jsonMapper;
+        this.parseThreads = parseThreads;
+        this.serializeThreads = serializeThreads;
+        int size = 1;
+        while (size < ringSize) {
+            size <<= 1;
+        }
+        this.ringSize = size;
+    }
+
+    public void run(InputReader inputReader, String inputFilePath, StreamingOutputWriter outputWriter) {
+        Ring ring = new Ring(ringSize);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < parseThreads; i++) {
+            threads.add(startStage("pipeline-parse-" + i, ring, i, parseThreads, READ, PARSED, slot -> {
+                slot.parsed = processor.parse(slot.line);
+                slot.line = null;
+            }));
+        }
+        threads.add(startStage("pipeline-apply", ring, 0, 1, PARSED, APPLIED, slot -> {
+            slot.response = processor.process(slot.parsed);
+            slot.parsed = null;
+        }));
+        for (int i = 0; i < serializeThreads; i++) {
+            threads.add(startStage("pipeline-serialize-" + i, ring, i, serializeThreads, APPLIED, SERIALIZED, slot -> {
+                slot.json = jsonMapper.toJson(slot.response);
+                slot.response = null;
+            }));
+        }
+        threads.add(startStage("pipeline-writer", ring, 0, 1, SERIALIZED, FREE, slot -> {
+            outputWriter.writeLine(slot.json);
+            slot.json = null;
+        }));
+
+        long[] sequence = {0};
+        try {
+            inputReader.forEachLine(inputFilePath, line -> {
+                long seq = sequence[0]++;
+                Slot slot = ring.claim(seq);
+                slot.line = line;
+                slot.publish(seq, READ);
+            });
+        } catch (RuntimeException e) {
+            ring.fail(e);
+        } finally {
+            ring.finish(sequence[0]);
+            for (Thread thread : threads) {
+                join(thread);
+            }
+        }
+
+        Throwable error = ring.failure.get();
+        if (error != null) {
+            throw new RuntimeException("Replay failed: " + error.getMessage(), error);
+        }
+    }
+
+    private Thread startStage(String name, Ring ring, int first, int step, int fromState, int toState, Stage stage) {
+        Thread thread = new Thread(() -> {
+            try {
+                for (long seq = first; ; seq += step) {
+                    Slot slot = ring.await(seq, fromState);
+                    if (slot == null) {
+                        return;
+                    }
+
+                    stage.process(slot);
+
+                    if (toState == FREE) {
+                        ring.release(seq, slot);
+                    } else {
+                        slot.state = toState;
+                    }
+                }
+            } catch (Throwable e) {
+                ring.fail(e);
+            }
+        }, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static void join(Thread thread) {
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Replay interrupted", e);
+        }
+    }
+
+    private static int idle(int attempt) {
+        if (attempt < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else if (attempt < YIELD_TRIES) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+        return attempt + 1;
+    }
+
+    @FunctionalInterface
+    private interface Stage {
+        void process(Slot slot);
+    }
+
+    /*
+     * Fields are written by the stage owning the slot and published by the volatile write of state;
+     * the next stage reads state first, then the fields.
+     */
+    private static final class Slot {
+        volatile int state = FREE;
+        volatile long sequence = -1;
+
+        String line;
+        ParsedCommand parsed;
+        CommandResponse response;
+        String json;
+
+        void publish(long seq, int newState) {
+            sequence = seq;
+            state = newState;
+        }
+    }
+
+    private static final class Ring {
+
+        private final Slot[] slots;
+        private final int mask;
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        // Written only by the writer stage: every sequence below it has been written out
+        private volatile long released;
+
+        // Number of lines, known once the reader is done
+        private volatile long total = Long.MAX_VALUE;
+
+        Ring(int size) {
+            this.slots = new Slot[size];
+            this.mask = size - 1;
+            for (int i = 0; i < size; i++) {
+                slots[i] = new Slot();
+            }
+        }
+
+        // Reader side: blocks while the ring is full
+        Slot claim(long seq) {
+            for (int attempt = 0; seq - released >= slots.length; ) {
+                if (failure.get() != null) {
+                    throw new IllegalStateException("Pipeline stopped");
+                }
+                attempt = idle(attempt);
+            }
+            return slots[(int) (seq & mask)];
+        }
+
+        // Slot of seq once it reached the state, null when there is no such sequence or the run failed
+        Slot await(long seq, int state) {
+            Slot slot = slots[(int) (seq & mask)];
+            for (int attempt = 0; ; ) {
+                if (slot.state == state && slot.sequence == seq) {
+                    return slot;
+                }
+                if (seq >= total || failure.get() != null) {
+                    return null;
+                }
+                attempt = idle(attempt);
+            }
+        }
+
+        void release(long seq, Slot slot) {
+            slot.state = FREE;
+            released = seq + 1;
+        }
+
+        void finish(long count) {
+            total = count;
+        }
+
+        void fail(Throwable e) {
+            failure.compareAndSet(null, e);
+        }
+    }
+}
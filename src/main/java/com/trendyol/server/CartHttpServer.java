@@ -0,0 +1,127 @@
+package com.trendyol.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.trendyol.command.CommandProcessor;
+import com.trendyol.command.CommandResponse;
+import com.trendyol.command.ParsedCommand;
+import com.trendyol.io.JsonMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * HTTP front end on the JDK's built-in server: POST /commands with one command line as the body,
+ * answered with the same JSON the file mode writes for that line.
+ *
+ *   curl -d '{"command":"displayCart","cartId":42}' http://localhost:8080/commands
+ *
+ * Every exchange runs on its own virtual thread, so idle keep-alive connections and requests waiting
+ * for a busy cart do not hold platform threads. Parsing and serialization run unlocked; only the
+ * command itself runs under the lock of its cart, so commands of one cart never interleave. With
+ * snapshot reads (CartReadMode.SNAPSHOT) displayCart takes no lock and never waits for a writer.
+ */
+public class CartHttpServer {
+
+    public static final String COMMANDS_PATH = "/commands";
+
+    private static final int BACKLOG = 4096;
+    private static final String MAX_IDLE_CONNECTIONS = "sun.net.httpserver.maxIdleConnections";
+
+    static {
+        // The built-in server closes keep-alive connections beyond 200 idle ones (JDK default), which
+        // makes clients fail on reused connections; read once, so it has to be set before the first server
+        if (System.getProperty(MAX_IDLE_CONNECTIONS) == null) {
+            System.setProperty(MAX_IDLE_CONNECTIONS, "100000");
+        }
+    }
+
+    private final CommandProcessor processor;
+    private final JsonMapper jsonMapper;
+    private final CartLocks cartLocks;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public CartHttpServer(CommandProcessor processor, JsonMapper jsonMapper, int port) throws IOException {
+        this.processor = processor;
+        this.jsonMapper = jsonMapper;
+        this.cartLocks = new CartLocks();
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        this.server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        this.server.setExecutor(executor);
+        this.server.createContext(COMMANDS_PATH, this::handleCommand);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    // Bound port, useful when started on port 0
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests, waits up to delaySeconds for the running ones
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.close();
+    }
+
+    /**
+     * Same result as CommandProcessor.process, safe for concurrent callers. With a journal the
+     * response is only returned once the command is on disk; the wait happens outside the cart lock,
+     * so the requests waiting for the same fsync do not hold up each other.
+     *
+     * @param jsonLine Command line
+     * @return Response of the command
+     */
+    public CommandResponse process(String jsonLine) {
+        ParsedCommand parsed = processor.parse(jsonLine);
+        if (parsed.isRejected()) {
+            return parsed.rejection();
+        }
+
+        if (processor.isLockFree(parsed.command())) {
+            return processor.execute(parsed.command());
+        }
+
+        CommandResponse response;
+        ReentrantLock lock = cartLocks.lockFor(parsed.command().cartId());
+        lock.lock();
+        try {
+            response = processor.execute(parsed.command());
+        } finally {
+            lock.unlock();
+        }
+
+        processor.awaitDurable();
+        return response;
+    }
+
+    private void handleCommand(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8).trim();
+            byte[] json = jsonMapper.toJson(process(body)).getBytes(StandardCharsets.UTF_8);
+
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(200, json.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(json);
+            }
+        }
+    }
+}
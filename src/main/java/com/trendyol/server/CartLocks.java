@@ -0,0 +1,42 @@
+package com.trendyol.server;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Striped locks serializing the commands of each cart. Several carts may share a stripe, one cart
+ * always maps to the same stripe. ReentrantLock rather than synchronized, so a virtual thread waiting
+ * for a cart unmounts from its carrier instead of pinning it.
+ */
+public class CartLocks {
+
+    private static final int DEFAULT_STRIPES = 1024;
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    public CartLocks() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param stripes Number of locks, rounded up to a power of two
+     */
+    public CartLocks(int stripes) {
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+
+        this.locks = new ReentrantLock[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public ReentrantLock lockFor(int cartId) {
+        // Spread consecutive cartIds over the stripes
+        int hash = cartId * 0x9E3779B9;
+        return locks[(hash ^ (hash >>> 16)) & mask];
+    }
+}
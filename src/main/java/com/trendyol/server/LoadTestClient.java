@@ -0,0 +1,172 @@
+package com.trendyol.server;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Local load generator for CartHttpServer. Each client is a virtual thread sending its requests back
+ * to back over keep-alive connections, a mix of addItem, removeItem and displayCart on random carts.
+ * Prints throughput and latency percentiles.
+ *
+ * Usage: java com.trendyol.server.LoadTestClient [--url=http://localhost:8080/commands]
+ *        [--clients=1000] [--requests=100] [--carts=1000] [--warmup=10]
+ */
+public class LoadTestClient {
+
+    private final URI uri;
+    private final int clients;
+    private final int requestsPerClient;
+    private final int carts;
+    private final int warmupPerClient;
+
+    public LoadTestClient(URI uri, int clients, int requestsPerClient, int carts, int warmupPerClient) {
+        this.uri = uri;
+        this.clients = clients;
+        this.requestsPerClient = requestsPerClient;
+        this.carts = carts;
+        this.warmupPerClient = warmupPerClient;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = "http://localhost:8080" + CartHttpServer.COMMANDS_PATH;
+        int clients = 1000;
+        int requests = 100;
+        int carts = 1000;
+        int warmup = 10;
+
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            String value = arg.substring(separator + 1);
+            switch (arg.substring(2, separator)) {
+                case "url" -> url = value;
+                case "clients" -> clients = Integer.parseInt(value);
+                case "requests" -> requests = Integer.parseInt(value);
+                case "carts" -> carts = Integer.parseInt(value);
+                case "warmup" -> warmup = Integer.parseInt(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+
+        new LoadTestClient(URI.create(url), clients, requests, carts, warmup).run();
+    }
+
+    public void run() throws Exception {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        AtomicLong failures = new AtomicLong();
+
+        List<Future<long[]>> results = new ArrayList<>(clients);
+        long started;
+        long finished;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            started = System.nanoTime();
+            for (int c = 0; c < clients; c++) {
+                long seed = c;
+                results.add(executor.submit(() -> runClient(httpClient, seed, failures)));
+            }
+
+            // Closing the executor waits for every client
+        }
+        finished = System.nanoTime();
+
+        long[] latencies = merge(results);
+        Arrays.sort(latencies);
+
+        double seconds = (finished - started) / 1e9;
+        System.out.printf("Requests: %d (%d clients, %d failed) in %.2f s, %.0f req/s%n",
+                latencies.length, clients, failures.get(), seconds, latencies.length / seconds);
+        System.out.printf("Latency  p50 %.3f ms  p90 %.3f ms  p99 %.3f ms  p99.9 %.3f ms  max %.3f ms%n",
+                millis(percentile(latencies, 50)), millis(percentile(latencies, 90)),
+                millis(percentile(latencies, 99)), millis(percentile(latencies, 99.9)),
+                millis(latencies.length == 0 ? 0 : latencies[latencies.length - 1]));
+    }
+
+    // Latencies in nanoseconds of the measured requests of one client
+    private long[] runClient(HttpClient httpClient, long seed, AtomicLong failures) {
+        Random random = new Random(seed);
+        long[] latencies = new long[requestsPerClient];
+
+        for (int i = 0; i < warmupPerClient + requestsPerClient; i++) {
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .POST(HttpRequest.BodyPublishers.ofString(nextCommand(random)))
+                    .build();
+
+            long start = System.nanoTime();
+            try {
+                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() != 200) {
+                    failures.incrementAndGet();
+                }
+            } catch (Exception e) {
+                failures.incrementAndGet();
+            }
+            long elapsed = System.nanoTime() - start;
+
+            if (i >= warmupPerClient) {
+                latencies[i - warmupPerClient] = elapsed;
+            }
+        }
+        return latencies;
+    }
+
+    private String nextCommand(Random random) {
+        int cartId = random.nextInt(carts);
+        int itemId = random.nextInt(10);
+        double r = random.nextDouble();
+
+        if (r < 0.5) {
+            return "{\"command\":\"addItem\",\"cartId\":" + cartId + ",\"payload\":{\"itemId\":" + itemId
+                    + ",\"categoryId\":1001,\"sellerId\":500,\"price\":100.0,\"quantity\":1}}";
+        } else if (r < 0.7) {
+            return "{\"command\":\"removeItem\",\"cartId\":" + cartId + ",\"payload\":{\"itemId\":" + itemId + "}}";
+        }
+        return "{\"command\":\"displayCart\",\"cartId\":" + cartId + "}";
+    }
+
+    private static long[] merge(List<Future<long[]>> results) throws Exception {
+        List<long[]> parts = new ArrayList<>(results.size());
+        int total = 0;
+        for (Future<long[]> result : results) {
+            long[] part = result.get();
+            parts.add(part);
+            total += part.length;
+        }
+
+        long[] merged = new long[total];
+        int offset = 0;
+        for (long[] part : parts) {
+            System.arraycopy(part, 0, merged, offset, part.length);
+            offset += part.length;
+        }
+        return merged;
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
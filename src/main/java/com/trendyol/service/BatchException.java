@@ -0,0 +1,47 @@
+package com.trendyol.service;
+
+import com.trendyol.domain.exception.ErrorCode;
+
+/*
+ * An operation of a batch failed; the cart has already been rolled back to its state before the batch.
+ * Either the cart rules rejected the operation (getError), or it raised an exception (the cause).
+ */
+public class BatchException extends RuntimeException {
+
+    private final int failedIndex;
+    private final ErrorCode error;
+    private final int itemId;
+
+    public BatchException(int failedIndex, RuntimeException cause) {
+        super("Batch operation " + failedIndex + " failed: " + cause.getMessage(), cause);
+        this.failedIndex = failedIndex;
+        this.error = null;
+        this.itemId = 0;
+    }
+
+    /**
+     * A rejection is an expected outcome of a batch: no cause and no stack trace
+     *
+     * @param itemId Item of the rejected operation, see ErrorCode.message(int)
+     */
+    public BatchException(int failedIndex, ErrorCode error, int itemId) {
+        super("Batch operation " + failedIndex + " failed: " + error.message(itemId), null, false, false);
+        this.failedIndex = failedIndex;
+        this.error = error;
+        this.itemId = itemId;
+    }
+
+    // Position of the failing operation in the batch
+    public int getFailedIndex() {
+        return failedIndex;
+    }
+
+    // Why the cart rules rejected the operation, null if it failed with an exception
+    public ErrorCode getError() {
+        return error;
+    }
+
+    public int getItemId() {
+        return itemId;
+    }
+}
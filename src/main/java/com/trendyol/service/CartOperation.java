@@ -0,0 +1,20 @@
+package com.trendyol.service;
+
+/*
+ * A single cart mutation inside a batch, see CartService.applyBatch.
+ */
+public sealed interface CartOperation {
+
+    // Item the operation is about, for a VasItem the item it is added to
+    int itemId();
+
+    record AddItem(int itemId, int categoryId, int sellerId, long price, int quantity) implements CartOperation {
+    }
+
+    record AddVasItemToItem(int itemId, int vasItemId, int vasCategoryId, int vasSellerId,
+                            long price, int quantity) implements CartOperation {
+    }
+
+    record RemoveItem(int itemId) implements CartOperation {
+    }
+}
@@ -0,0 +1,13 @@
+package com.trendyol.service;
+
+/*
+ * How displayCart and other reads of a cart see its state.
+ */
+public enum CartReadMode {
+
+    // Built from the live cart, so the reader must hold the cart like a writer (lock or owning thread)
+    LOCKED,
+
+    // The immutable CartSnapshot published after the last change, read without any lock
+    SNAPSHOT
+}
@@ -0,0 +1,49 @@
+package com.trendyol.service;
+
+import com.trendyol.domain.cart.Cart;
+
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+/*
+ * Holds one Cart per cartId. Carts are created on first access.
+ * Thread-safe for lookups; a single Cart is still expected to be mutated by one thread at a time.
+ */
+public interface CartRegistry extends AutoCloseable {
+
+    /**
+     * The cart of cartId, created on first access. It stays the live cart of its cartId until the
+     * matching release, so a command can use it without a registry moving it elsewhere meanwhile.
+     *
+     * @return Cart to use, then pass to release
+     */
+    Cart acquire(int cartId);
+
+    /**
+     * Ends the use of a cart returned by acquire
+     */
+    void release(Cart cart);
+
+    /**
+     * acquire and release in one step, for single-threaded callers such as tests. The returned cart
+     * may stop being the live one once other carts are acquired, see TieredCartRegistry.
+     */
+    Cart getOrCreate(int cartId);
+
+    Optional<Cart> find(int cartId);
+
+    /**
+     * Visits every cart
+     *
+     * @param action Receives the cartId and the cart
+     */
+    void forEach(BiConsumer<Integer, Cart> action);
+
+    int size();
+
+    /**
+     * Saves what has to outlive the registry and releases its storage
+     */
+    @Override
+    void close();
+}
@@ -1,56 +1,317 @@
 package com.trendyol.service;
 
 import com.trendyol.domain.cart.Cart;
+import com.trendyol.domain.cart.CartSnapshot;
+import com.trendyol.domain.exception.ErrorCode;
 import com.trendyol.domain.item.DefaultItem;
 import com.trendyol.domain.item.DigitalItem;
 import com.trendyol.domain.item.Item;
 import com.trendyol.domain.item.VasItem;
 import com.trendyol.domain.promotion.PromotionService;
+import com.trendyol.store.CartStore;
+import com.trendyol.store.OffHeapCartStore;
 
-public class CartService {
+import java.util.ArrayList;
+import java.util.List;
+
+public class CartService implements AutoCloseable {
+
+    public static final int DEFAULT_CART_ID = 0;
 
     private static final int DIGITAL_CATEGORY_ID = 7889;
 
-    private final Cart cart;
+    private final CartRegistry cartRegistry;
     private final PromotionService promotionService;
+    private final PromotionMode promotionMode;
+    private final CartReadMode readMode;
 
     public CartService() {
-        this.cart = new Cart();
-        this.promotionService = new PromotionService();
+        this(PromotionMode.EAGER);
     }
 
-    public boolean addItem(int itemId, int categoryId, int sellerId, double price, int quantity) {
-        Item item = createItem(itemId, categoryId, sellerId, price, quantity);
-        cart.addItem(item);
-        applyPromotions();
+    public CartService(PromotionMode promotionMode) {
+        this(promotionMode, new PromotionService());
+    }
+
+    public CartService(PromotionMode promotionMode, PromotionService promotionService) {
+        this(promotionMode, promotionService, CartReadMode.LOCKED);
+    }
+
+    /**
+     * @param readMode SNAPSHOT lets displayCart and getTotalAmount run on any thread without the cart's
+     *                 lock, at the cost of one snapshot copy per successful mutation
+     */
+    public CartService(PromotionMode promotionMode, PromotionService promotionService, CartReadMode readMode) {
+        this(promotionMode, promotionService, readMode, 0);
+    }
+
+    /**
+     * @param maxResidentCarts Above 0 only this many carts stay on the heap, idle ones are moved to an
+     *                         OffHeapCartStore (see TieredCartRegistry); 0 keeps every cart on the heap
+     */
+    public CartService(PromotionMode promotionMode, PromotionService promotionService, CartReadMode readMode,
+                       int maxResidentCarts) {
+        this(promotionMode, promotionService, readMode, ResidencyLimits.ofCarts(maxResidentCarts), null);
+    }
+
+    /**
+     * @param limits What stays on the heap; with any bound the rest is moved to the store (see
+     *               TieredCartRegistry), UNBOUNDED without a store keeps every cart on the heap
+     * @param store  Holds the carts that are not on the heap instead of an OffHeapCartStore, a
+     *               persistent one also receives every change; owned by the service from now on, null
+     *               for none
+     */
+    public CartService(PromotionMode promotionMode, PromotionService promotionService, CartReadMode readMode,
+                       ResidencyLimits limits, CartStore store) {
+        this.promotionService = promotionService;
+        this.promotionMode = promotionMode;
+        this.readMode = readMode;
+        if (store != null) {
+            this.cartRegistry = new TieredCartRegistry(this::newCart, store, limits);
+        } else if (limits.isBounded()) {
+            this.cartRegistry = new TieredCartRegistry(this::newCart, new OffHeapCartStore(), limits);
+        } else {
+            this.cartRegistry = new InMemoryCartRegistry(this::newCart);
+        }
+    }
+
+    public boolean addItem(int itemId, int categoryId, int sellerId, long price, int quantity) {
+        return addItem(DEFAULT_CART_ID, itemId, categoryId, sellerId, price, quantity);
+    }
+
+    public boolean addItem(int cartId, int itemId, int categoryId, int sellerId, long price, int quantity) {
+        ErrorCode error = tryAddItem(cartId, itemId, categoryId, sellerId, price, quantity);
+        if (error.isRejection()) {
+            throw error.toException(itemId);
+        }
         return true;
     }
 
-    public boolean addVasItemToItem(int itemId, int vasItemId, int vasCategoryId, int vasSellerId, double price, int quantity) {
-        VasItem vasItem = new VasItem(vasItemId, vasCategoryId, vasSellerId, price, quantity);
-        cart.addVasItemToItem(itemId, vasItem);
-        applyPromotions();
+    /**
+     * addItem without the exceptions for a rejected item
+     *
+     * @return NONE if the item was added, otherwise why the cart is unchanged
+     */
+    public ErrorCode tryAddItem(int cartId, int itemId, int categoryId, int sellerId, long price, int quantity) {
+        Cart cart = cartRegistry.acquire(cartId);
+        try {
+            ErrorCode error = cart.tryAddItem(itemId, categoryId, sellerId, price, quantity,
+                    categoryId == DIGITAL_CATEGORY_ID);
+            if (!error.isRejection()) {
+                changed(cart);
+            }
+            return error;
+        } finally {
+            cartRegistry.release(cart);
+        }
+    }
+
+    public boolean addVasItemToItem(int itemId, int vasItemId, int vasCategoryId, int vasSellerId, long price, int quantity) {
+        return addVasItemToItem(DEFAULT_CART_ID, itemId, vasItemId, vasCategoryId, vasSellerId, price, quantity);
+    }
+
+    public boolean addVasItemToItem(int cartId, int itemId, int vasItemId, int vasCategoryId, int vasSellerId, long price, int quantity) {
+        ErrorCode error = tryAddVasItemToItem(cartId, itemId, vasItemId, vasCategoryId, vasSellerId, price, quantity);
+        if (error.isRejection()) {
+            throw error.toException(itemId);
+        }
         return true;
     }
 
+    /**
+     * addVasItemToItem without the exceptions for a rejected VasItem
+     *
+     * @return NONE if the VasItem was added, otherwise why the cart is unchanged
+     */
+    public ErrorCode tryAddVasItemToItem(int cartId, int itemId, int vasItemId, int vasCategoryId, int vasSellerId,
+                                         long price, int quantity) {
+        Cart cart = cartRegistry.acquire(cartId);
+        try {
+            ErrorCode error = cart.tryAddVasItemToItem(itemId, vasItemId, vasCategoryId, vasSellerId, price, quantity);
+            if (!error.isRejection()) {
+                changed(cart);
+            }
+            return error;
+        } finally {
+            cartRegistry.release(cart);
+        }
+    }
+
     public boolean removeItem(int itemId) {
-        boolean removed = cart.removeItem(itemId);
-        if (removed) {
-            applyPromotions();
+        return removeItem(DEFAULT_CART_ID, itemId);
+    }
+
+    public boolean removeItem(int cartId, int itemId) {
+        Cart cart = cartRegistry.acquire(cartId);
+        try {
+            boolean removed = cart.removeItem(itemId);
+            if (removed) {
+                changed(cart);
+            }
+            return removed;
+        } finally {
+            cartRegistry.release(cart);
+        }
+    }
+
+    /**
+     * Runs the operations in order as one unit: the best promotion is recomputed once at the end,
+     * and if any operation fails the cart is rolled back to its state before the batch
+     *
+     * @param cartId     Cart to change
+     * @param operations Operations in execution order
+     * @return Per operation result, false only for a removeItem whose item was not in the cart
+     * @throws BatchException if an operation failed, after the rollback
+     */
+    public boolean[] applyBatch(int cartId, List<CartOperation> operations) {
+        Cart cart = cartRegistry.acquire(cartId);
+        try {
+            Cart.Checkpoint checkpoint = cart.checkpoint();
+            boolean[] results = new boolean[operations.size()];
+
+            for (int i = 0; i < results.length; i++) {
+                CartOperation operation = operations.get(i);
+                ErrorCode error;
+                try {
+                    error = apply(cart, operation, results, i);
+                } catch (RuntimeException e) {
+                    cart.restore(checkpoint);
+                    throw new BatchException(i, e);
+                }
+                if (error.isRejection()) {
+                    cart.restore(checkpoint);
+                    throw new BatchException(i, error, operation.itemId());
+                }
+            }
+
+            changed(cart);
+            return results;
+        } finally {
+            cartRegistry.release(cart);
+        }
+    }
+
+    /**
+     * Sets the cart to saved contents without the add-time limits, see Cart.load. VasItems are
+     * attached to the item with their itemId; removeItem is not expected.
+     *
+     * @param cartId     Cart to overwrite
+     * @param operations The items, then the VasItems, as saved
+     */
+    public void restoreCart(int cartId, List<CartOperation> operations) {
+        List<Item> items = new ArrayList<>(operations.size());
+
+        for (CartOperation operation : operations) {
+            switch (operation) {
+                case CartOperation.AddItem add -> {
+                    // Created with one unit since a merged quantity can be above the per-add maximum
+                    Item item = createItem(add.itemId(), add.categoryId(), add.sellerId(), add.price(), 1);
+                    item.increaseQuantity(add.quantity() - 1);
+                    items.add(item);
+                }
+                case CartOperation.AddVasItemToItem add -> {
+                    Item owner = items.stream().filter(item -> item.getItemId() == add.itemId()).findFirst()
+                            .orElseThrow(() -> new IllegalArgumentException("VasItem of a missing item: " + add.itemId()));
+                    ((DefaultItem) owner).addVasItem(new VasItem(add.vasItemId(), add.vasCategoryId(),
+                            add.vasSellerId(), add.price(), add.quantity()));
+                }
+                case CartOperation.RemoveItem remove ->
+                        throw new IllegalArgumentException("Saved cart contains a removeItem: " + remove.itemId());
+            }
+        }
+
+        Cart cart = cartRegistry.acquire(cartId);
+        try {
+            cart.load(items);
+            changed(cart);
+        } finally {
+            cartRegistry.release(cart);
         }
-        return removed;
     }
 
     public boolean resetCart() {
-        cart.reset();
-        return true;
+        return resetCart(DEFAULT_CART_ID);
+    }
+
+    public boolean resetCart(int cartId) {
+        Cart cart = cartRegistry.acquire(cartId);
+        try {
+            cart.reset();
+            cart.publish();
+            return true;
+        } finally {
+            cartRegistry.release(cart);
+        }
+    }
+
+    /**
+     * What displayCart shows; in SNAPSHOT read mode safe on any thread without the cart's lock
+     *
+     * @param cartId Cart to read
+     * @return Immutable state of the cart
+     */
+    public CartSnapshot displayCart(int cartId) {
+        Cart cart = cartRegistry.acquire(cartId);
+        try {
+            return cart.latestSnapshot();
+        } finally {
+            cartRegistry.release(cart);
+        }
+    }
+
+    /**
+     * Total after the discount, in kuruş; in SNAPSHOT read mode safe on any thread without the cart's lock
+     */
+    public long getTotalAmount(int cartId) {
+        return displayCart(cartId).getTotalAmount();
+    }
+
+    public CartReadMode getReadMode() {
+        return readMode;
     }
 
     public Cart getCart() {
-        return cart;
+        return getCart(DEFAULT_CART_ID);
+    }
+
+    // For single-threaded callers, see CartRegistry.getOrCreate
+    public Cart getCart(int cartId) {
+        return cartRegistry.getOrCreate(cartId);
+    }
+
+    public CartRegistry getCartRegistry() {
+        return cartRegistry;
+    }
+
+    /**
+     * Closes the registry, which saves the carts a persistent store has to keep
+     */
+    @Override
+    public void close() {
+        cartRegistry.close();
     }
 
-    private Item createItem(int itemId, int categoryId, int sellerId, double price, int quantity) {
+    // Cart mutation only, promotions are left to the caller; results[index] is set for a removeItem
+    private ErrorCode apply(Cart cart, CartOperation operation, boolean[] results, int index) {
+        return switch (operation) {
+            case CartOperation.AddItem add -> {
+                results[index] = true;
+                yield cart.tryAddItem(add.itemId(), add.categoryId(), add.sellerId(), add.price(), add.quantity(),
+                        add.categoryId() == DIGITAL_CATEGORY_ID);
+            }
+            case CartOperation.AddVasItemToItem add -> {
+                results[index] = true;
+                yield cart.tryAddVasItemToItem(add.itemId(), add.vasItemId(), add.vasCategoryId(),
+                        add.vasSellerId(), add.price(), add.quantity());
+            }
+            case CartOperation.RemoveItem remove -> {
+                results[index] = cart.removeItem(remove.itemId());
+                yield ErrorCode.NONE;
+            }
+        };
+    }
+
+    private Item createItem(int itemId, int categoryId, int sellerId, long price, int quantity) {
         if (categoryId == DIGITAL_CATEGORY_ID) {
             return new DigitalItem(itemId, categoryId, sellerId, price, quantity);
         } else {
@@ -58,7 +319,23 @@ public class CartService {
         }
     }
 
-    private void applyPromotions() {
-        promotionService.applyBestPromotion(cart);
+    private Cart newCart(int cartId) {
+        Cart cart = new Cart(cartId);
+        if (promotionMode == PromotionMode.LAZY) {
+            cart.setPromotionResolver(promotionService::applyBestPromotion);
+        }
+        if (readMode == CartReadMode.SNAPSHOT) {
+            cart.enablePublishing();
+        }
+        return cart;
+    }
+
+    // After a successful mutation: promotions first, so the published snapshot includes the discount
+    private void changed(Cart cart) {
+        // Lazy carts resolve their promotion themselves on the next read
+        if (promotionMode == PromotionMode.EAGER) {
+            promotionService.applyBestPromotion(cart);
+        }
+        cart.publish();
     }
 }
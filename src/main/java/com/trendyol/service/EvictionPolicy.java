@@ -0,0 +1,14 @@
+package com.trendyol.service;
+
+/*
+ * Which resident cart a TieredCartRegistry moves to its store once a bound is reached.
+ */
+public enum EvictionPolicy {
+
+    // The least recently used cart that no command is using
+    LRU,
+
+    // Like LRU, but a cart loaded for the first time only stays if it has been used more often than the
+    // LRU cart (TinyLFU admission), so a scan of one-off carts does not push out the frequently used ones
+    TINYLFU
+}
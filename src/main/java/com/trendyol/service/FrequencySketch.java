@@ -0,0 +1,68 @@
+package com.trendyol.service;
+
+/*
+ * Approximate use counts of cartIds for TinyLFU admission: a count-min sketch of four rows of
+ * saturating 4-bit counts, one byte each. After 10 * width increments every count is halved, so the
+ * sketch follows recent popularity rather than the whole history. Not thread-safe.
+ */
+final class FrequencySketch {
+
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int MAX_WIDTH = 1 << 20;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final byte[] counts;
+    private final int width;
+    private final int sampleSize;
+    private int additions;
+
+    /**
+     * @param expectedCarts Carts to tell apart, usually the resident limit; each row gets 4 counts per
+     *                      cart, at least 1K and at most 1M
+     */
+    FrequencySketch(int expectedCarts) {
+        int width = 1024;
+        while (width < 4L * expectedCarts && width < MAX_WIDTH) {
+            width <<= 1;
+        }
+        this.width = width;
+        this.counts = new byte[DEPTH * width];
+        this.sampleSize = 10 * width;
+    }
+
+    void increment(int cartId) {
+        boolean added = false;
+        for (int row = 0; row < DEPTH; row++) {
+            int i = index(cartId, row);
+            if (counts[i] < MAX_COUNT) {
+                counts[i]++;
+                added = true;
+            }
+        }
+        if (added && ++additions == sampleSize) {
+            halve();
+        }
+    }
+
+    // Smallest count of the cart's rows; colliding carts can only make it higher
+    int frequency(int cartId) {
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < DEPTH; row++) {
+            frequency = Math.min(frequency, counts[index(cartId, row)]);
+        }
+        return frequency;
+    }
+
+    private void halve() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = (byte) (counts[i] >> 1);
+        }
+        additions /= 2;
+    }
+
+    private int index(int cartId, int row) {
+        int hash = cartId * SEEDS[row];
+        return row * width + ((hash ^ (hash >>> 16)) & (width - 1));
+    }
+}
@@ -0,0 +1,70 @@
+package com.trendyol.service;
+
+import com.trendyol.domain.cart.Cart;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
+
+/*
+ * Keeps every cart on the heap for the life of the registry, in a ConcurrentHashMap: acquire is a
+ * lock-free lookup and release does nothing.
+ */
+public class InMemoryCartRegistry implements CartRegistry {
+
+    private final Map<Integer, Cart> carts;
+    private final IntFunction<Cart> cartFactory;
+
+    public InMemoryCartRegistry() {
+        this(Cart::new);
+    }
+
+    /**
+     * @param cartFactory Creates the cart of a cartId on first access
+     */
+    public InMemoryCartRegistry(IntFunction<Cart> cartFactory) {
+        this.carts = new ConcurrentHashMap<>();
+        this.cartFactory = cartFactory;
+    }
+
+    @Override
+    public Cart acquire(int cartId) {
+        return getOrCreate(cartId);
+    }
+
+    @Override
+    public void release(Cart cart) {
+    }
+
+    @Override
+    public Cart getOrCreate(int cartId) {
+        Cart cart = carts.get(cartId);
+        if (cart != null) {
+            return cart;
+        }
+        return carts.computeIfAbsent(cartId, cartFactory::apply);
+    }
+
+    @Override
+    public Optional<Cart> find(int cartId) {
+        return Optional.ofNullable(carts.get(cartId));
+    }
+
+    // A cart created during the call may or may not be visited
+    @Override
+    public void forEach(BiConsumer<Integer, Cart> action) {
+        carts.forEach(action);
+    }
+
+    @Override
+    public int size() {
+        return carts.size();
+    }
+
+    // Heap carts end with the process
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,13 @@
+package com.trendyol.service;
+
+/*
+ * When the best promotion of a cart is computed.
+ */
+public enum PromotionMode {
+
+    // After every successful mutation
+    EAGER,
+
+    // On the first read of the discount after a mutation (displayCart, getTotalAmount, ...)
+    LAZY
+}
@@ -0,0 +1,32 @@
+package com.trendyol.service;
+
+import java.time.Duration;
+
+/**
+ * Bounds of the carts a TieredCartRegistry keeps on the heap; past any of them carts are moved to the
+ * registry's CartStore. 0 and Duration.ZERO disable a bound.
+ *
+ * @param maxCarts    Resident carts, exceeded only while more carts are in use
+ * @param maxBytes    Estimated heap bytes of the resident carts, see Cart.estimateHeapBytes
+ * @param idleTimeout A cart unused for this long is moved out even below the other bounds
+ * @param policy      Which cart makes room once maxCarts or maxBytes is reached
+ */
+public record ResidencyLimits(int maxCarts, long maxBytes, Duration idleTimeout, EvictionPolicy policy) {
+
+    public static final ResidencyLimits UNBOUNDED = new ResidencyLimits(0, 0, Duration.ZERO, EvictionPolicy.LRU);
+
+    public ResidencyLimits {
+        if (maxCarts < 0 || maxBytes < 0 || idleTimeout.isNegative()) {
+            throw new IllegalArgumentException("Residency limits must not be negative: " + maxCarts + " carts, "
+                    + maxBytes + " bytes, " + idleTimeout);
+        }
+    }
+
+    public static ResidencyLimits ofCarts(int maxCarts) {
+        return new ResidencyLimits(maxCarts, 0, Duration.ZERO, EvictionPolicy.LRU);
+    }
+
+    public boolean isBounded() {
+        return maxCarts > 0 || maxBytes > 0 || !idleTimeout.isZero();
+    }
+}
@@ -0,0 +1,549 @@
+package com.trendyol.service;
+
+import com.trendyol.domain.cart.Cart;
+import com.trendyol.domain.cart.CartRecord;
+import com.trendyol.metrics.LatencyHistogram;
+import com.trendyol.store.CartStore;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+
+/*
+ * Keeps the most recently used carts on the heap and the rest in a CartStore, within ResidencyLimits.
+ * Past maxCarts or maxBytes a cart that no command is using is written to the store (only if it changed
+ * since it was last saved) and dropped from the heap, chosen by the EvictionPolicy; a cart idle for
+ * idleTimeout is moved out the same way on the next acquire. The next acquire rebuilds it as a live
+ * Cart from its record, version included.
+ *
+ * A cart that a command leaves empty (resetCart, last item removed) is dropped from both the heap and
+ * the store at once, an empty cart being what acquire creates anyway. Its successor starts at a higher
+ * version, so versions of a cartId never repeat and cached displays stay valid.
+ *
+ * A removal listener (e.g. DisplayCartCache.invalidate) hears of every cart that leaves the heap, so
+ * what is kept per resident cart elsewhere leaves with it.
+ *
+ * With a persistent store every release that leaves a changed cart unused also saves it, so the
+ * store stays current to the last completed command; close saves whatever is left. Whether a cart
+ * changed is told by its unresolved version and a pending lazy promotion is saved as pending, so no
+ * save runs the promotions.
+ *
+ * Acquire and release take one lock for the bookkeeping only, the command itself runs outside it.
+ * The save of a release is staged under that lock (a copy of the record) and written to the store
+ * after it is released, under a second lock that every other store access waits for.
+ */
+public class TieredCartRegistry implements CartRegistry, TieredCartRegistryMXBean {
+
+    public static final String OBJECT_NAME = "com.trendyol:type=CartRegistry";
+
+    private final IntFunction<Cart> cartFactory;
+    private final CartStore store;
+    private final ResidencyLimits limits;
+    private final LongSupplier clock;
+    private final boolean writeThrough;
+    // TINYLFU only
+    private final FrequencySketch sketch;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Held by the release writing a staged record; taken before lock is released, so store writes keep
+    // the order of the critical sections they come from. Every store access under lock goes through store().
+    private final ReentrantLock storeLock = new ReentrantLock();
+    // Record staged by release, guarded by storeLock
+    private final ByteBuffer staged = ByteBuffer.allocate(CartRecord.SIZE);
+    // Access order, the eldest entry is the least recently used cart
+    private final LinkedHashMap<Integer, Resident> resident = new LinkedHashMap<>(16, 0.75f, true);
+    private long residentBytes;
+    // TINYLFU: the last cart loaded onto the heap, until the policy has admitted it or evicted it
+    private Resident candidate;
+    // Above every version of a dropped cart, the first version of a recreated one
+    private long nextCartVersion;
+
+    private long evictions;
+    private long expirations;
+    private long freed;
+    private long reloads;
+    private final LatencyHistogram reloadLatency = new LatencyHistogram();
+    // null = none
+    private IntConsumer removalListener;
+
+    /**
+     * @param cartFactory      Creates an empty cart for a cartId, also before a stored one is loaded
+     * @param store            Receives the evicted carts; owned by the registry from now on
+     * @param maxResidentCarts Carts kept on the heap, exceeded only while more carts are in use
+     */
+    public TieredCartRegistry(IntFunction<Cart> cartFactory, CartStore store, int maxResidentCarts) {
+        this(cartFactory, store, requirePositive(maxResidentCarts));
+    }
+
+    /**
+     * @param cartFactory Creates an empty cart for a cartId, also before a stored one is loaded
+     * @param store       Receives the evicted carts; owned by the registry from now on
+     * @param limits      What stays on the heap, UNBOUNDED to only use the store for persistence
+     */
+    public TieredCartRegistry(IntFunction<Cart> cartFactory, CartStore store, ResidencyLimits limits) {
+        this(cartFactory, store, limits, System::nanoTime);
+    }
+
+    // clock: nanoseconds for the idle timeout, replaced in tests
+    TieredCartRegistry(IntFunction<Cart> cartFactory, CartStore store, ResidencyLimits limits, LongSupplier clock) {
+        this.cartFactory = cartFactory;
+        this.store = store;
+        this.limits = limits;
+        this.clock = clock;
+        this.writeThrough = store.isPersistent();
+        this.sketch = limits.policy() == EvictionPolicy.TINYLFU
+                ? new FrequencySketch(limits.maxCarts() > 0 ? limits.maxCarts() : 1 << 16)
+                : null;
+    }
+
+    private static ResidencyLimits requirePositive(int maxResidentCarts) {
+        if (maxResidentCarts < 1) {
+            throw new IllegalArgumentException("maxResidentCarts must be positive: " + maxResidentCarts);
+        }
+        return ResidencyLimits.ofCarts(maxResidentCarts);
+    }
+
+    /**
+     * @param listener Called with the cartId of every cart that leaves the heap (evicted, expired or
+     *                 freed), under the registry's lock; null for none
+     */
+    public void setRemovalListener(IntConsumer listener) {
+        lock.lock();
+        try {
+            this.removalListener = listener;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Cart acquire(int cartId) {
+        lock.lock();
+        try {
+            long now = clock.getAsLong();
+            expireIdle(now);
+            if (sketch != null) {
+                sketch.increment(cartId);
+            }
+
+            Resident entry = resident.get(cartId);
+            if (entry == null) {
+                entry = load(cartId);
+                resident.put(cartId, entry);
+                residentBytes += entry.bytes;
+                if (sketch != null) {
+                    candidate = entry;
+                }
+            }
+            entry.users++;
+            entry.lastAccess = now;
+            evictIdle();
+            return entry.cart;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void release(Cart cart) {
+        boolean saving = false;
+        lock.lock();
+        try {
+            Resident entry = resident.get(cart.getCartId());
+            if (entry == null || entry.cart != cart || entry.users == 0) {
+                throw new IllegalStateException("Cart " + cart.getCartId() + " was not acquired");
+            }
+            entry.users--;
+            entry.lastAccess = clock.getAsLong();
+
+            // Another user may still be changing the cart, the last one takes care of it
+            if (entry.users == 0) {
+                if (cart.getSummary().getUniqueItemCount() == 0
+                        && cart.getUnresolvedVersion() != entry.initialVersion) {
+                    free(entry);
+                } else {
+                    long bytes = cart.estimateHeapBytes();
+                    residentBytes += bytes - entry.bytes;
+                    entry.bytes = bytes;
+                }
+            }
+            // Carts that were in use when a limit was reached
+            evictIdle();
+
+            // Last, an evicted cart has been saved already and a freed one must not come back
+            if (writeThrough && entry.users == 0 && resident.get(cart.getCartId()) == entry) {
+                saving = stageIfChanged(entry);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (saving) {
+            try {
+                store.save(cart.getCartId(), staged);
+            } finally {
+                storeLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public Cart getOrCreate(int cartId) {
+        Cart cart = acquire(cartId);
+        release(cart);
+        return cart;
+    }
+
+    @Override
+    public Optional<Cart> find(int cartId) {
+        lock.lock();
+        try {
+            if (!resident.containsKey(cartId) && !store().contains(cartId)) {
+                return Optional.empty();
+            }
+            return Optional.of(getOrCreate(cartId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Visits the resident carts, then the stored ones, each rebuilt in a temporary Cart that is only
+     * valid during the call. Holds the lock throughout, so no cart is acquired meanwhile.
+     */
+    @Override
+    public void forEach(BiConsumer<Integer, Cart> action) {
+        lock.lock();
+        try {
+            resident.forEach((cartId, entry) -> action.accept(cartId, entry.cart));
+            store().forEachCartId(cartId -> {
+                if (!resident.containsKey(cartId)) {
+                    Cart cart = cartFactory.apply(cartId);
+                    store.load(cart);
+                    action.accept(cartId, cart);
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            int size = store().size();
+            for (Resident entry : resident.values()) {
+                if (entry.savedVersion < 0) {
+                    size++;
+                }
+            }
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Saves the changed resident carts if the store is persistent, then closes the store. Carts
+     * still in use are saved as they are.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (writeThrough) {
+                for (Resident entry : resident.values()) {
+                    // Resolved here rather than left pending for the next process, unless still in use
+                    if (entry.users == 0) {
+                        entry.cart.getVersion();
+                    }
+                    saveIfChanged(entry);
+                }
+            }
+            store().close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Registers this instance with the platform MBean server, replacing an earlier registration
+     */
+    public void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            throw new RuntimeException("Failed to register MBean " + OBJECT_NAME, e);
+        }
+    }
+
+    @Override
+    public int getResidentCount() {
+        lock.lock();
+        try {
+            return resident.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getResidentBytes() {
+        lock.lock();
+        try {
+            return residentBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getStoredCount() {
+        lock.lock();
+        try {
+            return store().size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getEvictions() {
+        lock.lock();
+        try {
+            return evictions;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getExpirations() {
+        lock.lock();
+        try {
+            return expirations;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getFreed() {
+        lock.lock();
+        try {
+            return freed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getReloads() {
+        lock.lock();
+        try {
+            return reloads;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public double getReloadP99Micros() {
+        return reloadLatency.summarize().p99() / 1000.0;
+    }
+
+    @Override
+    public double getReloadMaxMicros() {
+        return reloadLatency.summarize().max() / 1000.0;
+    }
+
+    @Override
+    public String getSummary() {
+        LatencyHistogram.Summary reload = reloadLatency.summarize();
+        lock.lock();
+        try {
+            return String.format("Carts: %d resident (%d KB), %d stored in %d KB, %d evictions, %d expired,"
+                            + " %d freed, %d reloads (p50 %.2f us, p99 %.2f us, max %.2f us)",
+                    resident.size(), residentBytes / 1024, store().size(), store.getCapacityBytes() / 1024,
+                    evictions, expirations, freed, reloads, reload.p50() / 1000.0, reload.p99() / 1000.0,
+                    reload.max() / 1000.0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Resident load(int cartId) {
+        Cart cart = cartFactory.apply(cartId);
+        long start = System.nanoTime();
+        if (store().load(cart)) {
+            reloadLatency.record(System.nanoTime() - start);
+            reloads++;
+            long version = cart.getUnresolvedVersion();
+            return new Resident(cart, version, version);
+        }
+        if (nextCartVersion > 0) {
+            cart.startVersionsAt(nextCartVersion);
+        }
+        return new Resident(cart, cart.getUnresolvedVersion(), -1);
+    }
+
+    private boolean overLimit() {
+        return (limits.maxCarts() > 0 && resident.size() > limits.maxCarts())
+                || (limits.maxBytes() > 0 && residentBytes > limits.maxBytes());
+    }
+
+    private void evictIdle() {
+        while (overLimit()) {
+            Resident victim = eldestIdle();
+            if (victim == null) {
+                return;
+            }
+            if (candidate != null && candidate != victim) {
+                // Decided once the candidate's command is done
+                if (candidate.users > 0) {
+                    return;
+                }
+                // Ties go against the newcomer
+                if (sketch.frequency(candidate.cart.getCartId()) <= sketch.frequency(victim.cart.getCartId())) {
+                    victim = candidate;
+                }
+            }
+            candidate = null;
+            evict(victim);
+            evictions++;
+        }
+    }
+
+    // Idle carts are in access order, so the scan stops at the first one used within the timeout
+    private void expireIdle(long now) {
+        if (limits.idleTimeout().isZero()) {
+            return;
+        }
+
+        long timeout = limits.idleTimeout().toNanos();
+        Iterator<Resident> eldestFirst = resident.values().iterator();
+        while (eldestFirst.hasNext()) {
+            Resident entry = eldestFirst.next();
+            if (entry.users > 0) {
+                continue;
+            }
+            if (now - entry.lastAccess < timeout) {
+                return;
+            }
+            saveIfChanged(entry);
+            eldestFirst.remove();
+            removed(entry);
+            expirations++;
+        }
+    }
+
+    private Resident eldestIdle() {
+        for (Resident entry : resident.values()) {
+            if (entry.users == 0) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private void evict(Resident entry) {
+        saveIfChanged(entry);
+        resident.remove(entry.cart.getCartId());
+        removed(entry);
+    }
+
+    // Drops the cart everywhere, leaving its slots to other carts
+    private void free(Resident entry) {
+        nextCartVersion = Math.max(nextCartVersion, entry.cart.getUnresolvedVersion() + 1);
+        resident.remove(entry.cart.getCartId());
+        store().remove(entry.cart.getCartId());
+        removed(entry);
+        freed++;
+    }
+
+    private void removed(Resident entry) {
+        residentBytes -= entry.bytes;
+        if (candidate == entry) {
+            candidate = null;
+        }
+        if (removalListener != null) {
+            removalListener.accept(entry.cart.getCartId());
+        }
+    }
+
+    // An unchanged cart still has its stored record
+    private void saveIfChanged(Resident entry) {
+        long version = entry.cart.getUnresolvedVersion();
+        if (version != entry.savedVersion) {
+            store().save(entry.cart);
+            entry.savedVersion = version;
+        }
+    }
+
+    /**
+     * saveIfChanged for release: copies the record into staged and leaves storeLock held, the caller
+     * writes it once lock is released and then unlocks storeLock
+     *
+     * @return false if the cart is unchanged, nothing is held then
+     */
+    private boolean stageIfChanged(Resident entry) {
+        long version = entry.cart.getUnresolvedVersion();
+        if (version == entry.savedVersion) {
+            return false;
+        }
+        storeLock.lock();
+        try {
+            CartRecord.write(entry.cart, staged, 0);
+        } catch (RuntimeException e) {
+            storeLock.unlock();
+            throw e;
+        }
+        entry.savedVersion = version;
+        return true;
+    }
+
+    // The store once the staged write of an earlier release is done; called under lock, where no new one can start
+    private CartStore store() {
+        storeLock.lock();
+        storeLock.unlock();
+        return store;
+    }
+
+    private static final class Resident {
+
+        private final Cart cart;
+        // Version when the cart came onto the heap
+        private final long initialVersion;
+        // Version of the stored record, -1 if the cart has none
+        private long savedVersion;
+        // Commands between acquire and release
+        private int users;
+        // clock time of the last acquire or release
+        private long lastAccess;
+        // Cart.estimateHeapBytes as of the last release
+        private long bytes;
+
+        private Resident(Cart cart, long initialVersion, long savedVersion) {
+            this.cart = cart;
+            this.initialVersion = initialVersion;
+            this.savedVersion = savedVersion;
+            this.bytes = cart.estimateHeapBytes();
+        }
+    }
+}
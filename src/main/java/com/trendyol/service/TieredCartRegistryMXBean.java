@@ -0,0 +1,35 @@
+package com.trendyol.service;
+
+/*
+ * JMX view of a TieredCartRegistry, registered as com.trendyol:type=CartRegistry
+ */
+public interface TieredCartRegistryMXBean {
+
+    // Carts on the heap
+    int getResidentCount();
+
+    // Cart.estimateHeapBytes of the resident carts
+    long getResidentBytes();
+
+    // Carts with a record in the store, resident ones included once saved
+    int getStoredCount();
+
+    // Carts moved to the store to stay within maxCarts / maxBytes
+    long getEvictions();
+
+    // Carts moved to the store after idleTimeout
+    long getExpirations();
+
+    // Carts dropped from heap and store because a command left them empty
+    long getFreed();
+
+    // Carts rebuilt from the store on acquire
+    long getReloads();
+
+    double getReloadP99Micros();
+
+    double getReloadMaxMicros();
+
+    // Same line as printed at the end of a run
+    String getSummary();
+}
@@ -0,0 +1,194 @@
+package com.trendyol.store;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/*
+ * cartId -> slot index of a CartStore, plus the list of freed slots. An open-addressing table of
+ * two int arrays (linear probing, deletion by backward shift), so millions of carts cost 8-16 bytes
+ * each and no object. Not thread-safe.
+ */
+final class CartSlots {
+
+    private static final int EMPTY = 0;
+
+    private int[] keys;
+    // slot + 1, EMPTY for a free table entry, so any int is a valid cartId
+    private int[] values;
+    private int mask;
+    private int size;
+
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    // Slots [0, nextSlot) have been handed out at least once
+    private int nextSlot;
+
+    CartSlots() {
+        this(1024);
+    }
+
+    CartSlots(int expectedCarts) {
+        int capacity = 16;
+        while (capacity < expectedCarts * 2) {
+            capacity <<= 1;
+        }
+        this.keys = new int[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    // Grows the table once ahead of registering that many carts
+    void ensureCapacity(int expectedCarts) {
+        int capacity = keys.length;
+        while (capacity < expectedCarts * 2) {
+            capacity <<= 1;
+        }
+        if (capacity > keys.length) {
+            resize(capacity);
+        }
+    }
+
+    // Slot of the cart, -1 if it has none
+    int get(int cartId) {
+        for (int i = index(cartId); values[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == cartId) {
+                return values[i] - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return Slot of the cart, a freed one or the next unused one if it had none
+     */
+    int getOrAllocate(int cartId) {
+        int slot = get(cartId);
+        if (slot >= 0) {
+            return slot;
+        }
+
+        slot = freeCount > 0 ? freeSlots[--freeCount] : nextSlot++;
+        put(cartId, slot);
+        return slot;
+    }
+
+    /**
+     * Registers the slot of a cart found in an existing file
+     */
+    void put(int cartId, int slot) {
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+
+        int i = index(cartId);
+        while (values[i] != EMPTY) {
+            if (keys[i] == cartId) {
+                values[i] = slot + 1;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = cartId;
+        values[i] = slot + 1;
+        size++;
+        nextSlot = Math.max(nextSlot, slot + 1);
+    }
+
+    /**
+     * Drops the cart and puts its slot on the free list
+     *
+     * @return The freed slot, -1 if the cart had none
+     */
+    int remove(int cartId) {
+        int i = index(cartId);
+        while (values[i] != EMPTY && keys[i] != cartId) {
+            i = (i + 1) & mask;
+        }
+        if (values[i] == EMPTY) {
+            return -1;
+        }
+
+        int slot = values[i] - 1;
+        deleteAt(i);
+        size--;
+        free(slot);
+        return slot;
+    }
+
+    // Puts a slot on the free list, also one of an existing file that no cart uses
+    void free(int slot) {
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+        nextSlot = Math.max(nextSlot, slot + 1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Slots handed out so far, in use or free
+    int getSlotCount() {
+        return nextSlot;
+    }
+
+    void forEachCartId(IntConsumer action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != EMPTY) {
+                action.accept(keys[i]);
+            }
+        }
+    }
+
+    void forEach(SlotConsumer action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != EMPTY) {
+                action.accept(keys[i], values[i] - 1);
+            }
+        }
+    }
+
+    interface SlotConsumer {
+        void accept(int cartId, int slot);
+    }
+
+    private int index(int cartId) {
+        int hash = cartId * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    // Moves later entries of the probe sequence back so lookups never stop at the hole
+    private void deleteAt(int hole) {
+        values[hole] = EMPTY;
+        for (int i = (hole + 1) & mask; values[i] != EMPTY; i = (i + 1) & mask) {
+            int home = index(keys[i]);
+            // The entry may fill the hole if its home is not in (hole, i]
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                values[i] = EMPTY;
+                hole = i;
+            }
+        }
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != EMPTY) {
+                int j = index(oldKeys[i]);
+                while (values[j] != EMPTY) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.trendyol.store;
+
+import com.trendyol.domain.cart.Cart;
+
+import java.nio.ByteBuffer;
+import java.util.function.IntConsumer;
+
+/*
+ * Carts kept outside the heap as fixed-size CartRecords, one slot per cartId. Implementations are
+ * not thread-safe; the owning registry serializes access.
+ */
+public interface CartStore extends AutoCloseable {
+
+    /**
+     * Writes the cart into its slot, taking a free slot the first time
+     */
+    void save(Cart cart);
+
+    /**
+     * save with a record already written by CartRecord.write, e.g. staged while the cart could not change
+     *
+     * @param record Holds the CartRecord.SIZE bytes at index 0, position and limit are not used
+     */
+    void save(int cartId, ByteBuffer record);
+
+    /**
+     * Reads the saved state into cart, see CartRecord.read
+     *
+     * @param cart Cart created for the cartId
+     * @return false if the cart was never saved or has been removed; cart is then untouched
+     */
+    boolean load(Cart cart);
+
+    /**
+     * Frees the slot of the cart
+     *
+     * @return false if it had none
+     */
+    boolean remove(int cartId);
+
+    boolean contains(int cartId);
+
+    // Version of the saved copy, -1 if there is none
+    long savedVersion(int cartId);
+
+    // Carts with a slot
+    int size();
+
+    // Bytes reserved for records, used or free
+    long getCapacityBytes();
+
+    void forEachCartId(IntConsumer action);
+
+    // Whether saved carts outlive the process, so the registry writes changes through
+    default boolean isPersistent() {
+        return false;
+    }
+
+    @Override
+    void close();
+}
@@ -0,0 +1,252 @@
+package com.trendyol.store;
+
+import com.trendyol.domain.cart.CartRecord;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+/*
+ * CartStore in a memory-mapped file, so carts outlive the process. Record s sits at a fixed offset
+ * (header + s * CartRecord.SIZE) and is written and read in place through the mapping.
+ *
+ * Layout: a 4 KB header (magic, format, record size, slots per slab, clean flag), then slabs of
+ * SLOTS_PER_SLAB records, mapped and appended to the file as they are needed. On close the
+ * cartId -> slot index is written next to the file (<file>.index) and the header is marked clean;
+ * opening a clean file only reads that index (8 bytes per cart) and touches no record pages.
+ * After a crash the header is not clean and the records are scanned for their in-use flag instead.
+ *
+ * Every completed write is in the mapping and survives the process dying; only close forces the
+ * pages to disk. A record being written at the moment the process dies may be torn.
+ *
+ * A spill file (createSpillFile) is the same layout used only to keep idle carts off the heap for
+ * the life of the process: it is not persistent and is deleted on close.
+ */
+public class MappedCartStore extends SlabCartStore {
+
+    // 13 MB per slab
+    private static final int SLOTS_PER_SLAB = 16 * 1024;
+    private static final int HEADER_SIZE = 4096;
+    private static final int MAGIC = 0x43415254;
+    private static final int FORMAT = 1;
+
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_FORMAT = 4;
+    private static final int HEADER_RECORD_SIZE = 8;
+    private static final int HEADER_SLOTS_PER_SLAB = 12;
+    private static final int HEADER_CLEAN = 16;
+
+    private static final int INDEX_MAGIC = 0x43494458;
+
+    private final Path path;
+    private final Path indexPath;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final boolean openedFromIndex;
+    private final boolean spill;
+    private boolean closed;
+
+    /**
+     * Opens the file, creating it if needed
+     *
+     * @throws IllegalStateException if the file is not a cart store of this format
+     */
+    public MappedCartStore(Path path) {
+        this(path, false);
+    }
+
+    private MappedCartStore(Path path, boolean spill) {
+        super(SLOTS_PER_SLAB, new CartSlots());
+        this.path = path;
+        this.spill = spill;
+        this.indexPath = path.resolveSibling(path.getFileName() + ".index");
+
+        try {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            boolean created = channel.size() == 0;
+            this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            if (created) {
+                header.putInt(HEADER_MAGIC, MAGIC);
+                header.putInt(HEADER_FORMAT, FORMAT);
+                header.putInt(HEADER_RECORD_SIZE, CartRecord.SIZE);
+                header.putInt(HEADER_SLOTS_PER_SLAB, SLOTS_PER_SLAB);
+            } else {
+                verifyHeader();
+            }
+
+            long slabCount = (channel.size() - HEADER_SIZE) / slabBytes();
+            for (int i = 0; i < slabCount; i++) {
+                slabs.add(newSlab(i));
+            }
+
+            int slotCount = slabs.size() * slotsPerSlab;
+            this.openedFromIndex = header.getInt(HEADER_CLEAN) == 1 && readIndex(slotCount);
+            if (!openedFromIndex) {
+                scan(slotCount);
+            }
+
+            // The index is stale from the first change on, until the next close
+            header.putInt(HEADER_CLEAN, 0);
+            header.force();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open cart store " + path, e);
+        }
+    }
+
+    /**
+     * A new, uniquely named file in directory for carts evicted from the heap, deleted on close
+     */
+    public static MappedCartStore createSpillFile(Path directory) {
+        try {
+            return new MappedCartStore(Files.createTempFile(directory, "carts-", ".spill"), true);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create a cart spill file in " + directory, e);
+        }
+    }
+
+    @Override
+    public boolean isPersistent() {
+        return !spill;
+    }
+
+    // Whether the last close was clean and the index was used instead of a scan
+    public boolean isOpenedFromIndex() {
+        return openedFromIndex;
+    }
+
+    /**
+     * Forces the records to disk, writes the index and marks the file clean
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            if (spill) {
+                channel.close();
+                Files.deleteIfExists(path);
+                return;
+            }
+            for (ByteBuffer slab : slabs) {
+                ((MappedByteBuffer) slab).force();
+            }
+            writeIndex();
+            header.putInt(HEADER_CLEAN, 1);
+            header.force();
+            channel.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to close cart store " + path, e);
+        }
+    }
+
+    @Override
+    protected ByteBuffer newSlab(int index) {
+        try {
+            // Mapping past the end grows the file, the new region reads as zeros (unused records)
+            return channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + index * slabBytes(), slabBytes());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to map slab " + index + " of cart store " + path, e);
+        }
+    }
+
+    private long slabBytes() {
+        return (long) slotsPerSlab * CartRecord.SIZE;
+    }
+
+    private void verifyHeader() {
+        if (header.getInt(HEADER_MAGIC) != MAGIC || header.getInt(HEADER_FORMAT) != FORMAT) {
+            throw new IllegalStateException("Not a cart store file of format " + FORMAT + ": " + path);
+        }
+        if (header.getInt(HEADER_RECORD_SIZE) != CartRecord.SIZE
+                || header.getInt(HEADER_SLOTS_PER_SLAB) != SLOTS_PER_SLAB) {
+            throw new IllegalStateException("Cart store " + path + " has records of " + header.getInt(HEADER_RECORD_SIZE)
+                    + " bytes in slabs of " + header.getInt(HEADER_SLOTS_PER_SLAB) + ", expected "
+                    + CartRecord.SIZE + " and " + SLOTS_PER_SLAB);
+        }
+    }
+
+    // Rebuilds the index from the in-use flags of every record
+    private void scan(int slotCount) {
+        // Descending, so the free list hands out low slots first
+        for (int slot = slotCount - 1; slot >= 0; slot--) {
+            ByteBuffer slab = slab(slot);
+            int offset = offset(slot);
+            if (CartRecord.isInUse(slab, offset)) {
+                slots.put(CartRecord.readCartId(slab, offset), slot);
+            } else {
+                slots.free(slot);
+            }
+        }
+    }
+
+    /**
+     * Index file: magic, slot count, entry count, then (cartId, slot) pairs
+     *
+     * @return false if there is no usable index for slotCount slots
+     */
+    private boolean readIndex(int slotCount) throws IOException {
+        if (!Files.exists(indexPath)) {
+            return false;
+        }
+
+        ByteBuffer index = ByteBuffer.wrap(Files.readAllBytes(indexPath));
+        if (index.remaining() < 12 || index.getInt() != INDEX_MAGIC || index.getInt() != slotCount) {
+            return false;
+        }
+        int entries = index.getInt();
+        if (index.remaining() != entries * 8L) {
+            return false;
+        }
+
+        // Checked before anything is registered, a bad index falls back to the scan
+        BitSet used = new BitSet(slotCount);
+        int pairs = index.position();
+        for (int i = 0; i < entries; i++) {
+            index.getInt();
+            int slot = index.getInt();
+            if (slot < 0 || slot >= slotCount || used.get(slot)) {
+                return false;
+            }
+            used.set(slot);
+        }
+        index.position(pairs);
+        slots.ensureCapacity(entries);
+        for (int i = 0; i < entries; i++) {
+            slots.put(index.getInt(), index.getInt());
+        }
+        for (int slot = slotCount - 1; slot >= 0; slot--) {
+            if (!used.get(slot)) {
+                slots.free(slot);
+            }
+        }
+        return true;
+    }
+
+    // Written to a temporary file and renamed, so the index is either complete or absent
+    private void writeIndex() throws IOException {
+        ByteBuffer index = ByteBuffer.allocate(12 + slots.size() * 8);
+        index.putInt(INDEX_MAGIC).putInt(slabs.size() * slotsPerSlab).putInt(slots.size());
+        slots.forEach((cartId, slot) -> index.putInt(cartId).putInt(slot));
+        index.flip();
+
+        Path temporary = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (index.hasRemaining()) {
+                out.write(index);
+            }
+            out.force(true);
+        }
+        Files.move(temporary, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
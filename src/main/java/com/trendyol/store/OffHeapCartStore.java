@@ -0,0 +1,30 @@
+package com.trendyol.store;
+
+import com.trendyol.domain.cart.CartRecord;
+
+import java.nio.ByteBuffer;
+
+/*
+ * CartStore in direct ByteBuffers: slabs of SLOTS_PER_SLAB CartRecords allocated as slots are
+ * needed, so the garbage collector sees a few buffer objects instead of every cart's object graph.
+ * Freed slots are reused before a new slab is allocated; slabs are kept until the store is dropped.
+ */
+public class OffHeapCartStore extends SlabCartStore {
+
+    // 832 KB per slab
+    private static final int SLOTS_PER_SLAB = 1024;
+
+    public OffHeapCartStore() {
+        super(SLOTS_PER_SLAB, new CartSlots());
+    }
+
+    @Override
+    protected ByteBuffer newSlab(int index) {
+        return ByteBuffer.allocateDirect(slotsPerSlab * CartRecord.SIZE);
+    }
+
+    // Direct buffers are freed with the store, once it is unreachable
+    @Override
+    public void close() {
+    }
+}
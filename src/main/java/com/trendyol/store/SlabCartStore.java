@@ -0,0 +1,101 @@
+package com.trendyol.store;
+
+import com.trendyol.domain.cart.Cart;
+import com.trendyol.domain.cart.CartRecord;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/*
+ * CartStore over equally sized ByteBuffer slabs of CartRecords: slot s is record s % slotsPerSlab
+ * of slab s / slotsPerSlab. Subclasses decide where a slab lives. Records are written and read in
+ * place, a removed record is only flagged unused.
+ */
+abstract class SlabCartStore implements CartStore {
+
+    protected final int slotsPerSlab;
+    protected final List<ByteBuffer> slabs = new ArrayList<>();
+    protected final CartSlots slots;
+
+    protected SlabCartStore(int slotsPerSlab, CartSlots slots) {
+        this.slotsPerSlab = slotsPerSlab;
+        this.slots = slots;
+    }
+
+    /**
+     * Storage for slots [index * slotsPerSlab, (index + 1) * slotsPerSlab), zeroed if new
+     */
+    protected abstract ByteBuffer newSlab(int index);
+
+    @Override
+    public void save(Cart cart) {
+        int slot = slots.getOrAllocate(cart.getCartId());
+        CartRecord.write(cart, slab(slot), offset(slot));
+    }
+
+    @Override
+    public void save(int cartId, ByteBuffer record) {
+        int slot = slots.getOrAllocate(cartId);
+        slab(slot).put(offset(slot), record, 0, CartRecord.SIZE);
+    }
+
+    @Override
+    public boolean load(Cart cart) {
+        int slot = slots.get(cart.getCartId());
+        if (slot < 0) {
+            return false;
+        }
+        CartRecord.read(slab(slot), offset(slot), cart);
+        return true;
+    }
+
+    @Override
+    public boolean remove(int cartId) {
+        int slot = slots.remove(cartId);
+        if (slot < 0) {
+            return false;
+        }
+        CartRecord.markUnused(slab(slot), offset(slot));
+        return true;
+    }
+
+    @Override
+    public boolean contains(int cartId) {
+        return slots.get(cartId) >= 0;
+    }
+
+    @Override
+    public long savedVersion(int cartId) {
+        int slot = slots.get(cartId);
+        return slot < 0 ? -1 : CartRecord.readVersion(slab(slot), offset(slot));
+    }
+
+    @Override
+    public int size() {
+        return slots.size();
+    }
+
+    @Override
+    public long getCapacityBytes() {
+        return (long) slabs.size() * slotsPerSlab * CartRecord.SIZE;
+    }
+
+    @Override
+    public void forEachCartId(IntConsumer action) {
+        slots.forEachCartId(action);
+    }
+
+    protected ByteBuffer slab(int slot) {
+        int index = slot / slotsPerSlab;
+        while (slabs.size() <= index) {
+            slabs.add(newSlab(slabs.size()));
+        }
+        return slabs.get(index);
+    }
+
+    protected int offset(int slot) {
+        return (slot % slotsPerSlab) * CartRecord.SIZE;
+    }
+}
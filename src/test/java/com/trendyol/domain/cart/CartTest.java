@@ -1,13 +1,23 @@
 package com.trendyol.domain.cart;
 
 import com.trendyol.domain.exception.CartException;
+import com.trendyol.domain.exception.ErrorCode;
 import com.trendyol.domain.item.DefaultItem;
 import com.trendyol.domain.item.DigitalItem;
 import com.trendyol.domain.item.Item;
 import com.trendyol.domain.item.VasItem;
+import com.trendyol.domain.money.Money;
+import com.trendyol.domain.promotion.CategoryPromotion;
+import com.trendyol.domain.promotion.PromotionCatalog;
+import com.trendyol.domain.promotion.PromotionService;
+import com.trendyol.domain.promotion.SameSellerPromotion;
+import com.trendyol.domain.promotion.TotalPricePromotion;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class CartTest {
@@ -24,21 +34,21 @@ class CartTest {
     @Test
     void shouldAddItemSuccessfully() {
         // Given
-        DefaultItem item = new DefaultItem(1, 1001, 500, 1000.0, 2);
+        DefaultItem item = new DefaultItem(1, 1001, 500, Money.ofLira(1000), 2);
 
         // When
         cart.addItem(item);
 
         // Then
         assertEquals(1, cart.getItems().size());
-        assertEquals(2000.0, cart.calculateTotalPrice());
+        assertEquals(Money.ofLira(2000), cart.calculateTotalPrice());
     }
 
     @Test
     void shouldIncreaseQuantityWhenSameItemAddedAgain() {
         // Given
-        DefaultItem item1 = new DefaultItem(1, 1001, 500, 1000.0, 2);
-        DefaultItem item2 = new DefaultItem(1, 1001, 500, 1000.0, 3);
+        DefaultItem item1 = new DefaultItem(1, 1001, 500, Money.ofLira(1000), 2);
+        DefaultItem item2 = new DefaultItem(1, 1001, 500, Money.ofLira(1000), 3);
 
         // When
         cart.addItem(item1);
@@ -47,7 +57,7 @@ class CartTest {
         // Then
         assertEquals(1, cart.getItems().size());
         assertEquals(5, cart.getItems().getFirst().getQuantity());
-        assertEquals(5000.0, cart.calculateTotalPrice());
+        assertEquals(Money.ofLira(5000), cart.calculateTotalPrice());
     }
 
     // ========== BOUNDARY TESTS: MAX UNIQUE ITEMS (10) ==========
@@ -56,7 +66,7 @@ class CartTest {
     void shouldAllowExactly10UniqueItems() {
         // Given & When - Boundary value (exactly 10 unique items)
         for (int i = 1; i <= 10; i++) {
-            cart.addItem(new DefaultItem(i, 1001, 500, 100.0, 1));
+            cart.addItem(new DefaultItem(i, 1001, 500, Money.ofLira(100), 1));
         }
 
         // Then
@@ -67,11 +77,11 @@ class CartTest {
     void shouldThrowExceptionWhenMaxUniqueItemsExceeded() {
         // Given - At boundary (10 unique items)
         for (int i = 1; i <= 10; i++) {
-            cart.addItem(new DefaultItem(i, 1001, 500, 100.0, 1));
+            cart.addItem(new DefaultItem(i, 1001, 500, Money.ofLira(100), 1));
         }
 
         // When & Then - Exceeding boundary (11th item)
-        DefaultItem item11 = new DefaultItem(11, 1001, 500, 100.0, 1);
+        DefaultItem item11 = new DefaultItem(11, 1001, 500, Money.ofLira(100), 1);
         CartException exception = assertThrows(CartException.class,
                 () -> cart.addItem(item11));
 
@@ -83,9 +93,9 @@ class CartTest {
     @Test
     void shouldAllowExactly30Items() {
         // Given & When - Boundary value (exactly 30 items)
-        cart.addItem(new DefaultItem(1, 1001, 500, 100.0, 10));
-        cart.addItem(new DefaultItem(2, 1001, 500, 100.0, 10));
-        cart.addItem(new DefaultItem(3, 1001, 500, 100.0, 10));
+        cart.addItem(new DefaultItem(1, 1001, 500, Money.ofLira(100), 10));
+        cart.addItem(new DefaultItem(2, 1001, 500, Money.ofLira(100), 10));
+        cart.addItem(new DefaultItem(3, 1001, 500, Money.ofLira(100), 10));
 
         // Then
         int totalItems = cart.getItems().stream()
@@ -97,12 +107,12 @@ class CartTest {
     @Test
     void shouldThrowExceptionWhenMaxTotalItemsExceeded() {
         // Given - At boundary (30 items)
-        cart.addItem(new DefaultItem(1, 1001, 500, 100.0, 10));
-        cart.addItem(new DefaultItem(2, 1001, 500, 100.0, 10));
-        cart.addItem(new DefaultItem(3, 1001, 500, 100.0, 10));
+        cart.addItem(new DefaultItem(1, 1001, 500, Money.ofLira(100), 10));
+        cart.addItem(new DefaultItem(2, 1001, 500, Money.ofLira(100), 10));
+        cart.addItem(new DefaultItem(3, 1001, 500, Money.ofLira(100), 10));
 
         // When & Then - Exceeding boundary (31 items)
-        DefaultItem item4 = new DefaultItem(4, 1001, 500, 100.0, 1);
+        DefaultItem item4 = new DefaultItem(4, 1001, 500, Money.ofLira(100), 1);
         CartException exception = assertThrows(CartException.class,
                 () -> cart.addItem(item4));
 
@@ -112,9 +122,9 @@ class CartTest {
     @Test
     void shouldAllowJustBelowMaxTotalItems() {
         // Given & When - Below boundary (29 items)
-        cart.addItem(new DefaultItem(1, 1001, 500, 100.0, 10));
-        cart.addItem(new DefaultItem(2, 1001, 500, 100.0, 10));
-        cart.addItem(new DefaultItem(3, 1001, 500, 100.0, 9));
+        cart.addItem(new DefaultItem(1, 1001, 500, Money.ofLira(100), 10));
+        cart.addItem(new DefaultItem(2, 1001, 500, Money.ofLira(100), 10));
+        cart.addItem(new DefaultItem(3, 1001, 500, Money.ofLira(100), 9));
 
         // Then
         int totalItems = cart.getItems().stream()
@@ -128,16 +138,16 @@ class CartTest {
     @Test
     void shouldAllowExactly500000TL() {
         // Given & When - Boundary value (exactly 500,000 TL)
-        cart.addItem(new DefaultItem(1, 1001, 500, 500000.0, 1));
+        cart.addItem(new DefaultItem(1, 1001, 500, Money.ofLira(500000), 1));
 
         // Then
-        assertEquals(500000.0, cart.calculateTotalPrice());
+        assertEquals(Money.ofLira(500000), cart.calculateTotalPrice());
     }
 
     @Test
     void shouldThrowExceptionWhenMaxTotalAmountExceeded() {
         // Given & When - Exceeding boundary (500,001 TL)
-        DefaultItem expensiveItem = new DefaultItem(1, 1001, 500, 500001.0, 1);
+        DefaultItem expensiveItem = new DefaultItem(1, 1001, 500, Money.ofLira(500001), 1);
 
         // Then
         CartException exception = assertThrows(CartException.class,
@@ -149,10 +159,10 @@ class CartTest {
     @Test
     void shouldAllowJustBelowMaxTotalAmount() {
         // Given & When - Below boundary (499,999 TL)
-        cart.addItem(new DefaultItem(1, 1001, 500, 499999.0, 1));
+        cart.addItem(new DefaultItem(1, 1001, 500, Money.ofLira(499999), 1));
 
         // Then
-        assertEquals(499999.0, cart.calculateTotalPrice());
+        assertEquals(Money.ofLira(499999), cart.calculateTotalPrice());
     }
 
     // ========== VAS ITEM TESTS ==========
@@ -160,9 +170,9 @@ class CartTest {
     @Test
     void shouldAddVasItemToDefaultItem() {
         // Given
-        DefaultItem item = new DefaultItem(1, 3004, 500, 5000.0, 1);
+        DefaultItem item = new DefaultItem(1, 3004, 500, Money.ofLira(5000), 1);
         cart.addItem(item);
-        VasItem vasItem = new VasItem(10, 3242, 5003, 500.0, 1);
+        VasItem vasItem = new VasItem(10, 3242, 5003, Money.ofLira(500), 1);
 
         // When
         cart.addVasItemToItem(1, vasItem);
@@ -175,7 +185,7 @@ class CartTest {
     @Test
     void shouldThrowExceptionWhenAddingVasItemToNonExistentItem() {
         // Given
-        VasItem vasItem = new VasItem(10, 3242, 5003, 500.0, 1);
+        VasItem vasItem = new VasItem(10, 3242, 5003, Money.ofLira(500), 1);
 
         // When & Then
         CartException exception = assertThrows(CartException.class,
@@ -187,9 +197,9 @@ class CartTest {
     @Test
     void shouldThrowExceptionWhenAddingVasItemToDigitalItem() {
         // Given
-        DigitalItem digitalItem = new DigitalItem(1, 7889, 500, 100.0, 1);
+        DigitalItem digitalItem = new DigitalItem(1, 7889, 500, Money.ofLira(100), 1);
         cart.addItem(digitalItem);
-        VasItem vasItem = new VasItem(10, 3242, 5003, 50.0, 1);
+        VasItem vasItem = new VasItem(10, 3242, 5003, Money.ofLira(50), 1);
 
         // When & Then
         CartException exception = assertThrows(CartException.class,
@@ -203,8 +213,8 @@ class CartTest {
     @Test
     void shouldRemoveItemSuccessfully() {
         // Given
-        cart.addItem(new DefaultItem(1, 1001, 500, 1000.0, 2));
-        cart.addItem(new DefaultItem(2, 1001, 500, 500.0, 1));
+        cart.addItem(new DefaultItem(1, 1001, 500, Money.ofLira(1000), 2));
+        cart.addItem(new DefaultItem(2, 1001, 500, Money.ofLira(500), 1));
 
         // When
         boolean removed = cart.removeItem(1);
@@ -215,10 +225,48 @@ class CartTest {
         assertEquals(2, cart.getItems().getFirst().getItemId());
     }
 
+    @Test
+    void shouldKeepOrderAndVasItemsOfFollowingItemsWhenRemoving() {
+        // Given
+        cart.addItem(new DefaultItem(1, 1001, 500, Money.ofLira(1000), 1));
+        cart.addVasItemToItem(1, new VasItem(10, 3242, 5003, Money.ofLira(100), 1));
+        cart.addItem(new DigitalItem(2, 7889, 500, Money.ofLira(50), 2));
+        cart.addItem(new DefaultItem(3, 3004, 501, Money.ofLira(2000), 1));
+        cart.addVasItemToItem(3, new VasItem(11, 3242, 5003, Money.ofLira(200), 2));
+        cart.addVasItemToItem(3, new VasItem(12, 3242, 5003, Money.ofLira(300), 1));
+
+        // When
+        cart.removeItem(1);
+
+        // Then - The VasItems moved with their item
+        List<Item> items = cart.getItems();
+        assertEquals(2, items.size());
+        assertInstanceOf(DigitalItem.class, items.get(0));
+        assertEquals(2, items.get(0).getQuantity());
+        DefaultItem last = (DefaultItem) items.get(1);
+        assertEquals(3, last.getItemId());
+        assertEquals(List.of(11, 12), last.getVasItems().stream().map(VasItem::getVasItemId).toList());
+        assertEquals(2, last.getVasItem(0).getQuantity());
+        assertEquals(Money.ofLira(100 + 2000 + 400 + 300), cart.calculateTotalPrice());
+    }
+
+    @Test
+    void shouldReturnDetachedItems() {
+        // Given
+        cart.addItem(new DefaultItem(1, 1001, 500, Money.ofLira(1000), 2));
+
+        // When
+        cart.getItems().getFirst().increaseQuantity(5);
+
+        // Then
+        assertEquals(2, cart.getItems().getFirst().getQuantity());
+        assertEquals(Money.ofLira(2000), cart.calculateTotalPrice());
+    }
+
     @Test
     void shouldReturnFalseWhenRemovingNonExistentItem() {
         // Given
-        cart.addItem(new DefaultItem(1, 1001, 500, 1000.0, 2));
+        cart.addItem(new DefaultItem(1, 1001, 500, Money.ofLira(1000), 2));
 
         // When
         boolean removed = cart.removeItem(999);
@@ -231,10 +279,10 @@ class CartTest {
     @Test
     void shouldResetCartSuccessfully() {
         // Given
-        cart.addItem(new DefaultItem(1, 1001, 500, 1000.0, 2));
-        cart.addItem(new DefaultItem(2, 1001, 500, 500.0, 1));
+        cart.addItem(new DefaultItem(1, 1001, 500, Money.ofLira(1000), 2));
+        cart.addItem(new DefaultItem(2, 1001, 500, Money.ofLira(500), 1));
         cart.setAppliedPromotionId(9909);
-        cart.setTotalDiscount(100.0);
+        cart.setTotalDiscount(Money.ofLira(100));
 
         // When
         cart.reset();
@@ -242,8 +290,8 @@ class CartTest {
         // Then
         assertEquals(0, cart.getItems().size());
         assertEquals(0, cart.getAppliedPromotionId());
-        assertEquals(0.0, cart.getTotalDiscount());
-        assertEquals(0.0, cart.calculateTotalPrice());
+        assertEquals(0, cart.getTotalDiscount());
+        assertEquals(0, cart.calculateTotalPrice());
     }
 
     // ========== CALCULATION TESTS ==========
@@ -251,32 +299,290 @@ class CartTest {
     @Test
     void shouldCalculateTotalPriceIncludingVasItems() {
         // Given
-        DefaultItem item = new DefaultItem(1, 3004, 500, 5000.0, 1);
-        item.addVasItem(new VasItem(10, 3242, 5003, 500.0, 1));
-        item.addVasItem(new VasItem(11, 3242, 5003, 300.0, 2));
+        DefaultItem item = new DefaultItem(1, 3004, 500, Money.ofLira(5000), 1);
+        item.addVasItem(new VasItem(10, 3242, 5003, Money.ofLira(500), 1));
+        item.addVasItem(new VasItem(11, 3242, 5003, Money.ofLira(300), 2));
         cart.addItem(item);
 
         // When
-        double totalPrice = cart.calculateTotalPrice();
+        long totalPrice = cart.calculateTotalPrice();
 
         // Then
         // Item: 5000 * 1 = 5000
         // VasItem1: 500 * 1 = 500
         // VasItem2: 300 * 2 = 600
         // Total: 6100
-        assertEquals(6100.0, totalPrice);
+        assertEquals(Money.ofLira(6100), totalPrice);
     }
 
     @Test
     void shouldCalculateTotalAmountWithDiscount() {
         // Given
-        cart.addItem(new DefaultItem(1, 1001, 500, 1000.0, 2));
-        cart.setTotalDiscount(200.0);
+        cart.addItem(new DefaultItem(1, 1001, 500, Money.ofLira(1000), 2));
+        cart.setTotalDiscount(Money.ofLira(200));
+
+        // When
+        long totalAmount = cart.getTotalAmount();
+
+        // Then
+        assertEquals(Money.ofLira(1800), totalAmount); // 2000 - 200
+    }
+
+    // ========== AGGREGATE TESTS ==========
+
+    @Test
+    void shouldKeepAggregatesInSyncAfterMutations() {
+        // Given
+        cart.addItem(new DefaultItem(1, 3003, 500, 10, 1));
+        cart.addItem(new DefaultItem(2, 3004, 600, 20, 2));
+        cart.addItem(new DefaultItem(3, 3003, 500, 30, 1));
+        cart.addVasItemToItem(2, new VasItem(10, 3242, 5003, 10, 1));
+        cart.addItem(new DefaultItem(1, 3003, 500, 10, 2));
+
+        // When
+        cart.removeItem(3);
+
+        // Then - Same values as walking the items again
+        long expectedTotal = 0;
+        for (Item item : cart.getItems()) {
+            expectedTotal += item.getPrice() * item.getQuantity();
+            for (VasItem vasItem : ((DefaultItem) item).getVasItems()) {
+                expectedTotal += vasItem.getPrice() * vasItem.getQuantity();
+            }
+        }
+        assertEquals(expectedTotal, cart.calculateTotalPrice());
+        assertEquals(6, cart.getTotalItemCount());
+        assertEquals(2, cart.getDistinctSellerCount());
+        assertEquals(30, cart.getCategorySubtotal(3003));
+        assertEquals(20 * 2 + 10, cart.getCategorySubtotal(3004));
+    }
+
+    @Test
+    void shouldDropSellerAndCategoryWhenLastItemRemoved() {
+        // Given
+        cart.addItem(new DefaultItem(1, 3003, 500, Money.ofLira(100), 1));
+        cart.addItem(new DefaultItem(2, 1001, 600, Money.ofLira(200), 1));
+
+        // When
+        cart.removeItem(1);
+
+        // Then
+        assertEquals(1, cart.getDistinctSellerCount());
+        assertEquals(0, cart.getSellerItemCount(500));
+        assertFalse(cart.containsCategory(3003));
+        assertEquals(0, cart.getCategorySubtotal(3003));
+        assertEquals(Money.ofLira(200), cart.calculateTotalPrice());
+    }
+
+    @Test
+    void shouldRestoreCheckpointAfterPartialChanges() {
+        // Given
+        cart.addItem(new DefaultItem(1, 1001, 500, Money.ofLira(1000), 2));
+        cart.addItem(new DefaultItem(2, 3004, 500, Money.ofLira(5000), 1));
+        cart.addVasItemToItem(2, new VasItem(10, 3242, 5003, Money.ofLira(500), 1));
+        cart.setTotalDiscount(Money.ofLira(750));
+        cart.setAppliedPromotionId(9909);
+        Cart.Checkpoint checkpoint = cart.checkpoint();
+
+        // When - Every kind of change, then roll back
+        cart.addItem(new DefaultItem(1, 1001, 500, Money.ofLira(1000), 3));
+        cart.addVasItemToItem(1, new VasItem(11, 3242, 5003, Money.ofLira(100), 1));
+        cart.removeItem(2);
+        cart.addItem(new DefaultItem(3, 3003, 600, Money.ofLira(50), 1));
+        cart.setTotalDiscount(Money.ofLira(0));
+        cart.restore(checkpoint);
+
+        // Then
+        assertEquals(2, cart.getItems().size());
+        assertEquals(2, cart.getItems().get(0).getQuantity());
+        assertEquals(0, ((DefaultItem) cart.getItems().get(0)).getVasItemCount());
+        assertEquals(1, ((DefaultItem) cart.getItems().get(1)).getVasItemCount());
+        assertEquals(Money.ofLira(7500), cart.calculateTotalPrice());
+        assertEquals(4, cart.getTotalItemCount());
+        assertFalse(cart.containsCategory(3003));
+        assertEquals(Money.ofLira(750), cart.getTotalDiscount());
+        assertEquals(9909, cart.getAppliedPromotionId());
+    }
+
+    // ========== LAZY PROMOTION TESTS ==========
+
+    @Test
+    void shouldResolvePromotionOnFirstReadAfterMutation() {
+        // Given
+        int[] resolveCount = {0};
+        PromotionService promotionService = new PromotionService();
+        cart.setPromotionResolver(c -> {
+            resolveCount[0]++;
+            promotionService.applyBestPromotion(c);
+        });
+
+        // When - Several mutations, no reads
+        cart.addItem(new DefaultItem(1, 1001, 500, Money.ofLira(1000), 2));
+        cart.addItem(new DefaultItem(2, 3004, 500, Money.ofLira(5000), 1));
+        cart.removeItem(1);
+
+        // Then - Resolved once, on the first read
+        assertEquals(0, resolveCount[0]);
+        assertEquals(Money.ofLira(4500), cart.getTotalAmount());
+        assertEquals(9909, cart.getAppliedPromotionId());
+        assertEquals(Money.ofLira(500), cart.getTotalDiscount());
+        assertEquals(1, resolveCount[0]);
+    }
+
+    // ========== PROMOTION CATALOG TESTS ==========
+
+    @Test
+    void shouldOnlyApplyCatalogRulesTargetingCartSellersAndCategories() {
+        // Given
+        PromotionService promotionService = new PromotionService(PromotionCatalog.of(List.of(
+                new SameSellerPromotion(1, 5_000, 999),
+                new CategoryPromotion(2, 4004, 4_000),
+                new CategoryPromotion(3, 1001, 2_000),
+                new SameSellerPromotion(4, 3_000, 500))));
+        cart.addItem(new DefaultItem(1, 1001, 500, Money.ofLira(1000), 1));
 
         // When
-        double totalAmount = cart.getTotalAmount();
+        promotionService.applyBestPromotion(cart);
+
+        // Then - Rules 1 and 2 target a seller/category not in the cart
+        assertEquals(4, cart.getAppliedPromotionId());
+        assertEquals(Money.ofLira(300), cart.getTotalDiscount());
+    }
+
+    @Test
+    void shouldPreferEarlierCatalogRuleOnEqualDiscount() {
+        // Given
+        PromotionService promotionService = new PromotionService(PromotionCatalog.of(List.of(
+                new TotalPricePromotion(1, new long[]{Money.ofLira(500)}, new long[]{Money.ofLira(100)}),
+                new CategoryPromotion(2, 1001, 1_000))));
+        cart.addItem(new DefaultItem(1, 1001, 500, Money.ofLira(1000), 1));
+        cart.addItem(new DefaultItem(2, 2002, 500, Money.ofLira(1000), 1));
+
+        // When
+        promotionService.applyBestPromotion(cart);
+
+        // Then - Both give 100 TL; the category rule's bound ties, so it is evaluated but comes later
+        assertEquals(1, cart.getAppliedPromotionId());
+        assertEquals(Money.ofLira(100), cart.getTotalDiscount());
+    }
+
+    @Test
+    void shouldNotSkipCategoryPromotionWhenOtherItemsHaveNegativePrices() {
+        // Given - A negative line in another category pulls the total (1000 TL) below the 3003 subtotal
+        PromotionService promotionService = new PromotionService();
+        cart.addItem(new DefaultItem(1, 3003, 500, Money.ofLira(10000), 1));
+        cart.addItem(new DefaultItem(2, 1001, 501, Money.ofLira(-9000), 1));
+
+        // When
+        promotionService.applyBestPromotion(cart);
+
+        // Then - 5% of the 3003 subtotal (500 TL) beats the 250 TL of TotalPricePromotion
+        assertEquals(5676, cart.getAppliedPromotionId());
+        assertEquals(Money.ofLira(500), cart.getTotalDiscount());
+    }
+
+    @Test
+    void shouldApplyPromotionWhoseDiscountIsMinusOneKurus() {
+        // Given - 5% of -0.20 TL is -1 kuruş, a discount like any other
+        CategoryPromotion promotion = new CategoryPromotion(1, 3003, 500);
+        PromotionService promotionService = new PromotionService(PromotionCatalog.of(List.of(promotion)));
+        cart.addItem(new DefaultItem(1, 3003, 500, -20, 1));
+
+        // When
+        promotionService.applyBestPromotion(cart);
 
         // Then
-        assertEquals(1800.0, totalAmount); // 2000 - 200
+        assertTrue(promotion.isApplicable(cart));
+        assertEquals(1, cart.getAppliedPromotionId());
+        assertEquals(-1, cart.getTotalDiscount());
+    }
+
+    @Test
+    void shouldRoundPercentageDiscountHalfUpToKurus() {
+        // Given - 5% of 0.30 TL is 1.5 kuruş
+        PromotionService promotionService = new PromotionService(PromotionCatalog.of(List.of(
+                new CategoryPromotion(1, 3003, 500))));
+        cart.addItem(new DefaultItem(1, 3003, 500, 30, 1));
+
+        // When
+        promotionService.applyBestPromotion(cart);
+
+        // Then
+        assertEquals(2, cart.getTotalDiscount());
+        assertEquals(28, cart.getTotalAmount());
+    }
+
+    @Test
+    void shouldChangeVersionOnlyWhenDisplayedStateChanges() {
+        // Given
+        cart.addItem(new DefaultItem(1, 1001, 500, Money.ofLira(1000), 1));
+        CartSnapshot snapshot = cart.latestSnapshot();
+        long version = cart.getVersion();
+
+        // When - A rejected change and a promotion that is already applied
+        assertFalse(cart.removeItem(99));
+        cart.setAppliedPromotionId(cart.getAppliedPromotionId());
+
+        // Then
+        assertEquals(version, cart.getVersion());
+        assertSame(snapshot, cart.latestSnapshot());
+        assertEquals(version, snapshot.getVersion());
+
+        cart.addItem(new DefaultItem(1, 1001, 500, Money.ofLira(1000), 1));
+        assertTrue(cart.getVersion() > version);
+        assertNotSame(snapshot, cart.latestSnapshot());
+    }
+
+    @Test
+    void shouldVisitItemsAndVasItemsInCartOrderWithoutCopies() {
+        // Given
+        cart.addItem(new DigitalItem(1, 7889, 500, Money.ofLira(50), 2));
+        cart.addItem(new DefaultItem(2, 3004, 501, Money.ofLira(2000), 1));
+        cart.addVasItemToItem(2, new VasItem(11, 3242, 5003, Money.ofLira(200), 2));
+        cart.addVasItemToItem(2, new VasItem(12, 3242, 5003, Money.ofLira(300), 1));
+
+        // When
+        List<String> visited = new ArrayList<>();
+        cart.forEachItem((itemId, categoryId, sellerId, price, quantity, digital) ->
+                visited.add(itemId + "/" + categoryId + "/" + sellerId + "/" + price + "/" + quantity + "/" + digital));
+        cart.forEachVasItem((itemId, vasItemId, price, quantity) ->
+                visited.add(itemId + ":" + vasItemId + "/" + price + "/" + quantity));
+
+        // Then - A DefaultItem's VasItems are a read-only view
+        assertEquals(List.of("1/7889/500/5000/2/true", "2/3004/501/200000/1/false", "2:11/20000/2", "2:12/30000/1"),
+                visited);
+        DefaultItem item = new DefaultItem(3, 1001, 500, Money.ofLira(100), 1);
+        List<VasItem> vasItems = item.getVasItems();
+        item.addVasItem(new VasItem(13, 3242, 5003, Money.ofLira(10), 1));
+        assertEquals(1, vasItems.size());
+        assertThrows(UnsupportedOperationException.class, () -> vasItems.add(item.getVasItem(0)));
+    }
+
+    @Test
+    void shouldReturnErrorCodesInTheOrderOfTheThrowingApi() {
+        // Given - 30 items of 10 unique ones, one of them digital
+        for (int i = 1; i <= 9; i++) {
+            assertEquals(ErrorCode.NONE, cart.tryAddItem(i, 1001, 500, Money.ofLira(100), 3, false));
+        }
+        assertEquals(ErrorCode.NONE, cart.tryAddItem(10, 7889, 500, Money.ofLira(100), 3, true));
+        long version = cart.getVersion();
+
+        // When & Then - Item rules before cart limits, and nothing changes on a rejection
+        assertEquals(ErrorCode.DEFAULT_ITEM_QUANTITY, cart.tryAddItem(11, 1001, 500, Money.ofLira(100), 11, false));
+        assertEquals(ErrorCode.UNIQUE_ITEM_LIMIT, cart.tryAddItem(11, 1001, 500, Money.ofLira(100), 1, false));
+        assertEquals(ErrorCode.TOTAL_ITEM_LIMIT, cart.tryAddItem(1, 1001, 500, Money.ofLira(100), 1, false));
+        assertEquals(ErrorCode.VAS_ITEM_SELLER, cart.tryAddVasItemToItem(1, 100, 3242, 1, Money.ofLira(10), 1));
+        assertEquals(ErrorCode.ITEM_NOT_IN_CART, cart.tryAddVasItemToItem(99, 100, 3242, 5003, Money.ofLira(10), 1));
+        assertEquals(ErrorCode.VAS_ITEM_ON_DIGITAL_ITEM,
+                cart.tryAddVasItemToItem(10, 100, 3242, 5003, Money.ofLira(10), 1));
+        assertEquals(ErrorCode.VAS_ITEM_PRICE, cart.tryAddVasItemToItem(1, 100, 3242, 5003, Money.ofLira(200), 1));
+        assertEquals(version, cart.getVersion());
+        assertEquals(30, cart.getTotalItemCount());
+
+        // The exceptions carry the same messages
+        CartException exception = assertThrows(CartException.class,
+                () -> cart.addVasItemToItem(99, new VasItem(100, 3242, 5003, Money.ofLira(10), 1)));
+        assertEquals(ErrorCode.ITEM_NOT_IN_CART.message(99), exception.getMessage());
+        assertEquals("Item not found in cart: 99", exception.getMessage());
     }
-}
\ No newline at end of file
+}
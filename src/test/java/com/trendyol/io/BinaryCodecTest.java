@@ -0,0 +1,116 @@
+package com.trendyol.io;
+
+import com.trendyol.command.CartCommand;
+import com.trendyol.command.CommandException;
+import com.trendyol.command.CommandResponse;
+import com.trendyol.domain.cart.Cart;
+import com.trendyol.domain.item.DefaultItem;
+import com.trendyol.domain.item.VasItem;
+import com.trendyol.domain.money.Money;
+import com.trendyol.service.CartOperation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryCodecTest {
+
+    private BinaryCodec codec;
+    private JsonMapper jsonMapper;
+
+    @BeforeEach
+    void setUp() {
+        codec = new BinaryCodec();
+        jsonMapper = new JsonMapper();
+    }
+
+    @Test
+    void shouldRoundTripCommands() {
+        // Given - Negative ids and a price that has no short decimal form
+        List<CartCommand> commands = List.of(
+                new CartCommand.AddItem(0, 1, 1001, 500, Money.ofLira(1000), 2),
+                new CartCommand.AddVasItemToItem(7, 2, 10, 3242, 5003, 30, 1),
+                new CartCommand.RemoveItem(-3, Integer.MAX_VALUE),
+                new CartCommand.ResetCart(Integer.MIN_VALUE),
+                new CartCommand.DisplayCart(42),
+                new CartCommand.Batch(42, List.of(
+                        new CartOperation.AddItem(1, 1001, 500, Money.ofLira(100), 1),
+                        new CartOperation.AddVasItemToItem(1, 10, 3242, 5003, Money.ofLira(50), 1),
+                        new CartOperation.RemoveItem(1))));
+
+        for (CartCommand command : commands) {
+            // Then
+            assertEquals(command, codec.decodeCommand(codec.encodeCommand(command)));
+            assertEquals(command, jsonMapper.decodeCommand(jsonMapper.encodeCommand(command)));
+        }
+    }
+
+    @Test
+    void shouldBeSmallerThanJson() {
+        // Given
+        CartCommand command = new CartCommand.AddItem(0, 1, 1001, 500, Money.ofLira(1000), 2);
+
+        // Then - opcode and 6 varints, 1000 TL is 100000 kuruş in three bytes
+        assertEquals(1 + 1 + 1 + 2 + 2 + 3 + 1, codec.encodeCommand(command).length);
+        assertTrue(codec.encodeCommand(command).length * 4 < jsonMapper.encodeCommand(command).length);
+    }
+
+    @Test
+    void shouldReplayInvalidJsonLineWithSameRejection() {
+        // Given
+        String line = "{\"command\":\"removeItem\",\"payload\":{}}";
+        byte[] body = codec.encodeJsonLine(line);
+
+        // Then
+        assertEquals(line, codec.decodeJsonLine(body));
+        CommandException binary = assertThrows(CommandException.class, () -> codec.decodeCommand(body));
+        CommandException json = assertThrows(CommandException.class, () -> jsonMapper.parseCommand(line));
+        assertEquals(json.getMessage(), binary.getMessage());
+        assertNull(codec.decodeJsonLine(codec.encodeCommand(new CartCommand.DisplayCart(0))));
+    }
+
+    @Test
+    void shouldRejectMalformedBody() {
+        // Given
+        byte[] body = codec.encodeCommand(new CartCommand.AddItem(0, 1, 1001, 500, Money.ofLira(1000), 2));
+
+        // Then - Truncated, unknown opcode, trailing bytes
+        RuntimeException truncated = assertThrows(RuntimeException.class,
+                () -> codec.decodeCommand(Arrays.copyOf(body, body.length - 1)));
+        assertTrue(truncated.getMessage().startsWith("Failed to parse binary message"));
+
+        assertThrows(RuntimeException.class, () -> codec.decodeCommand(new byte[]{99, 0}));
+        assertThrows(RuntimeException.class, () -> codec.decodeCommand(Arrays.copyOf(body, body.length + 1)));
+    }
+
+    @Test
+    void shouldRoundTripResponsesToSameJson() {
+        // Given
+        Cart cart = new Cart();
+        cart.addItem(new DefaultItem(1, 1001, 500, Money.ofLira(1000), 2));
+        cart.addItem(new DefaultItem(2, 3004, 500, Money.ofLira(5000), 1));
+        cart.addVasItemToItem(2, new VasItem(10, 3242, 5003, Money.ofLira(500), 1));
+        cart.setAppliedPromotionId(9909);
+        cart.setTotalDiscount(Money.ofLira(750));
+
+        List<CommandResponse> responses = List.of(
+                CommandResponse.displayCart(cart),
+                CommandResponse.displayCart(new Cart()),
+                CommandResponse.ITEM_ADDED,
+                CommandResponse.error("Error processing command: Unknown command: x"),
+                CommandResponse.batch(false, List.of(CommandResponse.OPERATION_ROLLED_BACK,
+                        CommandResponse.error("Item not found"), CommandResponse.OPERATION_SKIPPED)));
+
+        for (CommandResponse response : responses) {
+            // When
+            CommandResponse decoded = codec.decodeResponse(codec.encodeResponse(response));
+
+            // Then
+            assertEquals(jsonMapper.toJson(response), jsonMapper.toJson(decoded));
+        }
+        assertSame(CommandResponse.ITEM_ADDED, codec.decodeResponse(codec.encodeResponse(CommandResponse.ITEM_ADDED)));
+    }
+}
@@ -0,0 +1,130 @@
+package com.trendyol.io;
+
+import com.trendyol.command.CartCommand;
+import com.trendyol.command.CommandException;
+import com.trendyol.domain.money.Money;
+import com.trendyol.service.CartOperation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandDecoderTest {
+
+    private CommandDecoder decoder;
+
+    @BeforeEach
+    void setUp() {
+        decoder = new CommandDecoder();
+    }
+
+    // ========== HAPPY PATH TESTS ==========
+
+    @Test
+    void shouldDecodeAddItem() {
+        // When
+        CartCommand command = decoder.decode(
+                "{\"command\":\"addItem\",\"payload\":{\"itemId\":1,\"categoryId\":1001,\"sellerId\":500,\"price\":1000.0,\"quantity\":2}}");
+
+        // Then
+        assertEquals(new CartCommand.AddItem(0, 1, 1001, 500, Money.ofLira(1000), 2), command);
+    }
+
+    @Test
+    void shouldDecodeAddVasItemToItemWithCartId() {
+        // When
+        CartCommand command = decoder.decode(
+                "{\"command\":\"addVasItemToItem\",\"cartId\":7,\"payload\":{\"itemId\":2,\"vasItemId\":10,"
+                        + "\"vasCategoryId\":3242,\"vasSellerId\":5003,\"price\":500.0,\"quantity\":1}}");
+
+        // Then
+        assertEquals(new CartCommand.AddVasItemToItem(7, 2, 10, 3242, 5003, Money.ofLira(500), 1), command);
+    }
+
+    @Test
+    void shouldDecodeFieldsInAnyOrder() {
+        // When - Payload before command, unknown fields in between
+        CartCommand command = decoder.decode(
+                "{\"payload\":{\"itemId\":3,\"note\":\"x\"},\"extra\":[1,{\"a\":2}],\"command\":\"removeItem\"}");
+
+        // Then
+        assertEquals(new CartCommand.RemoveItem(0, 3), command);
+    }
+
+    @Test
+    void shouldDecodeCommandsWithoutPayload() {
+        assertEquals(new CartCommand.DisplayCart(0), decoder.decode("{\"command\":\"displayCart\"}"));
+        assertEquals(new CartCommand.ResetCart(4), decoder.decode("{\"command\":\"resetCart\",\"cartId\":4}"));
+    }
+
+    @Test
+    void shouldDecodeBatchOperations() {
+        // When
+        CartCommand command = decoder.decode("{\"command\":\"batch\",\"cartId\":3,\"payload\":{\"operations\":["
+                + "{\"command\":\"addItem\",\"payload\":{\"itemId\":1,\"categoryId\":1001,\"sellerId\":500,\"price\":10.0,\"quantity\":1}},"
+                + "{\"command\":\"removeItem\",\"payload\":{\"itemId\":2}}]}}");
+
+        // Then
+        assertEquals(new CartCommand.Batch(3, List.of(
+                new CartOperation.AddItem(1, 1001, 500, Money.ofLira(10), 1),
+                new CartOperation.RemoveItem(2))), command);
+    }
+
+    // ========== REJECTION TESTS ==========
+
+    @Test
+    void shouldRejectUnsupportedBatchOperation() {
+        CommandException exception = assertThrows(CommandException.class, () -> decoder.decode(
+                "{\"command\":\"batch\",\"payload\":{\"operations\":[{\"command\":\"resetCart\"}]}}"));
+
+        assertEquals("Unsupported batch operation: resetCart", exception.getMessage());
+    }
+
+    @Test
+    void shouldRejectMissingParameters() {
+        // Given - quantity is missing, itemId is not a number
+        CommandException missing = assertThrows(CommandException.class, () -> decoder.decode(
+                "{\"command\":\"addItem\",\"payload\":{\"itemId\":1,\"categoryId\":1001,\"sellerId\":500,\"price\":1.0}}"));
+        CommandException notNumber = assertThrows(CommandException.class, () -> decoder.decode(
+                "{\"command\":\"removeItem\",\"payload\":{\"itemId\":\"1\"}}"));
+
+        // Then
+        assertEquals("Missing required parameters for addItem", missing.getMessage());
+        assertEquals("Missing required parameter: itemId", notNumber.getMessage());
+    }
+
+    @Test
+    void shouldConvertPriceToKurus() {
+        // Given - 0.1 + 0.2 is not 0.3 as a double, but is 30 kuruş
+        CartCommand command = decoder.decode(
+                "{\"command\":\"addItem\",\"payload\":{\"itemId\":1,\"categoryId\":1001,\"sellerId\":500,\"price\":0.30000000000000004,\"quantity\":1}}");
+        CommandException outOfRange = assertThrows(CommandException.class, () -> decoder.decode(
+                "{\"command\":\"addItem\",\"payload\":{\"itemId\":1,\"categoryId\":1001,\"sellerId\":500,\"price\":1e300,\"quantity\":1}}"));
+
+        // Then
+        assertEquals(new CartCommand.AddItem(0, 1, 1001, 500, 30, 1), command);
+        assertEquals("Invalid price: 1.0E300", outOfRange.getMessage());
+    }
+
+    @Test
+    void shouldRejectUnknownCommand() {
+        CommandException exception = assertThrows(CommandException.class,
+                () -> decoder.decode("{\"command\":\"checkout\"}"));
+
+        assertEquals("Unknown command: checkout", exception.getMessage());
+    }
+
+    @Test
+    void shouldRejectMalformedJson() {
+        RuntimeException unclosed = assertThrows(RuntimeException.class,
+                () -> decoder.decode("{\"command\":\"displayCart\""));
+        RuntimeException trailing = assertThrows(RuntimeException.class,
+                () -> decoder.decode("{\"command\":\"displayCart\"} x"));
+
+        assertFalse(unclosed instanceof CommandException);
+        assertTrue(unclosed.getMessage().startsWith("Failed to parse JSON request"));
+        assertTrue(trailing.getMessage().contains("not fully consumed"));
+    }
+}
@@ -0,0 +1,188 @@
+package com.trendyol.io;
+
+import com.trendyol.command.CommandResponse;
+import com.trendyol.domain.cart.Cart;
+import com.trendyol.domain.item.DefaultItem;
+import com.trendyol.domain.item.VasItem;
+import com.trendyol.domain.money.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonResponseEncoderTest {
+
+    private Cart cart;
+
+    @BeforeEach
+    void setUp() {
+        cart = new Cart();
+        cart.addItem(new DefaultItem(1, 1001, 500, Money.ofLira(1000), 2));
+        cart.addItem(new DefaultItem(2, 3004, 500, Money.ofLira(5000), 1));
+        cart.addVasItemToItem(2, new VasItem(10, 3242, 5003, Money.ofLira(500), 1));
+        cart.setAppliedPromotionId(9909);
+        cart.setTotalDiscount(Money.ofLira(750));
+    }
+
+    @Test
+    void shouldWritePrettyCartLikeGson() {
+        // When
+        String json = new JsonResponseEncoder(true).encode(CommandResponse.displayCart(cart));
+
+        // Then - Same layout and key order as the Gson HashMap output in output.txt
+        String expected = """
+                {
+                  "result": true,
+                  "message": {
+                    "appliedPromotionId": 9909,
+                    "totalAmount": 6750.0,
+                    "totalDiscount": 750.0,
+                    "items": [
+                      {
+                        "itemId": 1,
+                        "sellerId": 500,
+                        "quantity": 2,
+                        "price": 1000.0,
+                        "vasItems": [],
+                        "categoryId": 1001
+                      },
+                      {
+                        "itemId": 2,
+                        "sellerId": 500,
+                        "quantity": 1,
+                        "price": 5000.0,
+                        "vasItems": [
+                          {
+                            "quantity": 1,
+                            "price": 500.0,
+                            "vasItemId": 10,
+                            "vasCategoryId": 3242,
+                            "vasSellerId": 5003
+                          }
+                        ],
+                        "categoryId": 3004
+                      }
+                    ]
+                  }
+                }""";
+        assertEquals(expected, json);
+    }
+
+    @Test
+    void shouldWriteCompactCartOnOneLine() {
+        // Given
+        cart.reset();
+
+        // When
+        String json = new JsonResponseEncoder(false).encode(CommandResponse.displayCart(cart));
+
+        // Then
+        assertEquals("{\"result\":true,\"message\":{\"appliedPromotionId\":0,\"totalAmount\":0.0,"
+                + "\"totalDiscount\":0.0,\"items\":[]}}", json);
+    }
+
+    @Test
+    void shouldEscapeMessagesLikeGson() {
+        // When
+        String json = new JsonResponseEncoder(false).encode(
+                CommandResponse.error("Unknown command: <a href='x'>\"b\"\n"));
+
+        // Then
+        assertEquals("{\"result\":false,\"message\":\"Unknown command: \\u003ca href\\u003d\\u0027x\\u0027\\u003e"
+                + "\\\"b\\\"\\n\"}", json);
+    }
+
+    @Test
+    void shouldReusePreEncodedConstantResponses() {
+        // Given
+        JsonResponseEncoder encoder = new JsonResponseEncoder(true);
+
+        // When & Then
+        assertSame(encoder.encode(CommandResponse.ITEM_ADDED), encoder.encode(CommandResponse.ITEM_ADDED));
+        assertEquals("{\n  \"result\": true,\n  \"message\": \"Item added to cart successfully\"\n}",
+                encoder.encode(CommandResponse.ITEM_ADDED));
+    }
+
+    @Test
+    void shouldReuseDisplayCartBodyUntilCartChanges() {
+        // Given
+        DisplayCartCache cache = new DisplayCartCache();
+        JsonResponseEncoder encoder = new JsonResponseEncoder(false, cache);
+        String first = encoder.encode(CommandResponse.displayCart(cart));
+
+        // When - Same version, then a change that only touches the discount
+        String second = encoder.encode(CommandResponse.displayCart(cart));
+        cart.setTotalDiscount(Money.ofLira(500));
+        StringBuilder out = new StringBuilder("prefix ");
+        encoder.encode(CommandResponse.displayCart(cart), out);
+
+        // Then
+        assertSame(first, second);
+        assertEquals("prefix " + new JsonResponseEncoder(false).encode(CommandResponse.displayCart(cart)),
+                out.toString());
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(1, cache.getEntries());
+        assertEquals(out.length() - "prefix ".length(), cache.getChars());
+    }
+
+    @Test
+    void shouldDropLeastRecentlyDisplayedCartPastMaxCarts() {
+        // Given - Room for two carts
+        DisplayCartCache cache = new DisplayCartCache(2);
+        JsonResponseEncoder encoder = new JsonResponseEncoder(false, cache);
+        Cart[] carts = {new Cart(1), new Cart(2), new Cart(3)};
+        encoder.encode(CommandResponse.displayCart(carts[0]));
+        String second = encoder.encode(CommandResponse.displayCart(carts[1]));
+
+        // When - Cart 1 displayed again, so cart 2 is the least recently displayed one
+        encoder.encode(CommandResponse.displayCart(carts[0]));
+        encoder.encode(CommandResponse.displayCart(carts[2]));
+
+        // Then
+        assertEquals(2, cache.getEntries());
+        assertEquals(1, cache.getEvictions());
+        assertNull(cache.get(carts[1].latestSnapshot()));
+        assertNotNull(cache.get(carts[0].latestSnapshot()));
+        assertEquals(2L * second.length(), cache.getChars());
+        cache.invalidate(1);
+        assertEquals(second.length(), cache.getChars());
+    }
+
+    @Test
+    void shouldReuseInvalidatedRoomWithoutEvicting() {
+        // Given - Full cache for two carts, one of them invalidated
+        DisplayCartCache cache = new DisplayCartCache(2);
+        JsonResponseEncoder encoder = new JsonResponseEncoder(false, cache);
+        Cart[] carts = {new Cart(1), new Cart(2), new Cart(3)};
+        encoder.encode(CommandResponse.displayCart(carts[0]));
+        encoder.encode(CommandResponse.displayCart(carts[1]));
+        cache.invalidate(1);
+
+        // When
+        encoder.encode(CommandResponse.displayCart(carts[2]));
+
+        // Then
+        assertEquals(2, cache.getEntries());
+        assertEquals(0, cache.getEvictions());
+        assertNotNull(cache.get(carts[1].latestSnapshot()));
+        assertNotNull(cache.get(carts[2].latestSnapshot()));
+    }
+
+    @Test
+    void shouldNotCacheDecodedSnapshots() {
+        // Given - A response read back from a file has no version
+        DisplayCartCache cache = new DisplayCartCache();
+        JsonResponseEncoder encoder = new JsonResponseEncoder(false, cache);
+        BinaryCodec codec = new BinaryCodec();
+        CommandResponse decoded = codec.decodeResponse(codec.encodeResponse(CommandResponse.displayCart(cart)));
+
+        // When
+        encoder.encode(decoded);
+        encoder.encode(decoded);
+
+        // Then
+        assertEquals(0, cache.getHits() + cache.getMisses());
+        assertEquals(0, cache.getEntries());
+    }
+}
@@ -0,0 +1,50 @@
+package com.trendyol.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedInputReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldReadSameLinesAsInputReaderForAnyChunkSize() throws IOException {
+        // Given - Blank lines, CRLF, surrounding whitespace, multi-byte characters, no final newline
+        Path file = tempDir.resolve("input.txt");
+        Files.writeString(file, "{\"command\":\"displayCart\"}\r\n\r\n   \n  {\"a\":\"çğü€\"}  \n\t\n\rlast");
+        List<String> expected = new InputReader().readLines(file.toString());
+
+        for (int chunkSize = 1; chunkSize <= 64; chunkSize++) {
+            // When
+            List<String> lines = new ArrayList<>();
+            new MappedInputReader(3, chunkSize).forEachLine(file.toString(), MappedInputReader::decode, lines::add);
+
+            // Then - Same lines, same order
+            assertEquals(expected, lines, "chunk size " + chunkSize);
+        }
+        assertEquals(List.of("{\"command\":\"displayCart\"}", "{\"a\":\"çğü€\"}", "last"), expected);
+    }
+
+    @Test
+    void shouldNotCallParserForEmptyFile() throws IOException {
+        // Given
+        Path file = tempDir.resolve("empty.txt");
+        Files.writeString(file, "");
+
+        // When
+        List<String> lines = new ArrayList<>();
+        new MappedInputReader(2).forEachLine(file.toString(), MappedInputReader::decode, lines::add);
+
+        // Then
+        assertTrue(lines.isEmpty());
+    }
+}
@@ -0,0 +1,154 @@
+package com.trendyol.journal;
+
+import com.trendyol.command.CommandProcessor;
+import com.trendyol.command.CommandResponse;
+import com.trendyol.io.JsonMapper;
+import com.trendyol.service.CartService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartJournalTest {
+
+    private static final List<String> COMMANDS = List.of(
+            "{\"command\":\"addItem\",\"cartId\":1,\"payload\":{\"itemId\":1,\"categoryId\":1001,\"sellerId\":500,\"price\":1000.0,\"quantity\":2}}",
+            "{\"command\":\"addVasItemToItem\",\"cartId\":1,\"payload\":{\"itemId\":1,\"vasItemId\":10,\"vasCategoryId\":3242,\"vasSellerId\":5003,\"price\":500.0,\"quantity\":1}}",
+            // Digital item merged to 8, above the 5 a single addItem accepts
+            "{\"command\":\"addItem\",\"cartId\":2,\"payload\":{\"itemId\":5,\"categoryId\":7889,\"sellerId\":500,\"price\":100.0,\"quantity\":4}}",
+            "{\"command\":\"addItem\",\"cartId\":2,\"payload\":{\"itemId\":5,\"categoryId\":7889,\"sellerId\":500,\"price\":100.0,\"quantity\":4}}",
+            "{\"command\":\"addItem\",\"cartId\":3,\"payload\":{\"itemId\":7,\"categoryId\":3003,\"sellerId\":501,\"price\":250.0,\"quantity\":1}}",
+            "{\"command\":\"removeItem\",\"cartId\":3,\"payload\":{\"itemId\":7}}",
+            // Failed and no-op commands are not journaled
+            "{\"command\":\"removeItem\",\"cartId\":3,\"payload\":{\"itemId\":99}}",
+            "{\"command\":\"addItem\",\"cartId\":3,\"payload\":{\"itemId\":8,\"categoryId\":7889,\"sellerId\":501,\"price\":10.0,\"quantity\":6}}");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldRecoverFromSnapshotAfterClose() {
+        // Given
+        CartService before = new CartService();
+        CartJournal journal = open(before);
+        run(before, journal);
+        journal.close();
+
+        // When
+        CartService after = new CartService();
+        CartJournal.Recovery recovery = open(after).recover(new CommandProcessor(new JsonMapper(), after)::execute);
+
+        // Then - Everything comes from the snapshot, cart 3 is empty and not stored
+        assertEquals(2, recovery.carts());
+        assertEquals(0, recovery.replayed());
+        assertEquals(6, recovery.sequence());
+        assertSameCarts(before, after);
+    }
+
+    @Test
+    void shouldReplayJournalAfterCrash() throws IOException {
+        // Given - A copy of the directory taken while the journal was still open
+        CartService before = new CartService();
+        CartJournal journal = open(before);
+        CommandProcessor processor = run(before, journal);
+        processor.awaitDurable();
+        Path crashed = Files.createDirectory(directory.resolve("crashed"));
+        copyFiles(directory, crashed);
+        journal.close();
+
+        // When
+        CartService after = new CartService();
+        CartJournal recovered = new CartJournal(crashed, 0, after);
+        CartJournal.Recovery recovery = recovered.recover(new CommandProcessor(new JsonMapper(), after)::execute);
+
+        // Then
+        assertEquals(0, recovery.carts());
+        assertEquals(6, recovery.replayed());
+        assertSameCarts(before, after);
+        recovered.close();
+    }
+
+    @Test
+    void shouldIgnoreTornRecordAtTheEnd() throws IOException {
+        // Given
+        CartService before = new CartService();
+        CartJournal journal = open(before);
+        run(before, journal).awaitDurable();
+        Path crashed = Files.createDirectory(directory.resolve("crashed"));
+        copyFiles(directory, crashed);
+        journal.close();
+
+        Path segment = CommandJournal.segmentPath(crashed, 1);
+        long intactSize = Files.size(segment);
+        Files.write(segment, new byte[]{20, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        // When
+        CartService after = new CartService();
+        CartJournal recovered = new CartJournal(crashed, 0, after);
+        CartJournal.Recovery recovery = recovered.recover(new CommandProcessor(new JsonMapper(), after)::execute);
+
+        // Then - The partial record is cut off and new records continue after the intact ones
+        assertEquals(6, recovery.sequence());
+        assertEquals(intactSize, Files.size(segment));
+        assertSameCarts(before, after);
+        recovered.close();
+    }
+
+    @Test
+    void shouldSnapshotEveryIntervalAndDropCoveredSegments() throws IOException {
+        // Given
+        CartService cartService = new CartService();
+        CartJournal journal = new CartJournal(directory, 4, cartService);
+        journal.recover(command -> fail("Nothing to recover"));
+
+        // When
+        run(cartService, journal);
+
+        // Then - Snapshot after record 4, the journal continues in a segment starting at 5
+        assertEquals(List.of("journal-00000000000000000005.log", "snapshot-00000000000000000004.bin"), files(directory));
+        journal.close();
+    }
+
+    private CartJournal open(CartService cartService) {
+        CartJournal journal = new CartJournal(directory, 0, cartService);
+        journal.recover(command -> fail("Nothing to recover"));
+        return journal;
+    }
+
+    private static CommandProcessor run(CartService cartService, CartJournal journal) {
+        CommandProcessor processor = new CommandProcessor(new JsonMapper(), cartService, journal);
+        for (String command : COMMANDS) {
+            processor.process(command);
+        }
+        return processor;
+    }
+
+    private static void assertSameCarts(CartService expected, CartService actual) {
+        JsonMapper jsonMapper = new JsonMapper();
+        for (int cartId = 1; cartId <= 3; cartId++) {
+            assertEquals(jsonMapper.toJson(CommandResponse.displayCart(expected.getCart(cartId))),
+                    jsonMapper.toJson(CommandResponse.displayCart(actual.getCart(cartId))), "cart " + cartId);
+        }
+    }
+
+    private static void copyFiles(Path from, Path to) throws IOException {
+        try (Stream<Path> files = Files.list(from)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                Files.copy(file, to.resolve(file.getFileName()));
+            }
+        }
+    }
+
+    private static List<String> files(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().toList();
+        }
+    }
+}
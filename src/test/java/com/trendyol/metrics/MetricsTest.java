@@ -0,0 +1,89 @@
+package com.trendyol.metrics;
+
+import com.trendyol.command.CommandProcessor;
+import com.trendyol.domain.promotion.PromotionCatalog;
+import com.trendyol.domain.promotion.PromotionService;
+import com.trendyol.io.JsonMapper;
+import com.trendyol.service.CartService;
+import com.trendyol.service.PromotionMode;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsTest {
+
+    @Test
+    void shouldReportPercentilesWithinBucketPrecision() {
+        // Given - 1..100000 ns, one value each
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 100_000; nanos++) {
+            histogram.record(nanos);
+        }
+
+        // When
+        LatencyHistogram.Summary summary = histogram.summarize();
+
+        // Then
+        assertEquals(100_000, summary.count());
+        assertEquals(100_000, summary.max());
+        assertEquals(50_000, summary.p50(), 50_000 / 32.0);
+        assertEquals(99_000, summary.p99(), 99_000 / 32.0);
+        assertEquals(99_900, summary.p999(), 99_900 / 32.0);
+        assertEquals(50_000, summary.mean(), 50_000 / 32.0);
+    }
+
+    @Test
+    void shouldCoverWholeRangeWithContiguousBuckets() {
+        // Every bucket starts right after the previous one ends
+        for (int index = 1; index <= LatencyHistogram.bucketIndex(Long.MAX_VALUE); index++) {
+            long lower = LatencyHistogram.bucketUpperBound(index - 1) + 1;
+            assertEquals(index, LatencyHistogram.bucketIndex(lower));
+            assertEquals(index, LatencyHistogram.bucketIndex(LatencyHistogram.bucketUpperBound(index)));
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(Long.MAX_VALUE)));
+    }
+
+    @Test
+    void shouldCountCommandsErrorsAndWinningPromotions() throws Exception {
+        // Given
+        Metrics metrics = new Metrics();
+        CartService cartService = new CartService(PromotionMode.EAGER,
+                new PromotionService(PromotionCatalog.builtIn(), metrics));
+        CommandProcessor processor = new CommandProcessor(new JsonMapper(), cartService, null, metrics);
+
+        // When - Same seller wins (9909), one failed removal, one line that is not a command
+        processor.process("{\"command\":\"addItem\",\"payload\":{\"itemId\":1,\"categoryId\":1001,\"sellerId\":500,\"price\":100.0,\"quantity\":1}}");
+        processor.process("{\"command\":\"addItem\",\"payload\":{\"itemId\":2,\"categoryId\":1002,\"sellerId\":500,\"price\":100.0,\"quantity\":1}}");
+        processor.process("{\"command\":\"removeItem\",\"payload\":{\"itemId\":3}}");
+        processor.process("{\"command\":\"displayCart\"}");
+        processor.process("not json");
+
+        // Then
+        Map<String, Metrics.Statistics> commands = metrics.getCommands().stream()
+                .collect(Collectors.toMap(Metrics.Statistics::name, statistics -> statistics));
+        assertEquals(2, commands.get("addItem").count());
+        assertEquals(0, commands.get("addItem").errors());
+        assertEquals(1, commands.get("removeItem").errors());
+        assertEquals(1, commands.get("displayCart").count());
+        assertEquals(1, commands.get("invalid").errors());
+        assertEquals(2, metrics.getPromotions().count());
+        assertEquals(Map.of(9909, 2L), metrics.getPromotionWins());
+
+        // And readable over JMX
+        metrics.register();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        CompositeData[] published = (CompositeData[]) server.getAttribute(new ObjectName(Metrics.OBJECT_NAME), "Commands");
+        assertEquals(List.of("addItem", "addVasItemToItem", "removeItem", "resetCart", "displayCart", "batch", "invalid"),
+                Arrays.stream(published).map(row -> (String) row.get("name")).toList());
+        assertEquals(2L, published[0].get("count"));
+    }
+}
@@ -0,0 +1,143 @@
+package com.trendyol.replay;
+
+import com.trendyol.command.CommandProcessor;
+import com.trendyol.command.CommandResponse;
+import com.trendyol.io.InputReader;
+import com.trendyol.io.JsonMapper;
+import com.trendyol.io.StreamingOutputWriter;
+import com.trendyol.service.CartService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldWriteSameOutputAsSequentialRun() throws IOException {
+        // Given - A random workload over 40 carts, with invalid lines and failing commands
+        Path input = writeInput(5_000);
+        String expected = sequential(input);
+
+        // When
+        Path partitioned = directory.resolve("partitioned.txt");
+        try (StreamingOutputWriter out = new StreamingOutputWriter(partitioned.toString(), 0)) {
+            newPartitioned(new JsonMapper(), 4, 64).run(new InputReader(), input.toString(), out);
+        }
+        Path pipelined = directory.resolve("pipelined.txt");
+        try (StreamingOutputWriter out = new StreamingOutputWriter(pipelined.toString(), 0)) {
+            JsonMapper jsonMapper = new JsonMapper();
+            new PipelinedReplay(new CommandProcessor(jsonMapper, new CartService()), jsonMapper, 3, 2, 64)
+                    .run(new InputReader(), input.toString(), out);
+        }
+
+        // Then
+        assertEquals(expected, Files.readString(partitioned));
+        assertEquals(expected, Files.readString(pipelined));
+    }
+
+    @Test
+    void shouldReportWriteFailureInsteadOfHanging() throws IOException {
+        // Given - An output that fails after 100 lines, and far more lines than the window holds
+        Path input = writeInput(2_000);
+        StreamingOutputWriter failing = new StreamingOutputWriter(directory.resolve("out.txt").toString(), 0) {
+            private int lines;
+
+            @Override
+            public void writeLine(String line) {
+                if (++lines > 100) {
+                    throw new RuntimeException("No space left on device");
+                }
+                super.writeLine(line);
+            }
+        };
+
+        // When & Then
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            RuntimeException e = assertThrows(RuntimeException.class,
+                    () -> newPartitioned(new JsonMapper(), 4, 16).run(new InputReader(), input.toString(), failing));
+            assertTrue(e.getMessage().contains("No space left on device"), e.getMessage());
+        });
+        failing.close();
+    }
+
+    @Test
+    void shouldReportDeadWorkerInsteadOfHanging() throws IOException {
+        // Given - Serializing cart 7 raises an Error, which kills the worker of that cart
+        Path input = writeInput(2_000);
+        JsonMapper jsonMapper = new JsonMapper() {
+            @Override
+            public String toJson(CommandResponse response) {
+                if (response.getCartSnapshot() != null && response.getCartSnapshot().getCartId() == 7) {
+                    throw new AssertionError("Cannot serialize cart 7");
+                }
+                return super.toJson(response);
+            }
+        };
+
+        // When & Then
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            try (StreamingOutputWriter out = new StreamingOutputWriter(directory.resolve("out.txt").toString(), 0)) {
+                RuntimeException e = assertThrows(RuntimeException.class,
+                        () -> newPartitioned(jsonMapper, 4, 16).run(new InputReader(), input.toString(), out));
+                assertTrue(e.getMessage().contains("Cannot serialize cart 7"), e.getMessage());
+            }
+        });
+    }
+
+    private static PartitionedReplay newPartitioned(JsonMapper jsonMapper, int workers, int windowSize) {
+        return new PartitionedReplay(new CommandProcessor(jsonMapper, new CartService()), jsonMapper, workers,
+                windowSize);
+    }
+
+    private static String sequential(Path input) throws IOException {
+        JsonMapper jsonMapper = new JsonMapper();
+        CommandProcessor processor = new CommandProcessor(jsonMapper, new CartService());
+        StringBuilder out = new StringBuilder();
+        for (String line : Files.readAllLines(input)) {
+            out.append(jsonMapper.toJson(processor.process(line))).append(System.lineSeparator());
+        }
+        return out.toString();
+    }
+
+    private Path writeInput(int count) throws IOException {
+        Random random = new Random(7);
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int cartId = random.nextInt(40);
+            int itemId = 1 + random.nextInt(8);
+            int r = random.nextInt(20);
+            if (r < 8) {
+                lines.add("{\"command\":\"addItem\",\"cartId\":" + cartId + ",\"payload\":{\"itemId\":" + itemId
+                        + ",\"categoryId\":" + (itemId % 3 == 0 ? 3003 : 1001) + ",\"sellerId\":" + (500 + itemId % 2)
+                        + ",\"price\":" + (10 + random.nextInt(900)) + ".5,\"quantity\":" + (1 + random.nextInt(3)) + "}}");
+            } else if (r < 11) {
+                lines.add("{\"command\":\"addVasItemToItem\",\"cartId\":" + cartId + ",\"payload\":{\"itemId\":" + itemId
+                        + ",\"vasItemId\":" + (100 + i) + ",\"vasCategoryId\":3242,\"vasSellerId\":5003,\"price\":5,"
+                        + "\"quantity\":1}}");
+            } else if (r < 14) {
+                lines.add("{\"command\":\"removeItem\",\"cartId\":" + cartId + ",\"payload\":{\"itemId\":" + itemId + "}}");
+            } else if (r < 15) {
+                lines.add("{\"command\":\"resetCart\",\"cartId\":" + cartId + "}");
+            } else if (r < 19) {
+                lines.add("{\"command\":\"displayCart\",\"cartId\":" + cartId + "}");
+            } else {
+                lines.add("not a command " + i);
+            }
+        }
+        Path input = directory.resolve("input.txt");
+        Files.write(input, lines);
+        return input;
+    }
+}
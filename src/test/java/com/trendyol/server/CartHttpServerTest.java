@@ -0,0 +1,76 @@
+package com.trendyol.server;
+
+import com.trendyol.command.CommandProcessor;
+import com.trendyol.domain.money.Money;
+import com.trendyol.io.JsonMapper;
+import com.trendyol.service.CartService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartHttpServerTest {
+
+    private CartService cartService;
+    private CartHttpServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        JsonMapper jsonMapper = new JsonMapper(false);
+        cartService = new CartService();
+        server = new CartHttpServer(new CommandProcessor(jsonMapper, cartService), jsonMapper, 0);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void shouldAnswerCommandOverHttp() throws Exception {
+        // Given
+        HttpClient client = HttpClient.newHttpClient();
+        URI uri = URI.create("http://localhost:" + server.getPort() + CartHttpServer.COMMANDS_PATH);
+
+        // When
+        HttpResponse<String> added = client.send(HttpRequest.newBuilder(uri)
+                .POST(HttpRequest.BodyPublishers.ofString("{\"command\":\"addItem\",\"cartId\":3,\"payload\":"
+                        + "{\"itemId\":1,\"categoryId\":1001,\"sellerId\":500,\"price\":100.0,\"quantity\":1}}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> get = client.send(HttpRequest.newBuilder(uri).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        // Then
+        assertEquals(200, added.statusCode());
+        assertEquals("{\"result\":true,\"message\":\"Item added to cart successfully\"}", added.body());
+        assertEquals(405, get.statusCode());
+        assertEquals(1, cartService.getCart(3).getTotalItemCount());
+    }
+
+    @Test
+    void shouldNotLoseUpdatesOfOneCartUnderConcurrency() {
+        // Given - 20 quantity increments of the same item from as many virtual threads
+        String addOne = "{\"command\":\"addItem\",\"cartId\":7,\"payload\":"
+                + "{\"itemId\":1,\"categoryId\":1001,\"sellerId\":500,\"price\":100.0,\"quantity\":1}}";
+
+        // When
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 20; i++) {
+                executor.submit(() -> server.process(addOne));
+            }
+        }
+
+        // Then
+        assertEquals(20, cartService.getCart(7).getTotalItemCount());
+        assertEquals(Money.ofLira(2000), cartService.getCart(7).calculateTotalPrice());
+    }
+}
@@ -0,0 +1,140 @@
+package com.trendyol.service;
+
+import com.trendyol.domain.cart.Cart;
+import com.trendyol.domain.cart.CartSnapshot;
+import com.trendyol.domain.exception.CartException;
+import com.trendyol.domain.exception.ItemException;
+import com.trendyol.domain.item.DefaultItem;
+import com.trendyol.domain.item.DigitalItem;
+import com.trendyol.domain.item.Item;
+import com.trendyol.domain.item.VasItem;
+import com.trendyol.domain.money.Money;
+import com.trendyol.domain.promotion.PromotionService;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartServiceConcurrencyTest {
+
+    private static final int CART_ID = 1;
+    private static final int[] CATEGORIES = {1001, 3003, 3004, 7889};
+    private static final int[] SELLERS = {500, 501};
+
+    @Test
+    void shouldPublishEachCompletedCommand() {
+        // Given
+        CartService cartService = new CartService(PromotionMode.LAZY, new PromotionService(), CartReadMode.SNAPSHOT);
+        CartSnapshot empty = cartService.displayCart(CART_ID);
+
+        // When
+        cartService.addItem(CART_ID, 1, 1001, 500, Money.ofLira(1000), 2);
+        CartSnapshot added = cartService.displayCart(CART_ID);
+
+        // Then - Same instance until the next change, promotion resolved when published
+        assertEquals(0, empty.getItemCount());
+        assertSame(added, cartService.displayCart(CART_ID));
+        assertEquals(1232, added.getAppliedPromotionId());
+        assertEquals(Money.ofLira(1750), cartService.getTotalAmount(CART_ID));
+
+        cartService.resetCart(CART_ID);
+        assertEquals(0, cartService.displayCart(CART_ID).getItemCount());
+    }
+
+    @Test
+    void shouldNeverShowTornCartToConcurrentReaders() throws Exception {
+        // Given - One writer, three readers that do not lock
+        CartService cartService = new CartService(PromotionMode.EAGER, new PromotionService(), CartReadMode.SNAPSHOT);
+        PromotionService promotionService = new PromotionService();
+        AtomicReference<String> torn = new AtomicReference<>();
+        AtomicLong reads = new AtomicLong();
+        Thread writer = new Thread(() -> write(cartService, 20_000));
+
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            readers.add(new Thread(() -> {
+                while (writer.isAlive() && torn.get() == null) {
+                    String mismatch = check(cartService.displayCart(CART_ID), promotionService);
+                    if (mismatch != null) {
+                        torn.compareAndSet(null, mismatch);
+                    }
+                    reads.incrementAndGet();
+                }
+            }));
+        }
+
+        // When
+        writer.start();
+        readers.forEach(Thread::start);
+        writer.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        // Then - Every snapshot is a state the cart was in after some command
+        assertNull(torn.get());
+        assertTrue(reads.get() > 0);
+        assertNull(check(cartService.displayCart(CART_ID), promotionService));
+    }
+
+    private static void write(CartService cartService, int commands) {
+        Random random = new Random(7);
+        for (int i = 0; i < commands; i++) {
+            int itemId = 1 + random.nextInt(8);
+            long price = Money.ofLira(50 + random.nextInt(2_000)) + random.nextInt(100);
+            try {
+                int r = random.nextInt(100);
+                if (r < 50) {
+                    cartService.addItem(CART_ID, itemId, CATEGORIES[itemId % CATEGORIES.length],
+                            SELLERS[random.nextInt(SELLERS.length)], price, 1 + random.nextInt(3));
+                } else if (r < 65) {
+                    cartService.addVasItemToItem(CART_ID, itemId, 100 + i, 3242, 5003, price / 10, 1);
+                } else if (r < 90) {
+                    cartService.removeItem(CART_ID, itemId);
+                } else if (r < 98) {
+                    cartService.applyBatch(CART_ID, List.of(
+                            new CartOperation.RemoveItem(itemId),
+                            new CartOperation.AddItem(itemId, 1001, 500, price, 2)));
+                } else {
+                    cartService.resetCart(CART_ID);
+                }
+            } catch (CartException | ItemException | BatchException e) {
+                // Rejected by the cart limits, nothing was published
+            }
+        }
+    }
+
+    // Recomputes totals and the best promotion from the snapshot's own items, null if they agree
+    private static String check(CartSnapshot snapshot, PromotionService promotionService) {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < snapshot.getItemCount(); i++) {
+            Item item = snapshot.getCategoryId(i) == 7889
+                    ? new DigitalItem(snapshot.getItemId(i), snapshot.getCategoryId(i), snapshot.getSellerId(i), snapshot.getPrice(i), 1)
+                    : new DefaultItem(snapshot.getItemId(i), snapshot.getCategoryId(i), snapshot.getSellerId(i), snapshot.getPrice(i), 1);
+            item.increaseQuantity(snapshot.getQuantity(i) - 1);
+            for (int v = snapshot.getVasStart(i); v < snapshot.getVasEnd(i); v++) {
+                ((DefaultItem) item).addVasItem(new VasItem(snapshot.getVasItemId(v), snapshot.getVasCategoryId(v),
+                        snapshot.getVasSellerId(v), snapshot.getVasPrice(v), snapshot.getVasQuantity(v)));
+            }
+            items.add(item);
+        }
+
+        Cart cart = new Cart();
+        cart.load(items);
+        promotionService.applyBestPromotion(cart);
+
+        if (cart.getAppliedPromotionId() != snapshot.getAppliedPromotionId()
+                || cart.getTotalDiscount() != snapshot.getTotalDiscount()
+                || cart.getTotalAmount() != snapshot.getTotalAmount()) {
+            return "items imply promotion " + cart.getAppliedPromotionId() + ", discount " + cart.getTotalDiscount()
+                    + ", total " + cart.getTotalAmount() + " but snapshot has " + snapshot.getAppliedPromotionId()
+                    + ", " + snapshot.getTotalDiscount() + ", " + snapshot.getTotalAmount();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,182 @@
+package com.trendyol.service;
+
+import com.trendyol.command.CommandResponse;
+import com.trendyol.domain.cart.Cart;
+import com.trendyol.domain.item.DefaultItem;
+import com.trendyol.domain.money.Money;
+import com.trendyol.domain.promotion.PromotionService;
+import com.trendyol.io.DisplayCartCache;
+import com.trendyol.io.JsonResponseEncoder;
+import com.trendyol.store.OffHeapCartStore;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TieredCartRegistryTest {
+
+    @Test
+    void shouldEvictLeastRecentlyUsedIdleCart() {
+        // Given
+        TieredCartRegistry registry = new TieredCartRegistry(Cart::new, new OffHeapCartStore(), 2);
+        Cart first = registry.acquire(1);
+
+        // When - Cart 1 stays in use while carts 2, 3 and 4 are touched
+        registry.getOrCreate(2);
+        registry.getOrCreate(3);
+        registry.getOrCreate(4);
+
+        // Then - Never evicted while in use, gone right after the release
+        assertSame(first, registry.acquire(1));
+        registry.release(first);
+        assertEquals(2, registry.getEvictions());
+        registry.release(first);
+        registry.getOrCreate(5);
+        registry.getOrCreate(6);
+        assertNotSame(first, registry.getOrCreate(1));
+        assertEquals(2, registry.getResidentCount());
+        assertEquals(6, registry.size());
+        assertThrows(IllegalStateException.class, () -> registry.release(first));
+    }
+
+    @Test
+    void shouldShowSameCartsAsHeapOnlyService() {
+        // Given - A random workload over 20 carts, 3 of them on the heap at a time
+        CartService heap = new CartService(PromotionMode.LAZY, new PromotionService(), CartReadMode.SNAPSHOT, 0);
+        CartService tiered = new CartService(PromotionMode.LAZY, new PromotionService(), CartReadMode.SNAPSHOT, 3);
+        Random random = new Random(11);
+
+        // When
+        for (int i = 0; i < 5_000; i++) {
+            int cartId = random.nextInt(20);
+            int itemId = 1 + random.nextInt(6);
+            long price = Money.ofLira(10 + random.nextInt(500));
+            int r = random.nextInt(10);
+            for (CartService cartService : new CartService[]{heap, tiered}) {
+                try {
+                    if (r < 5) {
+                        cartService.addItem(cartId, itemId, itemId % 2 == 0 ? 1001 : 3003, 500 + itemId % 3, price, 1);
+                    } else if (r < 7) {
+                        cartService.addVasItemToItem(cartId, itemId, 100 + i, 3242, 5003, price / 20, 1);
+                    } else if (r < 9) {
+                        cartService.removeItem(cartId, itemId);
+                    } else {
+                        cartService.resetCart(cartId);
+                    }
+                } catch (RuntimeException e) {
+                    // Rejected by the cart limits in both services
+                }
+            }
+        }
+
+        // Then - Same contents and promotions; versions only run ahead where an emptied cart was freed
+        TieredCartRegistry registry = (TieredCartRegistry) tiered.getCartRegistry();
+        assertTrue(registry.getReloads() > 1_000);
+        assertTrue(registry.getFreed() > 0);
+        for (int cartId = 0; cartId < 20; cartId++) {
+            Cart expected = heap.getCart(cartId);
+            assertTrue(tiered.displayCart(cartId).getVersion() >= expected.getVersion(), "cart " + cartId);
+            assertEquals(expected.getTotalAmount(), tiered.getTotalAmount(cartId), "cart " + cartId);
+            assertEquals(expected.getAppliedPromotionId(), tiered.displayCart(cartId).getAppliedPromotionId());
+            assertEquals(expected.getItems().size(), tiered.displayCart(cartId).getItemCount());
+        }
+    }
+
+    @Test
+    void shouldExpireIdleCartsAndFreeEmptiedOnes() {
+        // Given - Carts idle for 10 s leave the heap, and so does anything above the size of two carts
+        AtomicLong now = new AtomicLong();
+        OffHeapCartStore store = new OffHeapCartStore();
+        long twoCarts = 2 * filledCart(0).estimateHeapBytes();
+        TieredCartRegistry registry = new TieredCartRegistry(Cart::new, store,
+                new ResidencyLimits(0, twoCarts, Duration.ofSeconds(10), EvictionPolicy.LRU), now::get);
+        for (int cartId = 1; cartId <= 3; cartId++) {
+            fill(registry, cartId);
+        }
+        assertEquals(2, registry.getResidentCount());
+        assertTrue(registry.getResidentBytes() <= twoCarts);
+
+        // When - 11 s later cart 4 is used, then cart 3 is reset
+        now.addAndGet(Duration.ofSeconds(11).toNanos());
+        fill(registry, 4);
+        Cart reset = registry.acquire(3);
+        long resetVersion = reset.getVersion() + 1;
+        reset.reset();
+        registry.release(reset);
+
+        // Then - Both idle carts expired, the reset one is gone from heap and store
+        assertEquals(2, registry.getExpirations());
+        assertEquals(1, registry.getEvictions());
+        assertEquals(1, registry.getFreed());
+        assertEquals(1, registry.getResidentCount());
+        assertFalse(store.contains(3));
+        assertEquals(3, registry.size());
+        assertTrue(registry.getOrCreate(3).getVersion() > resetVersion);
+    }
+
+    @Test
+    void shouldKeepFrequentCartsWhenScanningOneOffCarts() {
+        // Given - Carts 1 and 2 are used often
+        TieredCartRegistry registry = new TieredCartRegistry(Cart::new, new OffHeapCartStore(),
+                new ResidencyLimits(2, 0, Duration.ZERO, EvictionPolicy.TINYLFU));
+        Cart first = fill(registry, 1);
+        Cart second = fill(registry, 2);
+        for (int i = 0; i < 5; i++) {
+            registry.getOrCreate(1);
+            registry.getOrCreate(2);
+        }
+
+        // When - 100 carts are used once each
+        for (int cartId = 100; cartId < 200; cartId++) {
+            fill(registry, cartId);
+        }
+
+        // Then - Each newcomer was evicted instead of a frequent cart, and nothing was lost
+        assertSame(first, registry.getOrCreate(1));
+        assertSame(second, registry.getOrCreate(2));
+        assertEquals(100, registry.getEvictions());
+        assertEquals(102, registry.size());
+        assertEquals(100, registry.getOrCreate(100).getItems().getFirst().getItemId());
+    }
+
+    private static Cart fill(TieredCartRegistry registry, int cartId) {
+        Cart cart = registry.acquire(cartId);
+        cart.addItem(new DefaultItem(cartId, 3003, 500, Money.ofLira(10), 1));
+        registry.release(cart);
+        return cart;
+    }
+
+    private static Cart filledCart(int cartId) {
+        Cart cart = new Cart(cartId);
+        cart.addItem(new DefaultItem(cartId, 3003, 500, Money.ofLira(10), 1));
+        return cart;
+    }
+
+    @Test
+    void shouldDropCachedDisplayOfCartsLeavingTheHeap() {
+        // Given - One cart on the heap, displays cached
+        CartService cartService = new CartService(PromotionMode.EAGER, new PromotionService(), CartReadMode.LOCKED, 1);
+        TieredCartRegistry registry = (TieredCartRegistry) cartService.getCartRegistry();
+        DisplayCartCache cache = new DisplayCartCache();
+        registry.setRemovalListener(cache::invalidate);
+        JsonResponseEncoder encoder = new JsonResponseEncoder(false, cache);
+        cartService.addItem(1, 10, 1001, 500, Money.ofLira(100), 1);
+        encoder.encode(CommandResponse.displayCart(cartService.displayCart(1)));
+        assertEquals(1, cache.getEntries());
+
+        // When - Cart 2 evicts cart 1, then a command empties cart 2
+        cartService.addItem(2, 20, 1001, 500, Money.ofLira(100), 1);
+        encoder.encode(CommandResponse.displayCart(cartService.displayCart(2)));
+        assertEquals(1, cache.getEntries());
+        cartService.removeItem(2, 20);
+
+        // Then
+        assertEquals(1, registry.getEvictions());
+        assertEquals(1, registry.getFreed());
+        assertEquals(0, cache.getEntries());
+        assertEquals(0, cache.getChars());
+    }
+}
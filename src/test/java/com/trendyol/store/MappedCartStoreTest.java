@@ -0,0 +1,122 @@
+package com.trendyol.store;
+
+import com.trendyol.domain.cart.Cart;
+import com.trendyol.domain.cart.CartSnapshot;
+import com.trendyol.domain.promotion.PromotionService;
+import com.trendyol.service.CartReadMode;
+import com.trendyol.service.CartService;
+import com.trendyol.service.PromotionMode;
+import com.trendyol.service.ResidencyLimits;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedCartStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldKeepCartsAcrossRestartsOfTheService() {
+        // Given - A service with at most two carts on the heap, so most changes go through the store
+        Path file = directory.resolve("carts.store");
+        CartService before = open(file, 2);
+        for (int cartId = 1; cartId <= 5; cartId++) {
+            before.addItem(cartId, cartId * 10, 1001, 500, 30_000, cartId);
+        }
+        before.addVasItemToItem(2, 20, 30, 3242, 5003, 5_000, 1);
+        before.removeItem(4, 40);
+        CartSnapshot expected = before.displayCart(2);
+        long expectedVersion = before.getCart(2).getVersion();
+        before.close();
+
+        // When
+        CartService after = open(file, 0);
+
+        // Then - Same carts (the emptied one freed), same versions; the clean close let the store skip the scan
+        CartSnapshot actual = after.displayCart(2);
+        assertEquals(4, after.getCartRegistry().size());
+        assertEquals(expectedVersion, after.getCart(2).getVersion());
+        assertEquals(expected.getTotalAmount(), actual.getTotalAmount());
+        assertEquals(expected.getTotalDiscount(), actual.getTotalDiscount());
+        assertEquals(expected.getAppliedPromotionId(), actual.getAppliedPromotionId());
+        assertEquals(expected.getVasItemId(0), actual.getVasItemId(0));
+        assertEquals(0, after.displayCart(4).getItemCount());
+        assertEquals(5, after.displayCart(5).getQuantity(0));
+        after.close();
+        assertTrue(new MappedCartStore(file).isOpenedFromIndex());
+    }
+
+    @Test
+    void shouldScanRecordsWhenNotClosed() {
+        // Given - Carts saved and removed without a close, as after a crash
+        Path file = directory.resolve("crashed.store");
+        MappedCartStore crashed = new MappedCartStore(file);
+        CartService service = new CartService(PromotionMode.EAGER, new PromotionService(), CartReadMode.LOCKED,
+                ResidencyLimits.ofCarts(1), crashed);
+        for (int cartId = 0; cartId < 16_384; cartId++) {
+            service.addItem(cartId, cartId, 3003, 500, 100, 1);
+        }
+        for (int cartId = 0; cartId < 16_384; cartId += 2) {
+            assertTrue(crashed.remove(cartId));
+        }
+
+        // When
+        MappedCartStore reopened = new MappedCartStore(file);
+
+        // Then - The odd carts, and the freed slots are reused before the file grows
+        assertFalse(reopened.isOpenedFromIndex());
+        assertEquals(8_192, reopened.size());
+        assertFalse(reopened.contains(0));
+        assertTrue(reopened.contains(16_383));
+        long capacity = reopened.getCapacityBytes();
+        CartService restarted = new CartService(PromotionMode.EAGER, new PromotionService(), CartReadMode.LOCKED,
+                ResidencyLimits.UNBOUNDED, reopened);
+        assertEquals(16_383, restarted.displayCart(16_383).getItemId(0));
+        for (int cartId = 16_384; cartId < 24_576; cartId++) {
+            restarted.addItem(cartId, cartId, 3003, 500, 100, 1);
+        }
+        assertEquals(capacity, reopened.getCapacityBytes());
+        restarted.close();
+    }
+
+    @Test
+    void shouldSaveLazyPromotionAsPendingWithoutResolvingIt() {
+        // Given - Lazy promotions that count their resolutions
+        Path file = directory.resolve("lazy.store");
+        AtomicInteger resolutions = new AtomicInteger();
+        PromotionService counting = new PromotionService() {
+            @Override
+            public void applyBestPromotion(Cart cart) {
+                resolutions.incrementAndGet();
+                super.applyBestPromotion(cart);
+            }
+        };
+        CartService lazy = new CartService(PromotionMode.LAZY, counting, CartReadMode.LOCKED,
+                ResidencyLimits.UNBOUNDED, new MappedCartStore(file));
+
+        // When - Written through on release, then read back without a close
+        lazy.addItem(1, 10, 3003, 500, 40_000, 2);
+        int resolvedBySave = resolutions.get();
+        CartService reopened = new CartService(PromotionMode.LAZY, counting, CartReadMode.LOCKED,
+                ResidencyLimits.UNBOUNDED, new MappedCartStore(file));
+
+        // Then - Resolved on the first display after the reload, to what an eager cart shows
+        assertEquals(0, resolvedBySave);
+        CartSnapshot reloaded = reopened.displayCart(1);
+        assertEquals(1, resolutions.get());
+        CartService eager = new CartService();
+        eager.addItem(1, 10, 3003, 500, 40_000, 2);
+        assertEquals(eager.displayCart(1).getTotalDiscount(), reloaded.getTotalDiscount());
+        assertEquals(eager.displayCart(1).getAppliedPromotionId(), reloaded.getAppliedPromotionId());
+    }
+
+    private static CartService open(Path file, int hotCarts) {
+        return new CartService(PromotionMode.EAGER, new PromotionService(), CartReadMode.LOCKED,
+                ResidencyLimits.ofCarts(hotCarts), new MappedCartStore(file));
+    }
+}
@@ -0,0 +1,98 @@
+package com.trendyol.store;
+
+import com.trendyol.domain.cart.Cart;
+import com.trendyol.domain.cart.CartSnapshot;
+import com.trendyol.domain.item.DefaultItem;
+import com.trendyol.domain.item.DigitalItem;
+import com.trendyol.domain.item.VasItem;
+import com.trendyol.domain.money.Money;
+import com.trendyol.domain.promotion.PromotionService;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapCartStoreTest {
+
+    @Test
+    void shouldRebuildSavedCartWithVersionAndPromotion() {
+        // Given
+        Cart cart = new Cart(42);
+        cart.addItem(new DefaultItem(1, 1001, 500, Money.ofLira(1000), 2));
+        cart.addVasItemToItem(1, new VasItem(10, 3242, 5003, Money.ofLira(100), 3));
+        cart.addItem(new DigitalItem(2, 7889, 501, 1_999, 1));
+        cart.addItem(new DefaultItem(1, 1001, 500, Money.ofLira(1000), 1));
+        new PromotionService().applyBestPromotion(cart);
+        OffHeapCartStore store = new OffHeapCartStore();
+
+        // When
+        store.save(cart);
+        Cart loaded = new Cart(42);
+        boolean found = store.load(loaded);
+
+        // Then - Same display, same version, same running totals
+        assertTrue(found);
+        assertSameDisplay(cart.latestSnapshot(), loaded.latestSnapshot());
+        assertEquals(cart.getVersion(), loaded.getVersion());
+        assertEquals(cart.getVersion(), store.savedVersion(42));
+        assertEquals(cart.getTotalItemCount(), loaded.getTotalItemCount());
+        assertEquals(cart.getCategorySubtotal(1001), loaded.getCategorySubtotal(1001));
+        assertInstanceOf(DigitalItem.class, loaded.getItems().get(1));
+        assertFalse(store.load(new Cart(43)));
+    }
+
+    @Test
+    void shouldReuseFreedSlotsAcrossManyCarts() {
+        // Given
+        OffHeapCartStore store = new OffHeapCartStore();
+        for (int cartId = -5_000; cartId < 5_000; cartId++) {
+            Cart cart = new Cart(cartId);
+            cart.addItem(new DefaultItem(cartId, 3003, 500, 100, 1));
+            store.save(cart);
+        }
+        long capacity = store.getCapacityBytes();
+
+        // When - Every other cart removed, then as many new ones saved
+        for (int cartId = -5_000; cartId < 5_000; cartId += 2) {
+            assertTrue(store.remove(cartId));
+        }
+        for (int cartId = 5_000; cartId < 10_000; cartId++) {
+            store.save(new Cart(cartId));
+        }
+
+        // Then
+        assertEquals(10_000, store.size());
+        assertEquals(capacity, store.getCapacityBytes());
+        assertFalse(store.contains(-5_000));
+        Set<Integer> ids = new HashSet<>();
+        store.forEachCartId(ids::add);
+        assertEquals(10_000, ids.size());
+        for (int cartId = -4_999; cartId < 5_000; cartId += 2) {
+            Cart loaded = new Cart(cartId);
+            assertTrue(store.load(loaded), "cart " + cartId);
+            assertEquals(cartId, loaded.getItems().getFirst().getItemId());
+        }
+    }
+
+    private static void assertSameDisplay(CartSnapshot expected, CartSnapshot actual) {
+        assertEquals(expected.getItemCount(), actual.getItemCount());
+        for (int i = 0; i < expected.getItemCount(); i++) {
+            assertEquals(expected.getItemId(i), actual.getItemId(i));
+            assertEquals(expected.getCategoryId(i), actual.getCategoryId(i));
+            assertEquals(expected.getSellerId(i), actual.getSellerId(i));
+            assertEquals(expected.getPrice(i), actual.getPrice(i));
+            assertEquals(expected.getQuantity(i), actual.getQuantity(i));
+            assertEquals(expected.getVasEnd(i) - expected.getVasStart(i), actual.getVasEnd(i) - actual.getVasStart(i));
+        }
+        for (int v = 0; v < expected.getVasEnd(expected.getItemCount() - 1); v++) {
+            assertEquals(expected.getVasItemId(v), actual.getVasItemId(v));
+            assertEquals(expected.getVasPrice(v), actual.getVasPrice(v));
+            assertEquals(expected.getVasQuantity(v), actual.getVasQuantity(v));
+        }
+        assertEquals(expected.getTotalAmount(), actual.getTotalAmount());
+        assertEquals(expected.getAppliedPromotionId(), actual.getAppliedPromotionId());
+        assertEquals(expected.getTotalDiscount(), actual.getTotalDiscount());
+    }
+}